@@ -0,0 +1,89 @@
+package com.midenium.mannouncer.managers;
+
+import com.midenium.mannouncer.MAnnouncer;
+import com.midenium.mannouncer.models.Announcement;
+import com.midenium.mannouncer.models.AnnouncementType;
+import com.velocitypowered.api.proxy.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link AnnouncementManager#sendAnnouncement} for one announcement on a server with
+ * a growing number of players.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnnouncementDispatchBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int players;
+
+    @Param({"CHAT", "TITLE"})
+    private AnnouncementType type;
+
+    @Param({"false", "true"})
+    private boolean permissionRequired;
+
+    private Path dataDirectory;
+    private AnnouncementManager announcementManager;
+    private Announcement announcement;
+    private Map<String, String> placeholders;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dataDirectory = Files.createTempDirectory("mannouncer-bench");
+
+        List<Player> audience = BenchmarkFixtures.players(players);
+        MAnnouncer plugin = BenchmarkFixtures.plugin(
+                BenchmarkFixtures.proxy(BenchmarkFixtures.server(BenchmarkFixtures.SERVER_NAME, audience)),
+                dataDirectory
+        );
+        announcementManager = plugin.getAnnouncementManager();
+
+        Map<String, Object> config = new HashMap<>();
+        config.put("message", "<gradient:#00BFFF:#4169E1>Welcome {player}!</gradient> <gray>Now playing on {server}.</gray>");
+        config.put("permission", permissionRequired ? "mannouncer.bench" : "");
+        config.put("typing-effect", false);
+        announcement = new Announcement("bench", BenchmarkFixtures.SERVER_NAME, type, config);
+
+        placeholders = Map.of("player", "Steve", "server", BenchmarkFixtures.SERVER_NAME);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFixtures.deleteRecursively(dataDirectory);
+    }
+
+    @Benchmark
+    public void sendAnnouncement() {
+        announcementManager.sendAnnouncement(announcement);
+    }
+
+    @Benchmark
+    public void sendAnnouncementWithPlaceholders() {
+        announcementManager.sendAnnouncement(announcement, placeholders);
+    }
+}
@@ -0,0 +1,170 @@
+package com.midenium.mannouncer.managers;
+
+import com.midenium.mannouncer.MAnnouncer;
+import com.midenium.mannouncer.config.ConfigManager;
+import com.midenium.mannouncer.config.PluginSettings;
+import com.midenium.mannouncer.metrics.PluginMetrics;
+import com.midenium.mannouncer.placeholders.PlaceholderRegistry;
+import com.midenium.mannouncer.utils.AudienceIndex;
+import com.midenium.mannouncer.utils.ComponentCache;
+import com.midenium.mannouncer.utils.OccupancyIndex;
+import com.midenium.mannouncer.utils.PermissionManager;
+import com.midenium.mannouncer.utils.TypingEffectEngine;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import com.velocitypowered.api.proxy.server.ServerInfo;
+import org.slf4j.helpers.NOPLogger;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Fake proxy, servers and players for running the plugin's hot paths outside Velocity.
+ * Players accept every packet and drop it, so benchmarks measure only the plugin's own work.
+ */
+final class BenchmarkFixtures {
+
+    static final String SERVER_NAME = "lobby";
+
+    private BenchmarkFixtures() {
+    }
+
+    static List<Player> players(int count) {
+        List<Player> players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UUID uuid = new UUID(0L, i);
+            String username = "Player" + i;
+            players.add(fake(Player.class, Map.of(
+                    "getUniqueId", args -> uuid,
+                    "getUsername", args -> username,
+                    "hasPermission", args -> true
+            )));
+        }
+        return players;
+    }
+
+    static RegisteredServer server(String name, Collection<Player> players) {
+        ServerInfo info = new ServerInfo(name, InetSocketAddress.createUnresolved("localhost", 25565));
+        return fake(RegisteredServer.class, Map.of(
+                "getServerInfo", args -> info,
+                "getPlayersConnected", args -> players
+        ));
+    }
+
+    static ProxyServer proxy(RegisteredServer server) {
+        String name = server.getServerInfo().getName();
+        return fake(ProxyServer.class, Map.of(
+                "getServer", args -> name.equals(args[0]) ? Optional.of(server) : Optional.empty(),
+                "getAllServers", args -> List.of(server),
+                "getAllPlayers", args -> server.getPlayersConnected()
+        ));
+    }
+
+    /**
+     * Create a plugin instance wired the same way {@link MAnnouncer} does on proxy initialization,
+     * minus commands, listeners and the announcement task
+     */
+    static MAnnouncer plugin(ProxyServer proxy, Path dataDirectory) {
+        MAnnouncer plugin = new MAnnouncer(proxy, NOPLogger.NOP_LOGGER, dataDirectory, null);
+
+        ConfigManager configManager = new ConfigManager(plugin);
+        setField(plugin, "configManager", configManager);
+        configManager.loadConfigs();
+        setField(plugin, "pluginMetrics", new PluginMetrics());
+
+        PluginSettings.RenderCache cacheSettings = configManager.getSettings().performance().renderCache();
+        setField(plugin, "componentCache",
+                new ComponentCache(cacheSettings.enabled(), cacheSettings.maxSize(), cacheSettings.expireAfter()));
+        setField(plugin, "placeholderRegistry", new PlaceholderRegistry(plugin));
+        PermissionManager permissionManager = new PermissionManager(plugin);
+        setField(plugin, "permissionManager", permissionManager);
+        setField(plugin, "typingEffectEngine", new TypingEffectEngine(plugin));
+        setField(plugin, "bossBarManager", new BossBarManager(plugin));
+
+        // Fake players don't report a current server, place them on the fixture servers directly
+        OccupancyIndex occupancyIndex = new OccupancyIndex();
+        AudienceIndex audienceIndex = new AudienceIndex(permissionManager::hasCachedPermission);
+        for (RegisteredServer server : proxy.getAllServers()) {
+            for (Player player : server.getPlayersConnected()) {
+                occupancyIndex.playerConnected(player.getUniqueId(), server.getServerInfo().getName());
+                audienceIndex.playerConnected(player, server.getServerInfo().getName());
+            }
+        }
+        setField(plugin, "occupancyIndex", occupancyIndex);
+        setField(plugin, "audienceIndex", audienceIndex);
+        setField(plugin, "announcementManager", new AnnouncementManager(plugin));
+
+        return plugin;
+    }
+
+    static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to set " + name, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T fake(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args);
+            }
+
+            return switch (method.getName()) {
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                case "toString" -> type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+                default -> defaultValue(method);
+            };
+        });
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> returnType = method.getReturnType();
+        if (returnType == boolean.class) {
+            return false;
+        } else if (returnType == int.class) {
+            return 0;
+        } else if (returnType == long.class) {
+            return 0L;
+        } else if (returnType == float.class) {
+            return 0.0f;
+        } else if (returnType == double.class) {
+            return 0.0d;
+        } else if (returnType == Optional.class) {
+            return Optional.empty();
+        }
+        return null;
+    }
+}
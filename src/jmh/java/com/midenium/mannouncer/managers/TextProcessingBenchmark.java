@@ -0,0 +1,113 @@
+package com.midenium.mannouncer.managers;
+
+import com.midenium.mannouncer.MAnnouncer;
+import com.midenium.mannouncer.models.Announcement;
+import com.midenium.mannouncer.models.AnnouncementType;
+import com.midenium.mannouncer.utils.ComponentCache;
+import com.midenium.mannouncer.webhook.DiscordMarkdown;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * String handling on the announcement and webhook paths: sanitizing, stripping MiniMessage tags,
+ * converting them to Discord markdown, JSON escaping, placeholder replacement and building
+ * announcements from config maps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextProcessingBenchmark {
+
+    private static final String MESSAGE = "<gradient:#5865F2:#7289DA>Join our Discord, {player}!</gradient> "
+            + "<click:open_url:https://discord.gg/example><hover:show_text:'<green>Click to join our Discord'>"
+            + "Click here to join!</hover></click> <gray>Server: {server} | Online: {online}</gray>";
+
+    private Path dataDirectory;
+    private AnnouncementManager announcementManager;
+    private String plainMessage;
+    private Map<String, String> placeholders;
+    private Map<String, Object> announcementConfig;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dataDirectory = Files.createTempDirectory("mannouncer-bench");
+
+        MAnnouncer plugin = BenchmarkFixtures.plugin(
+                BenchmarkFixtures.proxy(BenchmarkFixtures.server(BenchmarkFixtures.SERVER_NAME, List.of())),
+                dataDirectory
+        );
+        announcementManager = plugin.getAnnouncementManager();
+
+        plainMessage = WebhookManager.stripMiniMessageFormatting(MESSAGE);
+        placeholders = Map.of("player", "Steve", "server", BenchmarkFixtures.SERVER_NAME, "online", "128");
+
+        announcementConfig = new HashMap<>();
+        announcementConfig.put("enabled", true);
+        announcementConfig.put("message", MESSAGE);
+        announcementConfig.put("sound", "minecraft:block.note_block.bit");
+        announcementConfig.put("volume", 1.0);
+        announcementConfig.put("pitch", 1.0);
+        announcementConfig.put("permission", "");
+        announcementConfig.put("webhook-url", "");
+        announcementConfig.put("typing-effect", true);
+        announcementConfig.put("cooldown", 0);
+        announcementConfig.put("scheduled", true);
+        announcementConfig.put("interval", 180);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFixtures.deleteRecursively(dataDirectory);
+    }
+
+    @Benchmark
+    public String sanitizeInput() {
+        return announcementManager.sanitizeInput(MESSAGE);
+    }
+
+    @Benchmark
+    public String stripMiniMessageFormatting() {
+        return WebhookManager.stripMiniMessageFormatting(MESSAGE);
+    }
+
+    @Benchmark
+    public String toDiscordMarkdown() {
+        return DiscordMarkdown.fromMiniMessage(MESSAGE);
+    }
+
+    @Benchmark
+    public String escapeJson() {
+        return WebhookManager.escapeJson(plainMessage);
+    }
+
+    @Benchmark
+    public String applyPlaceholders() {
+        return ComponentCache.applyPlaceholders(MESSAGE, placeholders);
+    }
+
+    @Benchmark
+    public Announcement createAnnouncement() {
+        return new Announcement("discord", BenchmarkFixtures.SERVER_NAME, AnnouncementType.CHAT, announcementConfig);
+    }
+}
@@ -1,15 +1,27 @@
 package com.midenium.mannouncer;
 
 import com.google.inject.Inject;
+import com.midenium.mannouncer.cluster.ClusterCoordinator;
 import com.midenium.mannouncer.commands.MAnnouncerCommand;
 import com.midenium.mannouncer.commands.RateLimitedCommand;
 import com.midenium.mannouncer.config.ConfigManager;
+import com.midenium.mannouncer.config.PluginSettings;
 import com.midenium.mannouncer.listeners.ConnectionListener;
+import com.midenium.mannouncer.listeners.LuckPermsListener;
 import com.midenium.mannouncer.managers.AnnouncementManager;
+import com.midenium.mannouncer.managers.BossBarManager;
 import com.midenium.mannouncer.managers.ServerManager;
 import com.midenium.mannouncer.managers.StreamerManager;
+import com.midenium.mannouncer.managers.WebhookManager;
+import com.midenium.mannouncer.metrics.PluginMetrics;
+import com.midenium.mannouncer.metrics.PrometheusFileExporter;
+import com.midenium.mannouncer.placeholders.PlaceholderRegistry;
 import com.midenium.mannouncer.tasks.AnnouncementTask;
+import com.midenium.mannouncer.utils.AudienceIndex;
+import com.midenium.mannouncer.utils.ComponentCache;
+import com.midenium.mannouncer.utils.OccupancyIndex;
 import com.midenium.mannouncer.utils.PermissionManager;
+import com.midenium.mannouncer.utils.TypingEffectEngine;
 import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.proxy.ProxyInitializeEvent;
 import com.velocitypowered.api.event.proxy.ProxyShutdownEvent;
@@ -23,7 +35,6 @@ import org.bstats.velocity.Metrics;
 import org.slf4j.Logger;
 
 import java.nio.file.Path;
-import java.util.Map;
 import java.util.Optional;
 
 @Plugin(
@@ -46,6 +57,15 @@ public class MAnnouncer {
     private StreamerManager streamerManager;
     private AnnouncementTask announcementTask;
     private PermissionManager permissionManager;
+    private ComponentCache componentCache;
+    private PlaceholderRegistry placeholderRegistry;
+    private TypingEffectEngine typingEffectEngine;
+    private BossBarManager bossBarManager;
+    private OccupancyIndex occupancyIndex;
+    private AudienceIndex audienceIndex;
+    private ClusterCoordinator clusterCoordinator;
+    private PluginMetrics pluginMetrics;
+    private PrometheusFileExporter metricsExporter;
     private boolean luckPermsHooked = false;
 
     @Inject
@@ -65,33 +85,65 @@ public class MAnnouncer {
         configManager = new ConfigManager(this);
         configManager.loadConfigs();
         
+        // Initialize the metrics registry before anything records into it
+        pluginMetrics = new PluginMetrics();
+        metricsExporter = new PrometheusFileExporter(this, pluginMetrics);
+        
+        // Configure webhook delivery
+        WebhookManager.configure(configManager.getSettings().discord().delivery(), logger, pluginMetrics);
+        
+        // Initialize the rendered message cache
+        componentCache = createComponentCache();
+        
+        // Initialize the placeholder resolvers, other plugins may register more
+        placeholderRegistry = new PlaceholderRegistry(this);
+        
+        // Initialize the shared typing effect ticker
+        typingEffectEngine = new TypingEffectEngine(this);
+        
+        // Initialize the boss bar registry
+        bossBarManager = new BossBarManager(this);
+        
+        // Track which servers have players, players already online count too
+        occupancyIndex = new OccupancyIndex();
+        occupancyIndex.seed(server.getAllPlayers());
+        
         // Hook into LuckPerms if available
         setupLuckPerms();
         
         // Initialize permission manager
         permissionManager = new PermissionManager(this);
+        permissionManager.seed(server.getAllPlayers());
+        
+        // Keep each server's players split by the permission nodes announcements require
+        audienceIndex = new AudienceIndex((player, node) -> permissionManager.hasCachedPermission(player, node));
+        audienceIndex.seed(server.getAllPlayers());
+        
+        // Drop cached permission decisions when LuckPerms data changes
+        if (luckPermsHooked) {
+            new LuckPermsListener(this).register();
+        }
+        
+        // Split once-per-network work like webhooks and streamer checks with the other proxies
+        clusterCoordinator = new ClusterCoordinator(this);
+        clusterCoordinator.start();
         
         // Initialize managers
         serverManager = new ServerManager(this);
         announcementManager = new AnnouncementManager(this);
         
         // Initialize streamer manager if enabled
-        Map<String, Object> config = configManager.getMainConfig();
-        Map<String, Object> streamersConfig = (Map<String, Object>) config.getOrDefault("streamers", Map.of());
-        boolean streamersEnabled = (boolean) streamersConfig.getOrDefault("enabled", true);
-        
-        if (streamersEnabled) {
+        if (configManager.getSettings().streamers().enabled()) {
             streamerManager = new StreamerManager(this);
         }
         
         // Register commands with rate limiting if enabled
-        boolean rateLimitCommands = isRateLimitCommandsEnabled();
-        int rateLimitThreshold = getRateLimitThreshold();
+        PluginSettings.Security security = configManager.getSettings().security();
         
-        if (rateLimitCommands) {
+        if (security.rateLimitCommands()) {
             server.getCommandManager().register(
                 "mannouncer", 
-                new RateLimitedCommand(new MAnnouncerCommand(this), rateLimitThreshold)
+                new RateLimitedCommand(new MAnnouncerCommand(this), security.rateLimitThreshold())
             );
         } else {
             server.getCommandManager().register("mannouncer", new MAnnouncerCommand(this));
@@ -104,16 +156,16 @@ public class MAnnouncer {
         announcementTask = new AnnouncementTask(this);
         announcementTask.start();
         
+        // Expose runtime state and start the metrics file export
+        registerGauges();
+        configureMetricsExport();
+        
         logger.info("mAnnouncer has been enabled!");
     }
     
     private void setupLuckPerms() {
         // Check if LuckPerms is enabled in the config
-        Map<String, Object> config = configManager.getMainConfig();
-        Map<String, Object> permConfig = (Map<String, Object>) config.getOrDefault("permissions", Map.of());
-        boolean useLuckPerms = (boolean) permConfig.getOrDefault("use-luckperms", true);
-        
-        if (!useLuckPerms) {
+        if (!configManager.getSettings().permissions().useLuckPerms()) {
             logger.info("LuckPerms integration is disabled in the config.");
             return;
         }
@@ -145,6 +197,31 @@ public class MAnnouncer {
             streamerManager.shutdown();
         }
         
+        if (serverManager != null) {
+            serverManager.shutdown();
+        }
+        
+        if (clusterCoordinator != null) {
+            // Hand this proxy's share to the others right away
+            clusterCoordinator.stop();
+        }
+        
+        if (typingEffectEngine != null) {
+            typingEffectEngine.shutdown();
+        }
+        
+        if (bossBarManager != null) {
+            bossBarManager.hideAll();
+        }
+        
+        WebhookManager.shutdown();
+        
+        if (metricsExporter != null) {
+            // Leave a final snapshot behind
+            metricsExporter.stop();
+            metricsExporter.export();
+        }
+        
         logger.info("mAnnouncer has been disabled!");
     }
     
@@ -172,6 +249,10 @@ public class MAnnouncer {
         return serverManager;
     }
     
+    public AnnouncementTask getAnnouncementTask() {
+        return announcementTask;
+    }
+    
     public StreamerManager getStreamerManager() {
         return streamerManager;
     }
@@ -180,32 +261,81 @@ public class MAnnouncer {
         return permissionManager;
     }
     
+    public ComponentCache getComponentCache() {
+        return componentCache;
+    }
+    
+    public PlaceholderRegistry getPlaceholderRegistry() {
+        return placeholderRegistry;
+    }
+    
+    public PluginMetrics getPluginMetrics() {
+        return pluginMetrics;
+    }
+    
+    public BossBarManager getBossBarManager() {
+        return bossBarManager;
+    }
+    
+    public OccupancyIndex getOccupancyIndex() {
+        return occupancyIndex;
+    }
+    
+    public AudienceIndex getAudienceIndex() {
+        return audienceIndex;
+    }
+    
+    public ClusterCoordinator getClusterCoordinator() {
+        return clusterCoordinator;
+    }
+    
+    public TypingEffectEngine getTypingEffectEngine() {
+        return typingEffectEngine;
+    }
+    
     public boolean isLuckPermsHooked() {
         return luckPermsHooked;
     }
 
-    private boolean isRateLimitCommandsEnabled() {
-        Map<String, Object> config = configManager.getMainConfig();
-        Map<String, Object> securityConfig = (Map<String, Object>) config.getOrDefault("security", Map.of());
-        Object rateLimitObj = securityConfig.getOrDefault("rate-limit-commands", false);
-        return rateLimitObj instanceof Boolean && (Boolean) rateLimitObj;
+    /**
+     * Start, restart or stop the metrics file export according to the current settings
+     */
+    public void configureMetricsExport() {
+        PluginSettings.Metrics metricsSettings = configManager.getSettings().metrics();
+        if (metricsSettings.exportEnabled()) {
+            metricsExporter.start(metricsSettings.exportFile(), metricsSettings.exportInterval());
+        } else {
+            metricsExporter.stop();
+        }
     }
     
-    private int getRateLimitThreshold() {
-        Map<String, Object> config = configManager.getMainConfig();
-        Map<String, Object> securityConfig = (Map<String, Object>) config.getOrDefault("security", Map.of());
-        Object thresholdObj = securityConfig.getOrDefault("rate-limit-threshold", 10);
-        
-        if (thresholdObj instanceof Integer) {
-            return (Integer) thresholdObj;
-        } else if (thresholdObj instanceof String) {
-            try {
-                return Integer.parseInt((String) thresholdObj);
-            } catch (NumberFormatException e) {
-                return 10;
-            }
-        }
-        
-        return 10;
+    private void registerGauges() {
+        pluginMetrics.gauge("mannouncer_players_online", "Players connected to the proxy",
+                server::getPlayerCount);
+        pluginMetrics.gauge("mannouncer_scheduled_announcements", "Announcements registered with the scheduler",
+                announcementTask::getScheduledCount);
+        pluginMetrics.gauge("mannouncer_bossbars_active", "Boss bars currently shown",
+                bossBarManager::getActiveBarCount);
+        pluginMetrics.gauge("mannouncer_bossbar_viewers", "Players currently seeing a boss bar",
+                bossBarManager::getViewerCount);
+        pluginMetrics.gauge("mannouncer_typing_sessions", "Typing effects in progress",
+                typingEffectEngine::getActiveSessionCount);
+        pluginMetrics.gauge("mannouncer_permission_cache_players", "Players with cached permission decisions",
+                permissionManager::getCachedPlayerCount);
+        pluginMetrics.gauge("mannouncer_render_cache_entries", "Rendered components in the cache",
+                () -> componentCache.size());
+        pluginMetrics.counter("mannouncer_render_cache_hits_total", "Render cache hits",
+                () -> componentCache.getHits());
+        pluginMetrics.counter("mannouncer_render_cache_misses_total", "Render cache misses",
+                () -> componentCache.getMisses());
+        pluginMetrics.gauge("mannouncer_webhook_queued", "Webhook requests waiting to be sent",
+                WebhookManager::getQueuedCount);
+        pluginMetrics.gauge("mannouncer_webhook_in_flight", "Webhook requests waiting for a response",
+                WebhookManager::getInFlightCount);
+    }
+    
+    private ComponentCache createComponentCache() {
+        PluginSettings.RenderCache cacheSettings = configManager.getSettings().performance().renderCache();
+        return new ComponentCache(cacheSettings.enabled(), cacheSettings.maxSize(), cacheSettings.expireAfter());
     }
 } 
\ No newline at end of file
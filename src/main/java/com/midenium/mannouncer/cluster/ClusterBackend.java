@@ -0,0 +1,35 @@
+package com.midenium.mannouncer.cluster;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Shared storage the proxies of a network coordinate through.
+ * <p>
+ * Each proxy renews its lease every heartbeat and reads everyone else's in the same call, a proxy
+ * whose lease ran out is considered gone. Calls come from one thread at a time.
+ */
+public interface ClusterBackend {
+
+    /**
+     * @return Name for logs
+     */
+    String getName();
+
+    /**
+     * Store this proxy's lease and read the leases of the whole network
+     *
+     * @param lease This proxy's new lease
+     * @return Every lease that hasn't expired, as stored before this proxy's was written
+     * @throws IOException If the shared storage can't be read or written
+     */
+    List<NodeLease> renew(NodeLease lease) throws IOException;
+
+    /**
+     * Remove this proxy's lease so its peers take over right away
+     *
+     * @param lease The lease last stored by this proxy
+     * @throws IOException If the shared storage can't be written
+     */
+    void release(NodeLease lease) throws IOException;
+}
@@ -0,0 +1,369 @@
+package com.midenium.mannouncer.cluster;
+
+import com.midenium.mannouncer.MAnnouncer;
+import com.midenium.mannouncer.config.PluginSettings;
+import com.midenium.mannouncer.metrics.Counter;
+import com.midenium.mannouncer.metrics.PluginMetrics;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Decides which proxy of a network handles the work that must happen once per network, like
+ * webhooks and streamer checks. In-game announcements don't need it, every proxy serves its own players.
+ * <p>
+ * Proxies find each other through leases in a {@link ClusterBackend}. Every key is owned by the
+ * live proxy with the highest rendezvous hash for it, so all proxies agree on the owner without
+ * talking to each other, and when a proxy joins or leaves only the keys it owns move. A proxy
+ * that can't reach the backend for longer than the lease timeout owns everything, sending twice
+ * beats not sending at all.
+ */
+public class ClusterCoordinator {
+
+    private record View(List<String> members, long[] memberHashes, Map<String, String> peerValues) {
+    }
+
+    private final MAnnouncer plugin;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, Function<PluginSettings.Cluster, ClusterBackend>> backends = new ConcurrentHashMap<>();
+    private final Map<String, String> published = new ConcurrentHashMap<>();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final Counter heartbeatsOk;
+    private final Counter heartbeatsFailed;
+
+    private volatile String nodeId;
+    private volatile View view;
+    private PluginSettings.Cluster settings;
+    private ClusterBackend backend;
+    private ScheduledTask heartbeatTask;
+    private NodeLease lastLease;
+    private long lastRenewed;
+    private boolean failing;
+
+    public ClusterCoordinator(MAnnouncer plugin) {
+        this.plugin = plugin;
+        this.nodeId = "local";
+        this.view = standalone();
+
+        PluginMetrics metrics = plugin.getPluginMetrics();
+        this.heartbeatsOk = metrics.counter("mannouncer_cluster_heartbeats_total",
+                "Lease renewals by result", "result", "ok");
+        this.heartbeatsFailed = metrics.counter("mannouncer_cluster_heartbeats_total",
+                "Lease renewals by result", "result", "error");
+        metrics.gauge("mannouncer_cluster_members", "Proxies this proxy shares its work with, itself included",
+                () -> view.members().size());
+
+        registerBackend("file", cluster -> new FileLeaseBackend(resolve(cluster.directory()), TimeUnit.HOURS.toMillis(1)));
+    }
+
+    /**
+     * Make a backend available to the {@code cluster.backend} setting. If the setting already names
+     * it, coordination starts right away.
+     *
+     * @param name Name used in the config
+     * @param factory Creates the backend from the cluster settings
+     */
+    public void registerBackend(String name, Function<PluginSettings.Cluster, ClusterBackend> factory) {
+        backends.put(name.toLowerCase(Locale.ROOT), factory);
+
+        boolean waiting;
+        synchronized (this) {
+            waiting = settings != null && settings.enabled() && backend == null && settings.backend().equalsIgnoreCase(name);
+        }
+        if (waiting) {
+            start();
+        }
+    }
+
+    public void start() {
+        synchronized (this) {
+            if (backend != null) {
+                return;
+            }
+
+            settings = plugin.getConfigManager().getSettings().cluster();
+            nodeId = resolveNodeId();
+            view = standalone();
+            if (!settings.enabled()) {
+                return;
+            }
+
+            Function<PluginSettings.Cluster, ClusterBackend> factory = backends.get(settings.backend().toLowerCase(Locale.ROOT));
+            if (factory == null) {
+                plugin.getLogger().warn("Unknown cluster backend " + settings.backend() + ", this proxy works on its own");
+                return;
+            }
+
+            backend = factory.apply(settings);
+            heartbeatTask = plugin.getServer().getScheduler().buildTask(plugin, this::heartbeat)
+                    .delay(settings.heartbeatInterval(), TimeUnit.SECONDS)
+                    .repeat(settings.heartbeatInterval(), TimeUnit.SECONDS)
+                    .schedule();
+            plugin.getLogger().info("Coordinating with other proxies as " + nodeId + " through " + backend.getName());
+        }
+
+        // Learn about the peers before the first webhook or streamer check
+        heartbeat();
+    }
+
+    /**
+     * Stop renewing and give up this proxy's lease, its peers take over its keys
+     */
+    public synchronized void stop() {
+        if (heartbeatTask != null) {
+            heartbeatTask.cancel();
+            heartbeatTask = null;
+        }
+
+        if (backend != null && lastLease != null) {
+            try {
+                backend.release(lastLease);
+            } catch (IOException | UncheckedIOException e) {
+                plugin.getLogger().warn("Failed to release the cluster lease: " + e.getMessage());
+            }
+        }
+        backend = null;
+        lastLease = null;
+        lastRenewed = 0;
+        failing = false;
+        view = standalone();
+    }
+
+    public void reload() {
+        stop();
+        start();
+    }
+
+    /**
+     * @param key Something that must be handled once per network, e.g. {@code "streamer:twitch:name"}
+     * @return Whether this proxy handles it
+     */
+    public boolean owns(String key) {
+        return nodeId.equals(ownerOf(key));
+    }
+
+    /**
+     * @param key Something that must be handled once per network
+     * @return Node id of the proxy that handles it
+     */
+    public String ownerOf(String key) {
+        View current = view;
+        List<String> members = current.members();
+        if (members.size() == 1) {
+            return members.get(0);
+        }
+
+        long keyHash = hash(key);
+        int owner = 0;
+        long best = 0;
+        for (int i = 0; i < members.size(); i++) {
+            long weight = mix(current.memberHashes()[i] ^ keyHash);
+            if (i == 0 || Long.compareUnsigned(weight, best) > 0) {
+                owner = i;
+                best = weight;
+            }
+        }
+        return members.get(owner);
+    }
+
+    /**
+     * Share a value with the other proxies, it goes out with the next heartbeat
+     *
+     * @param key Key, tabs and line breaks are replaced
+     * @param value Value, tabs and line breaks are replaced
+     */
+    public void publish(String key, String value) {
+        published.put(key, value);
+    }
+
+    public void unpublish(String key) {
+        published.remove(key);
+    }
+
+    /**
+     * @param key Key
+     * @return The value another live proxy published for the key, or null
+     */
+    public String getPeerValue(String key) {
+        return view.peerValues().get(key);
+    }
+
+    /**
+     * @param listener Called after a heartbeat that changed the members or the values they published
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Proxies of one network may share the plugin folder, so a file only this proxy writes gets its
+     * node id in the name while coordination is enabled, e.g. {@code scheduler-state.lobby-1.dat}
+     *
+     * @param file File in the plugin folder
+     * @return The file this proxy should use
+     */
+    public synchronized Path localFile(Path file) {
+        if (settings == null || !settings.enabled()) {
+            return file;
+        }
+
+        StringBuilder node = new StringBuilder(nodeId.length());
+        for (int i = 0; i < nodeId.length(); i++) {
+            char c = nodeId.charAt(i);
+            node.append(Character.isLetterOrDigit(c) || c == '-' ? c : '_');
+        }
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return file.resolveSibling(dot > 0
+                ? name.substring(0, dot) + "." + node + name.substring(dot)
+                : name + "." + node);
+    }
+
+    /**
+     * @return Node ids of the live proxies, sorted, this one included
+     */
+    public List<String> getMembers() {
+        return view.members();
+    }
+
+    private void heartbeat() {
+        boolean changed;
+        synchronized (this) {
+            if (backend == null) {
+                return;
+            }
+            changed = renewLocked();
+        }
+
+        if (changed) {
+            listeners.forEach(Runnable::run);
+        }
+    }
+
+    private boolean renewLocked() {
+        long now = System.currentTimeMillis();
+        long leaseMillis = TimeUnit.SECONDS.toMillis(settings.leaseTimeout());
+        NodeLease lease = new NodeLease(nodeId, instanceId, now + leaseMillis, Map.copyOf(published));
+        View previous = view;
+
+        try {
+            List<NodeLease> leases = backend.renew(lease);
+            Set<String> members = new TreeSet<>();
+            members.add(nodeId);
+            Map<String, String> peerValues = new HashMap<>();
+            for (NodeLease other : leases) {
+                if (other.nodeId().equals(nodeId)) {
+                    // A lease of a previous run is expected on startup, after that it's another proxy
+                    if (lastLease != null && !other.instanceId().equals(instanceId)) {
+                        plugin.getLogger().warn("Another proxy uses the cluster node id " + nodeId
+                                + ", give each proxy its own cluster.node-id");
+                    }
+                    continue;
+                }
+                members.add(other.nodeId());
+                peerValues.putAll(other.values());
+            }
+
+            lastLease = lease;
+            lastRenewed = now;
+            heartbeatsOk.increment();
+            if (failing) {
+                failing = false;
+                plugin.getLogger().info("Reached the cluster backend again");
+            }
+            view = view(List.copyOf(members), peerValues);
+        } catch (IOException | UncheckedIOException e) {
+            heartbeatsFailed.increment();
+            if (!failing) {
+                failing = true;
+                plugin.getLogger().warn("Failed to renew the cluster lease: " + e.getMessage());
+            }
+            if (now - lastRenewed > leaseMillis && previous.members().size() > 1) {
+                // The peers have dropped this proxy by now and split its keys among themselves
+                plugin.getLogger().warn("Lost contact with the other proxies, this proxy works on its own until the backend is back");
+                view = standalone();
+            }
+        }
+
+        View current = view;
+        boolean membersChanged = !current.members().equals(previous.members());
+        if (membersChanged) {
+            plugin.getLogger().info("Cluster members: " + String.join(", ", current.members()));
+        }
+        return membersChanged || !current.peerValues().equals(previous.peerValues());
+    }
+
+    private View standalone() {
+        return view(List.of(nodeId), Map.of());
+    }
+
+    private static View view(List<String> members, Map<String, String> peerValues) {
+        long[] hashes = new long[members.size()];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = hash(members.get(i));
+        }
+        return new View(members, hashes, Map.copyOf(peerValues));
+    }
+
+    private String resolveNodeId() {
+        String configured = settings.nodeId().trim();
+        if (!configured.isEmpty()) {
+            return configured;
+        }
+
+        // Proxies sharing one config tell themselves apart by host and port
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "proxy";
+        }
+        return host + "-" + plugin.getServer().getBoundAddress().getPort();
+    }
+
+    private Path resolve(String directory) {
+        Path path = Path.of(directory);
+        return path.isAbsolute() ? path : plugin.getDataDirectory().resolve(path);
+    }
+
+    /**
+     * FNV-1a over the string, finished with {@link #mix} so similar names get unrelated weights
+     */
+    private static long hash(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
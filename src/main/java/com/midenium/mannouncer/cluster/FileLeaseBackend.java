@@ -0,0 +1,161 @@
+package com.midenium.mannouncer.cluster;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Leases stored as one small text file per proxy in a directory all proxies can reach, e.g. a
+ * shared mount or, for testing, a local folder used by several proxies on one machine.
+ * <p>
+ * A lease file is written to a temporary file and moved over the old one, so readers see either
+ * the previous or the new lease, never half of one. Expiry times are wall-clock millis, the
+ * proxies' clocks need to agree to well within the lease timeout.
+ */
+public class FileLeaseBackend implements ClusterBackend {
+
+    private static final String SUFFIX = ".lease";
+
+    private final Path directory;
+    private final long purgeAfterMillis;
+
+    /**
+     * @param directory Directory shared by all proxies of the network
+     * @param purgeAfterMillis Time after expiry when a dead proxy's file is deleted
+     */
+    public FileLeaseBackend(Path directory, long purgeAfterMillis) {
+        this.directory = directory;
+        this.purgeAfterMillis = purgeAfterMillis;
+    }
+
+    @Override
+    public String getName() {
+        return "file (" + directory + ")";
+    }
+
+    @Override
+    public List<NodeLease> renew(NodeLease lease) throws IOException {
+        Files.createDirectories(directory);
+        List<NodeLease> leases = readAll(System.currentTimeMillis());
+
+        Path file = leaseFile(lease.nodeId());
+        Path temp = directory.resolve(file.getFileName() + "." + lease.instanceId() + ".tmp");
+        Files.write(temp, encode(lease), StandardCharsets.UTF_8);
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return leases;
+    }
+
+    @Override
+    public void release(NodeLease lease) throws IOException {
+        Path file = leaseFile(lease.nodeId());
+        NodeLease stored = read(file);
+        // Leave the file alone if another proxy with the same node id wrote it since
+        if (stored != null && stored.instanceId().equals(lease.instanceId())) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private List<NodeLease> readAll(long now) throws IOException {
+        List<NodeLease> leases = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!file.getFileName().toString().endsWith(SUFFIX)) {
+                    continue;
+                }
+
+                NodeLease lease = read(file);
+                if (lease == null) {
+                    continue;
+                }
+                if (!lease.isExpired(now)) {
+                    leases.add(lease);
+                } else if (now - lease.expiresAt() > purgeAfterMillis) {
+                    // Long gone, a proxy coming back simply writes a new file
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        return leases;
+    }
+
+    /**
+     * @return The lease, or null if the file is gone or malformed
+     */
+    private static NodeLease read(Path file) throws IOException {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        String nodeId = null;
+        String instanceId = null;
+        long expiresAt = -1;
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String line : lines) {
+            String[] parts = line.split("\t", 3);
+            switch (parts[0]) {
+                case "node" -> nodeId = parts.length > 1 ? parts[1] : null;
+                case "instance" -> instanceId = parts.length > 1 ? parts[1] : null;
+                case "expires" -> {
+                    try {
+                        expiresAt = parts.length > 1 ? Long.parseLong(parts[1]) : -1;
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                }
+                case "value" -> {
+                    if (parts.length == 3) {
+                        values.put(parts[1], parts[2]);
+                    }
+                }
+                default -> {
+                    // Written by a newer version, ignore
+                }
+            }
+        }
+
+        if (nodeId == null || instanceId == null || expiresAt < 0) {
+            return null;
+        }
+        return new NodeLease(nodeId, instanceId, expiresAt, values);
+    }
+
+    private static List<String> encode(NodeLease lease) {
+        List<String> lines = new ArrayList<>(3 + lease.values().size());
+        lines.add("node\t" + clean(lease.nodeId()));
+        lines.add("instance\t" + lease.instanceId());
+        lines.add("expires\t" + lease.expiresAt());
+        for (Map.Entry<String, String> entry : lease.values().entrySet()) {
+            lines.add("value\t" + clean(entry.getKey()) + "\t" + clean(entry.getValue()));
+        }
+        return lines;
+    }
+
+    private static String clean(String text) {
+        return text.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private Path leaseFile(String nodeId) {
+        StringBuilder name = new StringBuilder(nodeId.length());
+        for (int i = 0; i < nodeId.length(); i++) {
+            char c = nodeId.charAt(i);
+            name.append(Character.isLetterOrDigit(c) || c == '-' || c == '.' ? c : '_');
+        }
+        return directory.resolve(name + SUFFIX);
+    }
+}
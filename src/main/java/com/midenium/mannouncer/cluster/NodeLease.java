@@ -0,0 +1,18 @@
+package com.midenium.mannouncer.cluster;
+
+import java.util.Map;
+
+/**
+ * A proxy's claim to be part of the network, valid until it expires
+ *
+ * @param nodeId Stable id of the proxy, decides which keys it owns
+ * @param instanceId Random id of the running plugin instance, tells two proxies with the same node id apart
+ * @param expiresAt Wall-clock millis after which peers consider the proxy gone
+ * @param values Values the proxy publishes for its peers
+ */
+public record NodeLease(String nodeId, String instanceId, long expiresAt, Map<String, String> values) {
+
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+}
@@ -1,11 +1,13 @@
 package com.midenium.mannouncer.commands;
 
 import com.midenium.mannouncer.MAnnouncer;
+import com.midenium.mannouncer.managers.WebhookManager;
 import com.midenium.mannouncer.models.Announcement;
 import com.midenium.mannouncer.models.AnnouncementType;
 import com.velocitypowered.api.command.CommandSource;
 import com.velocitypowered.api.command.SimpleCommand;
 import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 
 import java.util.ArrayList;
@@ -18,6 +20,8 @@ import java.util.stream.Collectors;
 
 public class MAnnouncerCommand implements SimpleCommand {
 
+    private static final int LOAD_WINDOW_SECONDS = 600;
+    
     private final MAnnouncer plugin;
     
     public MAnnouncerCommand(MAnnouncer plugin) {
@@ -61,16 +65,85 @@ public class MAnnouncerCommand implements SimpleCommand {
                 }
                 handleTest(source, args);
             }
+            case "stats" -> handleStats(source);
+            case "load" -> handleLoad(source, args);
             default -> sendHelp(source);
         }
     }
     
+    private void handleStats(CommandSource source) {
+        source.sendMessage(MiniMessage.miniMessage().deserialize(getPrefix() + "<yellow>mAnnouncer Stats:</yellow>"));
+        
+        // Plain text, metric labels may contain characters MiniMessage would treat as tags
+        for (String line : plugin.getPluginMetrics().summary()) {
+            source.sendMessage(Component.text(line, NamedTextColor.GRAY));
+        }
+    }
+    
+    private void handleLoad(CommandSource source, String[] args) {
+        // Format: /mannouncer load [server]
+        String serverArg = args.length > 1 ? args[1] : null;
+        if (serverArg != null && !serverExists(serverArg)) {
+            source.sendMessage(
+                    getMessageComponent("general.server-not-found")
+                    .replaceText(builder -> builder.matchLiteral("{server}").replacement(serverArg))
+            );
+            return;
+        }
+        
+        int[] load = plugin.getAnnouncementTask().getLoadProfile(serverArg, LOAD_WINDOW_SECONDS);
+        int total = 0;
+        int peak = 0;
+        int peakAt = 0;
+        int single = 0;
+        int several = 0;
+        for (int second = 0; second < load.length; second++) {
+            total += load[second];
+            if (load[second] > peak) {
+                peak = load[second];
+                peakAt = second;
+            }
+            if (load[second] == 1) {
+                single++;
+            } else if (load[second] > 1) {
+                several++;
+            }
+        }
+        
+        // One character per second, '.' for idle seconds and '+' for more than nine announcements
+        StringBuilder firstMinute = new StringBuilder(60);
+        for (int second = 0; second < Math.min(60, load.length); second++) {
+            int count = load[second];
+            firstMinute.append(count == 0 ? '.' : count > 9 ? '+' : (char) ('0' + count));
+        }
+        
+        source.sendMessage(MiniMessage.miniMessage().deserialize(getPrefix() +
+                "<yellow>Announcement load for the next " + LOAD_WINDOW_SECONDS / 60 + " minutes:</yellow>"));
+        
+        // Plain text, server names may contain characters MiniMessage would treat as tags
+        List<String> lines = List.of(
+                "Scope: " + (serverArg != null ? serverArg : "all servers"),
+                "Announcements: " + total + ", busiest second: " + peak + " at +" + peakAt + "s",
+                "Seconds with one announcement: " + single + ", with several: " + several,
+                "Next 60 seconds: " + firstMinute
+        );
+        for (String line : lines) {
+            source.sendMessage(Component.text(line, NamedTextColor.GRAY));
+        }
+    }
+    
     private void handleReload(CommandSource source) {
         // Reload plugin configuration
         plugin.getConfigManager().reloadConfigs();
+        plugin.getComponentCache().invalidate();
+        WebhookManager.configure(plugin.getConfigManager().getSettings().discord().delivery(), plugin.getLogger(), plugin.getPluginMetrics());
+        plugin.getClusterCoordinator().reload();
+        plugin.getServerManager().reload();
         plugin.getAnnouncementManager().reload();
         plugin.getStreamerManager().reload();
         plugin.getPermissionManager().reload();
+        plugin.getAudienceIndex().invalidatePermissions();
+        plugin.configureMetricsExport();
         
         source.sendMessage(getMessageComponent("general.plugin-reloaded"));
     }
@@ -202,6 +275,9 @@ public class MAnnouncerCommand implements SimpleCommand {
             messages.add(MiniMessage.miniMessage().deserialize("<gray>/mannouncer test <type> <server> <id></gray> - <white>Test an announcement</white>"));
         }
         
+        messages.add(MiniMessage.miniMessage().deserialize("<gray>/mannouncer stats</gray> - <white>Show plugin metrics</white>"));
+        messages.add(MiniMessage.miniMessage().deserialize("<gray>/mannouncer load [server]</gray> - <white>Show scheduled announcements per second</white>"));
+        
         for (Component message : messages) {
             source.sendMessage(message);
         }
@@ -264,6 +340,8 @@ public class MAnnouncerCommand implements SimpleCommand {
             if (plugin.getPermissionManager().hasPermission(source, "test")) {
                 commands.add("test");
             }
+            commands.add("stats");
+            commands.add("load");
             
             return commands;
         }
@@ -284,10 +362,24 @@ public class MAnnouncerCommand implements SimpleCommand {
                     "test".startsWith(args[0].toLowerCase())) {
                 commands.add("test");
             }
+            if ("stats".startsWith(args[0].toLowerCase())) {
+                commands.add("stats");
+            }
+            if ("load".startsWith(args[0].toLowerCase())) {
+                commands.add("load");
+            }
             
             return commands;
         }
         
+        // Second argument of load - show server names
+        if (args.length == 2 && args[0].equalsIgnoreCase("load")) {
+            return plugin.getServer().getAllServers().stream()
+                    .map(server -> server.getServerInfo().getName())
+                    .filter(name -> name.toLowerCase().startsWith(args[1].toLowerCase()))
+                    .collect(Collectors.toList());
+        }
+        
         // Second argument - show announcement types
         if (args.length == 2 && (args[0].equalsIgnoreCase("announcement") || args[0].equalsIgnoreCase("test"))) {
             if ((args[0].equalsIgnoreCase("announcement") && !plugin.getPermissionManager().hasPermission(source, "announcement")) ||
@@ -23,10 +23,8 @@ public class ConfigManager {
 
     private final MAnnouncer plugin;
     private final Path dataDirectory;
-    private final Map<String, Object> mainConfig = new HashMap<>();
-    private final Map<String, Object> messagesConfig = new HashMap<>();
-    private final Map<String, Object> streamersConfig = new HashMap<>();
-    private final Map<String, Map<String, Object>> serverConfigs = new HashMap<>();
+    private final Object writeLock = new Object();
+    private volatile ConfigSnapshot snapshot = ConfigSnapshot.of(Map.of(), Map.of(), Map.of(), Map.of());
 
     public ConfigManager(MAnnouncer plugin) {
         this.plugin = plugin;
@@ -35,10 +33,18 @@ public class ConfigManager {
 
     public void loadConfigs() {
         createDirectories();
-        loadMainConfig();
-        loadMessagesConfig();
-        loadStreamersConfig();
-        loadServerConfigs();
+        
+        // Build the whole generation first, readers keep using the old one until the swap
+        ConfigSnapshot loaded = ConfigSnapshot.of(
+                loadMainConfig(),
+                loadMessagesConfig(),
+                loadStreamersConfig(),
+                loadServerConfigs()
+        );
+        
+        synchronized (writeLock) {
+            snapshot = loaded;
+        }
     }
 
     private void createDirectories() {
@@ -68,36 +74,37 @@ public class ConfigManager {
         }
     }
 
-    private void loadMainConfig() {
+    private Map<String, Object> loadMainConfig() {
         Path configPath = dataDirectory.resolve("config.yml");
         if (!Files.exists(configPath)) {
             saveResource("config.yml", configPath);
         }
-        mainConfig.putAll(loadYamlFile(configPath));
+        return loadYamlFile(configPath);
     }
 
-    private void loadMessagesConfig() {
+    private Map<String, Object> loadMessagesConfig() {
         Path messagesPath = dataDirectory.resolve("messages.yml");
         if (!Files.exists(messagesPath)) {
             saveResource("messages.yml", messagesPath);
         }
-        messagesConfig.putAll(loadYamlFile(messagesPath));
+        return loadYamlFile(messagesPath);
     }
 
-    private void loadStreamersConfig() {
+    private Map<String, Object> loadStreamersConfig() {
         Path streamersPath = dataDirectory.resolve("streamers.yml");
         if (!Files.exists(streamersPath)) {
             saveResource("streamers.yml", streamersPath);
         }
-        streamersConfig.putAll(loadYamlFile(streamersPath));
+        return loadYamlFile(streamersPath);
     }
 
-    private void loadServerConfigs() {
+    private Map<String, Map<String, Object>> loadServerConfigs() {
+        Map<String, Map<String, Object>> serverConfigs = new HashMap<>();
         Path serversDir = dataDirectory.resolve("servers");
         
         // Get all server directories
         File[] serverDirs = serversDir.toFile().listFiles(File::isDirectory);
-        if (serverDirs == null) return;
+        if (serverDirs == null) return serverConfigs;
         
         for (File serverDir : serverDirs) {
             String serverName = serverDir.getName();
@@ -112,6 +119,8 @@ public class ConfigManager {
             
             serverConfigs.put(serverName, serverConfig);
         }
+        
+        return serverConfigs;
     }
     
     private void loadAnnouncementConfig(File serverDir, String fileName, Map<String, Object> serverConfig) {
@@ -166,6 +175,45 @@ public class ConfigManager {
         saveYamlFile(serverConfigPath, config);
     }
 
+    /**
+     * Write a single announcement entry back to its server file and publish a new
+     * snapshot containing the change
+     *
+     * @param serverName The server the announcement belongs to
+     * @param configKey The key of the announcement file in the server config (e.g. chat_announcements)
+     * @param configName The announcement file name (e.g. chat-announcements.yml)
+     * @param id The announcement ID
+     * @param announcementConfig The serialized announcement
+     */
+    public void saveAnnouncementConfig(String serverName, String configKey, String configName,
+                                       String id, Map<String, Object> announcementConfig) {
+        synchronized (writeLock) {
+            ConfigSnapshot current = snapshot;
+            Map<String, Object> serverConfig = current.serverConfigs().get(serverName);
+            if (serverConfig == null || !(serverConfig.get(configKey) instanceof Map)) {
+                return;
+            }
+            
+            Map<String, Object> typeConfig = ConfigSnapshot.thaw((Map<String, Object>) serverConfig.get(configKey));
+            Object announcementsObj = typeConfig.get("announcements");
+            if (!(announcementsObj instanceof Map)) {
+                return;
+            }
+            
+            ((Map<String, Object>) announcementsObj).put(id, announcementConfig);
+            saveServerConfig(serverName, configName, typeConfig);
+            
+            // Publish the updated server config as a new generation
+            Map<String, Object> updatedServerConfig = new HashMap<>(serverConfig);
+            updatedServerConfig.put(configKey, typeConfig);
+            Map<String, Map<String, Object>> updatedServers = new HashMap<>(current.serverConfigs());
+            updatedServers.put(serverName, updatedServerConfig);
+            
+            snapshot = ConfigSnapshot.of(current.mainConfig(), current.messagesConfig(),
+                    current.streamersConfig(), updatedServers);
+        }
+    }
+
     private void saveYamlFile(Path path, Map<String, Object> config) {
         try (Writer writer = new FileWriter(path.toFile(), StandardCharsets.UTF_8)) {
             DumperOptions options = new DumperOptions();
@@ -180,31 +228,38 @@ public class ConfigManager {
     }
 
     public void reloadConfigs() {
-        mainConfig.clear();
-        messagesConfig.clear();
-        streamersConfig.clear();
-        serverConfigs.clear();
-        
         loadConfigs();
     }
 
+    /**
+     * The current config generation. Callers that read several values should
+     * grab the snapshot once so they all come from the same load.
+     */
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public PluginSettings getSettings() {
+        return snapshot.settings();
+    }
+
     public Map<String, Object> getMainConfig() {
-        return mainConfig;
+        return snapshot.mainConfig();
     }
 
     public Map<String, Object> getMessagesConfig() {
-        return messagesConfig;
+        return snapshot.messagesConfig();
     }
 
     public Map<String, Object> getStreamersConfig() {
-        return streamersConfig;
+        return snapshot.streamersConfig();
     }
 
     public Map<String, Map<String, Object>> getServerConfigs() {
-        return serverConfigs;
+        return snapshot.serverConfigs();
     }
     
     public Map<String, Object> getServerConfig(String serverName) {
-        return serverConfigs.getOrDefault(serverName, new HashMap<>());
+        return snapshot.serverConfigs().getOrDefault(serverName, Map.of());
     }
 } 
\ No newline at end of file
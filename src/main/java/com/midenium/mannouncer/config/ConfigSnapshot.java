@@ -0,0 +1,93 @@
+package com.midenium.mannouncer.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One consistent, read-only generation of every loaded config file.
+ * A reload builds a new snapshot and swaps it in as a whole.
+ */
+public record ConfigSnapshot(
+        Map<String, Object> mainConfig,
+        Map<String, Object> messagesConfig,
+        Map<String, Object> streamersConfig,
+        Map<String, Map<String, Object>> serverConfigs,
+        PluginSettings settings
+) {
+
+    public static ConfigSnapshot of(Map<String, Object> mainConfig,
+                                    Map<String, Object> messagesConfig,
+                                    Map<String, Object> streamersConfig,
+                                    Map<String, Map<String, Object>> serverConfigs) {
+        Map<String, Map<String, Object>> frozenServers = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Object>> entry : serverConfigs.entrySet()) {
+            frozenServers.put(entry.getKey(), freeze(entry.getValue()));
+        }
+
+        Map<String, Object> frozenMain = freeze(mainConfig);
+        return new ConfigSnapshot(
+                frozenMain,
+                freeze(messagesConfig),
+                freeze(streamersConfig),
+                Collections.unmodifiableMap(frozenServers),
+                PluginSettings.from(frozenMain)
+        );
+    }
+
+    /**
+     * Deep copy of a YAML tree into unmodifiable maps and lists
+     *
+     * @param map The YAML map
+     * @return The read-only copy
+     */
+    public static Map<String, Object> freeze(Map<String, Object> map) {
+        Map<String, Object> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            copy.put(String.valueOf(entry.getKey()), freezeValue(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * Deep copy of a read-only YAML tree into plain mutable maps and lists
+     *
+     * @param map The YAML map
+     * @return The mutable copy
+     */
+    public static Map<String, Object> thaw(Map<String, Object> map) {
+        Map<String, Object> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            copy.put(entry.getKey(), thawValue(entry.getValue()));
+        }
+        return copy;
+    }
+
+    private static Object freezeValue(Object value) {
+        if (value instanceof Map) {
+            return freeze((Map<String, Object>) value);
+        } else if (value instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            for (Object element : (List<Object>) value) {
+                copy.add(freezeValue(element));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+
+    private static Object thawValue(Object value) {
+        if (value instanceof Map) {
+            return thaw((Map<String, Object>) value);
+        } else if (value instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            for (Object element : (List<Object>) value) {
+                copy.add(thawValue(element));
+            }
+            return copy;
+        }
+        return value;
+    }
+}
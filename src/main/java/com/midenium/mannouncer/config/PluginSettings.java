@@ -0,0 +1,317 @@
+package com.midenium.mannouncer.config;
+
+import java.util.Map;
+
+/**
+ * Typed, immutable view of config.yml. Bound once per load so hot paths read plain
+ * fields instead of walking and casting the raw YAML maps on every call.
+ */
+public record PluginSettings(
+        boolean debug,
+        Permissions permissions,
+        Security security,
+        Servers servers,
+        Announcements announcements,
+        Discord discord,
+        Streamers streamers,
+        Typing typing,
+        Performance performance,
+        Metrics metrics,
+        Cluster cluster
+) {
+
+    /**
+     * @param base Base permission node
+     * @param commands Command permission nodes by command key, e.g. {@code "reload"}
+     */
+    public record Permissions(boolean useLuckPerms, String base, Map<String, String> commands) {
+
+        /**
+         * @param key {@code "base"}, a command key, or a raw permission node
+         * @return The configured node, the key itself if none is configured
+         */
+        public String node(String key) {
+            return key.equals("base") ? base : commands.getOrDefault(key, key);
+        }
+    }
+
+    public record Security(boolean rateLimitCommands, int rateLimitThreshold, boolean sanitizeInput) {
+    }
+
+    public record Servers(boolean assumeAllOnline, int checkInterval, int pingTimeout,
+                          int failureThreshold, int recoveryThreshold) {
+    }
+
+    public record Announcements(boolean enabled, long globalCooldown, int defaultInterval, String phasePolicy,
+                                int stateSaveInterval, RateLimit rateLimit, Welcome welcome) {
+    }
+
+    public record Welcome(boolean enabled, String message, String sound, float volume, float pitch) {
+    }
+
+    public record RateLimit(boolean enabled, int serverBurst, int proxyRate, int proxyBurst, int maxWait,
+                            int maxQueued) {
+    }
+
+    public record Discord(boolean enabled, String defaultWebhookUrl, String serverStatusWebhookUrl,
+                          Delivery delivery) {
+    }
+
+    public record Delivery(int queueCapacity, int maxInFlight, String overflowPolicy,
+                           int connectTimeout, int requestTimeout, long flushWindow) {
+    }
+
+    public record Streamers(boolean enabled, int checkInterval, long cooldown, String defaultWebhookUrl,
+                            boolean simulationEnabled, int changeProbability,
+                            StatusProvider twitch, StatusProvider kick, StatusProvider youtube,
+                            AdaptivePolling adaptivePolling, Callback callback) {
+    }
+
+    public record AdaptivePolling(boolean enabled, int minInterval, int maxInterval, int quietAfter) {
+    }
+
+    public record Callback(boolean enabled, String bind, int port, String secret, int maxAge) {
+    }
+
+    public record StatusProvider(boolean enabled, String apiUrl, String authUrl, String clientId,
+                                 String clientSecret, String apiKey, int maxConcurrent, int timeout) {
+    }
+
+    public record Typing(boolean enabled, int delay, int maxChars, int chunkSize, int maxSessionsPerPlayer) {
+    }
+
+    public record Performance(boolean useThreadPool, int threadPoolSize, boolean batchAnnouncements,
+                              RenderCache renderCache) {
+    }
+
+    public record RenderCache(boolean enabled, long maxSize, long expireAfter) {
+    }
+
+    public record Metrics(boolean exportEnabled, String exportFile, int exportInterval) {
+    }
+
+    public record Cluster(boolean enabled, String backend, String nodeId, String directory,
+                          int heartbeatInterval, int leaseTimeout) {
+    }
+
+    /**
+     * Bind the raw main config into typed settings, applying the plugin defaults
+     * for anything missing or malformed
+     *
+     * @param config The raw config.yml map
+     * @return The bound settings
+     */
+    public static PluginSettings from(Map<String, Object> config) {
+        Map<String, Object> permissions = section(config, "permissions");
+        Map<String, Object> commandPermissions = section(permissions, "commands");
+        String basePermission = getString(permissions, "base", "mannouncer");
+        Map<String, Object> security = section(config, "security");
+        Map<String, Object> servers = section(config, "servers");
+        Map<String, Object> announcements = section(config, "announcements");
+        Map<String, Object> rateLimit = section(announcements, "rate-limit");
+        Map<String, Object> welcome = section(announcements, "welcome");
+        Map<String, Object> discord = section(config, "discord");
+        Map<String, Object> delivery = section(discord, "delivery");
+        Map<String, Object> streamers = section(config, "streamers");
+        Map<String, Object> simulation = section(streamers, "simulation");
+        Map<String, Object> providers = section(streamers, "providers");
+        Map<String, Object> adaptivePolling = section(streamers, "adaptive-polling");
+        Map<String, Object> callback = section(streamers, "callback");
+        Map<String, Object> typing = section(config, "typing");
+        Map<String, Object> performance = section(config, "performance");
+        Map<String, Object> renderCache = section(performance, "render-cache");
+        Map<String, Object> metrics = section(config, "metrics");
+        Map<String, Object> cluster = section(config, "cluster");
+        int heartbeatInterval = Math.max(1, getInt(cluster, "heartbeat-interval", 5));
+
+        return new PluginSettings(
+                getBoolean(config, "debug", false),
+                new Permissions(
+                        getBoolean(permissions, "use-luckperms", true),
+                        basePermission,
+                        Map.of(
+                                "admin", getString(commandPermissions, "admin", basePermission + ".admin"),
+                                "reload", getString(commandPermissions, "reload", basePermission + ".reload"),
+                                "test", getString(commandPermissions, "test", basePermission + ".test"),
+                                "announcement", getString(commandPermissions, "announcement", basePermission + ".announcement")
+                        )
+                ),
+                new Security(
+                        getBoolean(security, "rate-limit-commands", false),
+                        getInt(security, "rate-limit-threshold", 10),
+                        getBoolean(security, "sanitize-input", true)
+                ),
+                new Servers(
+                        getBoolean(servers, "assume-all-online", true),
+                        Math.max(1, getInt(servers, "check-interval", 30)),
+                        Math.max(1, getInt(servers, "ping-timeout", 5)),
+                        Math.max(1, getInt(servers, "failure-threshold", 3)),
+                        Math.max(1, getInt(servers, "recovery-threshold", 1))
+                ),
+                new Announcements(
+                        getBoolean(announcements, "enabled", true),
+                        getLong(announcements, "global-cooldown", 5L),
+                        getInt(announcements, "default-interval", 60),
+                        getString(announcements, "phase-policy", "spread"),
+                        Math.max(0, getInt(announcements, "state-save-interval", 30)),
+                        new RateLimit(
+                                getBoolean(rateLimit, "enabled", true),
+                                Math.max(1, getInt(rateLimit, "server-burst", 2)),
+                                getInt(rateLimit, "proxy-rate", 20),
+                                Math.max(1, getInt(rateLimit, "proxy-burst", 40)),
+                                Math.max(1, getInt(rateLimit, "max-wait", 60)),
+                                Math.max(1, getInt(rateLimit, "max-queued", 1000))
+                        ),
+                        new Welcome(
+                                // No welcome section, no welcome message
+                                !welcome.isEmpty() && getBoolean(welcome, "enabled", true),
+                                getString(welcome, "message", "<green>Welcome to the server!"),
+                                getString(welcome, "sound", ""),
+                                getFloat(welcome, "volume", 1.0f),
+                                getFloat(welcome, "pitch", 1.0f)
+                        )
+                ),
+                new Discord(
+                        getBoolean(discord, "enabled", true),
+                        getString(discord, "default-webhook-url", ""),
+                        getString(discord, "server-status-webhook-url", ""),
+                        new Delivery(
+                                getInt(delivery, "queue-capacity", 256),
+                                getInt(delivery, "max-in-flight", 4),
+                                getString(delivery, "overflow-policy", "drop-oldest"),
+                                getInt(delivery, "connect-timeout", 5),
+                                getInt(delivery, "request-timeout", 10),
+                                getLong(delivery, "flush-window", 250L)
+                        )
+                ),
+                new Streamers(
+                        getBoolean(streamers, "enabled", true),
+                        getInt(streamers, "check-interval", 60),
+                        getLong(streamers, "cooldown", 1800L),
+                        getString(streamers, "default-webhook-url", ""),
+                        getBoolean(simulation, "enabled", true),
+                        getInt(simulation, "change-probability", 10),
+                        statusProvider(section(providers, "twitch"), "https://api.twitch.tv/helix",
+                                "https://id.twitch.tv/oauth2/token", 4),
+                        statusProvider(section(providers, "kick"), "https://kick.com/api/v2", "", 4),
+                        statusProvider(section(providers, "youtube"), "https://www.googleapis.com/youtube/v3", "", 2),
+                        new AdaptivePolling(
+                                getBoolean(adaptivePolling, "enabled", true),
+                                Math.max(1, getInt(adaptivePolling, "min-interval", 30)),
+                                getInt(adaptivePolling, "max-interval", 600),
+                                Math.max(1, getInt(adaptivePolling, "quiet-after", 2))
+                        ),
+                        new Callback(
+                                getBoolean(callback, "enabled", false),
+                                getString(callback, "bind", "0.0.0.0"),
+                                getInt(callback, "port", 8085),
+                                getString(callback, "secret", ""),
+                                Math.max(1, getInt(callback, "max-age", 600))
+                        )
+                ),
+                new Typing(
+                        getBoolean(typing, "enabled", false),
+                        getInt(typing, "delay", 50),
+                        getInt(typing, "max-chars", 100),
+                        Math.max(1, getInt(typing, "chunk-size", 5)),
+                        Math.max(1, getInt(typing, "max-sessions-per-player", 1))
+                ),
+                new Performance(
+                        getBoolean(performance, "use-thread-pool", false),
+                        getInt(performance, "thread-pool-size", 1),
+                        getBoolean(performance, "batch-announcements", false),
+                        new RenderCache(
+                                getBoolean(renderCache, "enabled", true),
+                                getLong(renderCache, "max-size", 2048L),
+                                getLong(renderCache, "expire-after", 600L)
+                        )
+                ),
+                new Metrics(
+                        getBoolean(metrics, "export-enabled", true),
+                        getString(metrics, "export-file", "metrics.prom"),
+                        getInt(metrics, "export-interval", 15)
+                ),
+                new Cluster(
+                        getBoolean(cluster, "enabled", false),
+                        getString(cluster, "backend", "file"),
+                        getString(cluster, "node-id", ""),
+                        getString(cluster, "directory", "cluster"),
+                        heartbeatInterval,
+                        // A lease must survive at least one missed heartbeat
+                        Math.max(heartbeatInterval * 2, getInt(cluster, "lease-timeout", 15))
+                )
+        );
+    }
+
+    private static StatusProvider statusProvider(Map<String, Object> provider, String apiUrl, String authUrl,
+                                                 int maxConcurrent) {
+        return new StatusProvider(
+                getBoolean(provider, "enabled", false),
+                getString(provider, "api-url", apiUrl),
+                getString(provider, "auth-url", authUrl),
+                getString(provider, "client-id", ""),
+                getString(provider, "client-secret", ""),
+                getString(provider, "api-key", ""),
+                getInt(provider, "max-concurrent", maxConcurrent),
+                getInt(provider, "timeout", 10)
+        );
+    }
+
+    // Utility methods for safe type conversions
+    static Map<String, Object> section(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof Map ? (Map<String, Object>) value : Map.of();
+    }
+
+    static String getString(Map<String, Object> map, String key, String defaultValue) {
+        Object value = map.get(key);
+        return value != null ? value.toString() : defaultValue;
+    }
+
+    static boolean getBoolean(Map<String, Object> map, String key, boolean defaultValue) {
+        Object value = map.get(key);
+        return value instanceof Boolean ? (Boolean) value : defaultValue;
+    }
+
+    static int getInt(Map<String, Object> map, String key, int defaultValue) {
+        Object value = map.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        } else if (value instanceof String) {
+            try {
+                return Integer.parseInt((String) value);
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    static float getFloat(Map<String, Object> map, String key, float defaultValue) {
+        Object value = map.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).floatValue();
+        } else if (value instanceof String) {
+            try {
+                return Float.parseFloat((String) value);
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    static long getLong(Map<String, Object> map, String key, long defaultValue) {
+        Object value = map.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value instanceof String) {
+            try {
+                return Long.parseLong((String) value);
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -1,6 +1,9 @@
 package com.midenium.mannouncer.listeners;
 
 import com.midenium.mannouncer.MAnnouncer;
+import com.midenium.mannouncer.config.PluginSettings;
+import com.midenium.mannouncer.placeholders.PlaceholderContext;
+import com.midenium.mannouncer.placeholders.Template;
 import com.velocitypowered.api.event.PostOrder;
 import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.connection.DisconnectEvent;
@@ -8,7 +11,6 @@ import com.velocitypowered.api.event.player.ServerConnectedEvent;
 import com.velocitypowered.api.proxy.Player;
 import net.kyori.adventure.key.Key;
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.minimessage.MiniMessage;
 import net.kyori.adventure.sound.Sound;
 
 import java.util.Map;
@@ -32,9 +34,15 @@ public class ConnectionListener {
         
         // Check if this is the player's first join to this server
         UUID playerId = player.getUniqueId();
+        plugin.getOccupancyIndex().playerConnected(playerId, serverId);
+        plugin.getPermissionManager().playerConnected(playerId);
+        plugin.getAudienceIndex().playerConnected(player, serverId);
         Set<String> joinedServers = playerJoinedServers.computeIfAbsent(
                 playerId, k -> ConcurrentHashMap.newKeySet());
         
+        // Bars shown on the previous server don't follow the player
+        plugin.getBossBarManager().onServerSwitch(player, serverId);
+        
         boolean isFirstJoin = joinedServers.add(serverId);
         
         if (isFirstJoin) {
@@ -46,86 +54,37 @@ public class ConnectionListener {
     @Subscribe(order = PostOrder.NORMAL)
     public void onDisconnect(DisconnectEvent event) {
         // Clean up when player disconnects
-        playerJoinedServers.remove(event.getPlayer().getUniqueId());
+        UUID playerId = event.getPlayer().getUniqueId();
+        playerJoinedServers.remove(playerId);
+        plugin.getOccupancyIndex().playerDisconnected(playerId);
+        plugin.getAudienceIndex().playerDisconnected(playerId);
+        plugin.getPermissionManager().playerDisconnected(playerId);
+        plugin.getBossBarManager().removeViewer(playerId);
     }
     
     private void sendWelcomeMessage(Player player, String serverId) {
-        // Get welcome message from config
-        Map<String, Object> mainConfig = plugin.getConfigManager().getMainConfig();
-        
-        // Check if welcome messages are enabled
-        Object announcementsObj = mainConfig.get("announcements");
-        if (!(announcementsObj instanceof Map)) {
-            return;
-        }
-        
-        Map<String, Object> announcementsConfig = (Map<String, Object>) announcementsObj;
-        Object welcomeObj = announcementsConfig.get("welcome");
-        
-        if (!(welcomeObj instanceof Map)) {
-            return;
-        }
-        
-        Map<String, Object> welcomeConfig = (Map<String, Object>) welcomeObj;
-        boolean enabled = getBoolean(welcomeConfig, "enabled", true);
-        
-        if (!enabled) {
+        PluginSettings.Welcome welcome = plugin.getConfigManager().getSettings().announcements().welcome();
+        if (!welcome.enabled()) {
             return;
         }
         
-        // Get message template
-        String messageTemplate = getString(welcomeConfig, "message", "<green>Welcome to the server!");
-        
-        // Replace placeholders
-        String message = messageTemplate
-                .replace("{player}", player.getUsername())
-                .replace("{server}", serverId);
-        
-        // Send message using MiniMessage
-        Component component = MiniMessage.miniMessage().deserialize(message);
+        // Replace placeholders and render using MiniMessage
+        String messageTemplate = welcome.message();
+        Map<String, String> values = plugin.getPlaceholderRegistry().resolveAll(
+                Template.compile(messageTemplate), PlaceholderContext.forPlayer(player, serverId));
+        Component component = plugin.getComponentCache().render(messageTemplate, values);
         player.sendMessage(component);
         
         // Play sound if configured
-        String sound = getString(welcomeConfig, "sound", "");
-        if (!sound.isEmpty()) {
-            float volume = getFloat(welcomeConfig, "volume", 1.0f);
-            float pitch = getFloat(welcomeConfig, "pitch", 1.0f);
-            
+        if (!welcome.sound().isEmpty()) {
             player.playSound(
                     Sound.sound(
-                            Key.key(sound),
+                            Key.key(welcome.sound()),
                             Sound.Source.MASTER,
-                            volume,
-                            pitch
+                            welcome.volume(),
+                            welcome.pitch()
                     )
             );
         }
     }
-    
-    // Utility methods for safe type conversions
-    private String getString(Map<String, Object> map, String key, String defaultValue) {
-        Object value = map.get(key);
-        return value != null ? value.toString() : defaultValue;
-    }
-    
-    private boolean getBoolean(Map<String, Object> map, String key, boolean defaultValue) {
-        Object value = map.get(key);
-        return value instanceof Boolean ? (Boolean) value : defaultValue;
-    }
-    
-    private float getFloat(Map<String, Object> map, String key, float defaultValue) {
-        Object value = map.get(key);
-        if (value instanceof Float) {
-            return (Float) value;
-        } else if (value instanceof Double) {
-            return ((Double) value).floatValue();
-        } else if (value instanceof String) {
-            try {
-                return Float.parseFloat((String) value);
-            } catch (NumberFormatException e) {
-                return defaultValue;
-            }
-        }
-        return defaultValue;
-    }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,30 @@
+package com.midenium.mannouncer.listeners;
+
+import com.midenium.mannouncer.MAnnouncer;
+import net.luckperms.api.LuckPerms;
+import net.luckperms.api.LuckPermsProvider;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
+
+/**
+ * Listens to LuckPerms permission changes. Kept separate so LuckPerms classes
+ * are only loaded when the hook is active.
+ */
+public class LuckPermsListener {
+
+    private final MAnnouncer plugin;
+
+    public LuckPermsListener(MAnnouncer plugin) {
+        this.plugin = plugin;
+    }
+
+    public void register() {
+        LuckPerms luckPerms = LuckPermsProvider.get();
+        luckPerms.getEventBus().subscribe(plugin, UserDataRecalculateEvent.class, this::onUserDataRecalculate);
+    }
+
+    private void onUserDataRecalculate(UserDataRecalculateEvent event) {
+        // Cached permission decisions are stale once LuckPerms recalculates the user
+        plugin.getPermissionManager().invalidate(event.getUser().getUniqueId());
+        plugin.getAudienceIndex().permissionsChanged(event.getUser().getUniqueId());
+    }
+}
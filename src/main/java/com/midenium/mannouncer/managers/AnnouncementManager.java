@@ -1,9 +1,16 @@
 package com.midenium.mannouncer.managers;
 
 import com.midenium.mannouncer.MAnnouncer;
+import com.midenium.mannouncer.metrics.Counter;
+import com.midenium.mannouncer.metrics.Histogram;
+import com.midenium.mannouncer.metrics.PluginMetrics;
 import com.midenium.mannouncer.models.Announcement;
 import com.midenium.mannouncer.models.AnnouncementType;
-import com.midenium.mannouncer.utils.MessageUtils;
+import com.midenium.mannouncer.placeholders.PersonalizedRenderer;
+import com.midenium.mannouncer.placeholders.PlaceholderContext;
+import com.midenium.mannouncer.placeholders.Template;
+import com.midenium.mannouncer.utils.AudienceIndex;
+import com.midenium.mannouncer.utils.ComponentCache;
 import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.server.RegisteredServer;
 import net.kyori.adventure.audience.Audience;
@@ -11,28 +18,57 @@ import net.kyori.adventure.bossbar.BossBar;
 import net.kyori.adventure.key.Key;
 import net.kyori.adventure.sound.Sound;
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.minimessage.MiniMessage;
 import net.kyori.adventure.title.Title;
 
 import java.time.Duration;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class AnnouncementManager {
 
     private final MAnnouncer plugin;
     private final Map<String, Map<AnnouncementType, Map<String, Announcement>>> announcements = new ConcurrentHashMap<>();
-    private final Map<String, BossBar> activeBossBars = new ConcurrentHashMap<>();
+    
+    private final Map<AnnouncementType, Counter> sentCounters = new EnumMap<>(AnnouncementType.class);
+    private final Map<AnnouncementType, Histogram> sendLatency = new EnumMap<>(AnnouncementType.class);
+    private final Histogram renderLatency;
+    private final Histogram audienceSize;
+    private final Histogram variantCount;
+    private final PersonalizedRenderer personalizedRenderer;
+    private final Counter skippedUnknownServer;
+    private final Counter skippedEmptyServer;
     
     public AnnouncementManager(MAnnouncer plugin) {
         this.plugin = plugin;
+        
+        PluginMetrics metrics = plugin.getPluginMetrics();
+        for (AnnouncementType type : AnnouncementType.values()) {
+            String typeName = type.name().toLowerCase();
+            sentCounters.put(type, metrics.counter("mannouncer_announcements_sent_total",
+                    "Announcements sent to players", "type", typeName));
+            sendLatency.put(type, metrics.histogram("mannouncer_announcement_send_seconds",
+                    "Time spent sending one announcement, rendering included", PluginMetrics.LATENCY_BUCKETS, "type", typeName));
+        }
+        renderLatency = metrics.histogram("mannouncer_announcement_render_seconds",
+                "Time spent rendering an announcement message", PluginMetrics.LATENCY_BUCKETS);
+        audienceSize = metrics.histogram("mannouncer_announcement_audience_players",
+                "Players on the target server when an announcement is sent", PluginMetrics.SIZE_BUCKETS);
+        skippedUnknownServer = metrics.counter("mannouncer_announcements_skipped_total",
+                "Announcements not sent, by reason", "reason", "unknown_server");
+        skippedEmptyServer = metrics.counter("mannouncer_announcements_skipped_total",
+                "Announcements not sent, by reason", "reason", "empty_server");
+        variantCount = metrics.histogram("mannouncer_announcement_variants",
+                "Distinct personalised versions rendered for one announcement", PluginMetrics.SIZE_BUCKETS);
+        personalizedRenderer = new PersonalizedRenderer(plugin);
+        
         loadAnnouncements();
     }
     
@@ -133,120 +169,143 @@ public class AnnouncementManager {
     }
     
     public void sendAnnouncement(Announcement announcement, Map<String, String> placeholders) {
+        send(announcement, placeholders, true);
+    }
+    
+    /**
+     * Send an announcement that came due on its schedule. Every proxy shows it to its own players,
+     * the webhook only goes out from the proxy that owns the announcement, even if the server's
+     * players are all on other proxies.
+     * @param announcement The announcement
+     */
+    public void sendScheduledAnnouncement(Announcement announcement) {
+        String serverId = announcement.getServerId();
+        boolean owner = plugin.getClusterCoordinator().owns("announcement:" + announcement.getKey());
+        if (owner && plugin.getOccupancyIndex().getPlayerCount(serverId) == 0
+                && plugin.getServer().getServer(serverId).isPresent()) {
+            // Due for players on other proxies, nobody to show it to here
+            skippedEmptyServer.increment();
+            if (announcement.hasWebhook()) {
+                sendWebhook(announcement, plugin.getPlaceholderRegistry().resolveAll(
+                        Template.compile(announcement.getMessage()), PlaceholderContext.forServer(serverId, Map.of())));
+            }
+            announcement.setLastSent(System.currentTimeMillis());
+            return;
+        }
+        send(announcement, Collections.emptyMap(), owner);
+    }
+    
+    private void send(Announcement announcement, Map<String, String> placeholders, boolean sendWebhook) {
+        long start = System.nanoTime();
         String serverId = announcement.getServerId();
         
         // Check if server exists
         Optional<RegisteredServer> optServer = plugin.getServer().getServer(serverId);
         if (optServer.isEmpty()) {
+            skippedUnknownServer.increment();
             return;
         }
         
         RegisteredServer server = optServer.get();
-        if (server.getPlayersConnected().isEmpty()) {
+        int players = plugin.getOccupancyIndex().getPlayerCount(serverId);
+        if (players == 0) {
             // No players on server, don't send
+            skippedEmptyServer.increment();
             return;
         }
+        audienceSize.observe(players);
         
-        // Check permission predicate
-        Predicate<Player> permissionPredicate = player -> {
-            if (!announcement.hasPermissionRequirement()) {
-                return true;
-            }
-            
-            String permissionNode = "mannouncer.announcement." + 
-                    announcement.getType().getPermissionNode() + "." + 
-                    serverId + "." + announcement.getId();
-            
-            return player.hasPermission(permissionNode);
-        };
-        
-        // Get message with placeholders
-        String messageText = announcement.getMessage();
+        // Resolve the placeholders the template uses, the rendered component is cached per template and values
+        Map<String, String> explicitValues = placeholders;
         if (!placeholders.isEmpty()) {
+            explicitValues = new HashMap<>();
             for (Map.Entry<String, String> entry : placeholders.entrySet()) {
-                String value = sanitizeInput(entry.getValue());
-                messageText = messageText.replace("{" + entry.getKey() + "}", value);
+                explicitValues.put(entry.getKey(), sanitizeInput(entry.getValue()));
             }
         }
+        PlaceholderContext context = PlaceholderContext.forServer(serverId, explicitValues);
+        Map<String, String> resolvedPlaceholders = plugin.getPlaceholderRegistry().resolveAll(
+                Template.compile(announcement.getMessage()), context);
+        
+        // The index keeps the players with the required permission ready, nothing is copied or filtered here
+        AudienceIndex.Partition partition = plugin.getAudienceIndex().partition(serverId,
+                announcement.hasPermissionRequirement() ? announcement.getPermissionNode() : null);
+        Collection<Player> recipients = partition.players();
         
-        Component message = MiniMessage.miniMessage().deserialize(messageText);
+        // Parsed once, per-player placeholders only fill slots and players with equal values share a variant
+        long renderStart = System.nanoTime();
+        Map<Component, Collection<Player>> variants = personalizedRenderer.render(announcement.getMessage(), context, recipients);
+        renderLatency.observeSince(renderStart);
+        variantCount.observe(variants.size());
         
         // Send based on announcement type
         switch (announcement.getType()) {
-            case CHAT -> sendChatAnnouncement(server, message, announcement, permissionPredicate);
-            case BOSSBAR -> sendBossBarAnnouncement(server, message, announcement, permissionPredicate);
-            case TITLE -> sendTitleAnnouncement(server, message, announcement, permissionPredicate);
-            case SUBTITLE -> sendSubtitleAnnouncement(server, message, announcement, permissionPredicate);
-            case ADVANCEMENT -> sendAdvancementAnnouncement(server, message, announcement, permissionPredicate, placeholders);
+            case CHAT -> variants.forEach((message, group) ->
+                    sendChatAnnouncement(group, audience(partition, group), message, announcement));
+            case BOSSBAR -> sendBossBarAnnouncement(server, variants, announcement);
+            case TITLE -> variants.forEach((message, group) ->
+                    sendTitleAnnouncement(audience(partition, group), message, announcement));
+            case SUBTITLE -> variants.forEach((message, group) ->
+                    sendSubtitleAnnouncement(audience(partition, group), message, announcement));
+            case ADVANCEMENT -> variants.forEach((message, group) ->
+                    sendAdvancementAnnouncement(partition, group, message, announcement, context));
         }
         
         // Play sound if configured
         if (announcement.hasSound()) {
-            sendSound(server, announcement, permissionPredicate);
+            sendSound(partition.audience(), announcement);
         }
         
         // Send to webhook if configured
-        if (announcement.hasWebhook()) {
-            String webhookUrl = announcement.getWebhookUrl();
-            final String finalMessageText = sanitizeInput(messageText);
-            plugin.getServer().getScheduler().buildTask(plugin, () -> {
-                WebhookManager.sendWebhookMessage(webhookUrl, finalMessageText, announcement.getType().name());
-            }).schedule();
+        if (sendWebhook && announcement.hasWebhook()) {
+            sendWebhook(announcement, resolvedPlaceholders);
         }
         
         // Update last sent time
         announcement.setLastSent(System.currentTimeMillis());
+        
+        sentCounters.get(announcement.getType()).increment();
+        sendLatency.get(announcement.getType()).observeSince(start);
+    }
+    
+    private void sendWebhook(Announcement announcement, Map<String, String> resolvedPlaceholders) {
+        String messageText = ComponentCache.applyPlaceholders(announcement.getMessage(), resolvedPlaceholders);
+        // The template keeps its tags for the markdown conversion, explicit values were sanitized before
+        // Delivery is asynchronous, failures are reported by the webhook engine
+        WebhookManager.sendWebhookMessage(announcement.getWebhookUrl(), messageText, announcement.getType().name());
+    }
+    
+    /**
+     * @return The partition's own audience when the group is the whole partition, otherwise one over the group
+     */
+    private static Audience audience(AudienceIndex.Partition partition, Collection<Player> group) {
+        return group == partition.players() ? partition.audience() : Audience.audience(group);
     }
     
-    private void sendChatAnnouncement(RegisteredServer server, Component message, Announcement announcement, Predicate<Player> permissionPredicate) {
+    private void sendChatAnnouncement(Collection<Player> recipients, Audience audience, Component message, Announcement announcement) {
         // If typing effect is enabled, use typing effect
         if (announcement.isTypingEffect() && isTypingEffectEnabled()) {
-            for (Player player : server.getPlayersConnected()) {
-                if (permissionPredicate.test(player)) {
-                    MessageUtils.sendTypingMessage(plugin, player, message);
-                }
-            }
+            plugin.getTypingEffectEngine().start(recipients, message);
         } else {
             // Regular chat message
-            Audience audience = Audience.audience(
-                    server.getPlayersConnected().stream()
-                            .filter(permissionPredicate)
-                            .collect(Collectors.toList())
-            );
-            
             audience.sendMessage(message);
         }
     }
     
-    private void sendBossBarAnnouncement(RegisteredServer server, Component message, Announcement announcement, Predicate<Player> permissionPredicate) {
-        // Create boss bar
+    private void sendBossBarAnnouncement(RegisteredServer server, Map<Component, Collection<Player>> variants, Announcement announcement) {
+        // Create boss bars, one per message variant
         BossBar.Color color = getBossBarColor(announcement.getBossbarColor());
         BossBar.Overlay overlay = getBossBarOverlay(announcement.getBossbarStyle());
         
-        BossBar bossBar = BossBar.bossBar(message, 1.0f, color, overlay);
-        
-        // Add to active boss bars
-        String bossBarKey = announcement.getServerId() + ":" + announcement.getId();
-        activeBossBars.put(bossBarKey, bossBar);
-        
-        // Show to players
-        Audience audience = Audience.audience(
-                server.getPlayersConnected().stream()
-                        .filter(permissionPredicate)
-                        .collect(Collectors.toList())
-        );
-        
-        audience.showBossBar(bossBar);
+        Map<BossBar, Collection<Player>> bossBars = new HashMap<>();
+        variants.forEach((message, players) -> bossBars.put(BossBar.bossBar(message, 1.0f, color, overlay), players));
         
-        // Schedule removal after duration
-        int duration = announcement.getBossbarDuration();
-        plugin.getServer().getScheduler().buildTask(plugin, () -> {
-            audience.hideBossBar(bossBar);
-            activeBossBars.remove(bossBarKey);
-        }).delay(duration, TimeUnit.SECONDS).schedule();
+        // Show to players, replacing this announcement's previous bar if it's still visible
+        plugin.getBossBarManager().show(announcement.getKey(), bossBars, Set.of(server.getServerInfo().getName()),
+                announcement.getBossbarDuration());
     }
     
-    private void sendTitleAnnouncement(RegisteredServer server, Component message, Announcement announcement, Predicate<Player> permissionPredicate) {
+    private void sendTitleAnnouncement(Audience audience, Component message, Announcement announcement) {
         Title title = Title.title(
                 message,
                 Component.empty(),
@@ -257,16 +316,10 @@ public class AnnouncementManager {
                 )
         );
         
-        Audience audience = Audience.audience(
-                server.getPlayersConnected().stream()
-                        .filter(permissionPredicate)
-                        .collect(Collectors.toList())
-        );
-        
         audience.showTitle(title);
     }
     
-    private void sendSubtitleAnnouncement(RegisteredServer server, Component message, Announcement announcement, Predicate<Player> permissionPredicate) {
+    private void sendSubtitleAnnouncement(Audience audience, Component message, Announcement announcement) {
         Title title = Title.title(
                 Component.empty(),
                 message,
@@ -277,52 +330,34 @@ public class AnnouncementManager {
                 )
         );
         
-        Audience audience = Audience.audience(
-                server.getPlayersConnected().stream()
-                        .filter(permissionPredicate)
-                        .collect(Collectors.toList())
-        );
-        
         audience.showTitle(title);
     }
     
-    private void sendAdvancementAnnouncement(RegisteredServer server, Component message, Announcement announcement, 
-                                             Predicate<Player> permissionPredicate, Map<String, String> placeholders) {
-        Component description = Component.empty();
-        if (!announcement.getDescription().isEmpty()) {
-            String descText = announcement.getDescription();
-            
-            // Apply placeholders
-            if (!placeholders.isEmpty()) {
-                for (Map.Entry<String, String> entry : placeholders.entrySet()) {
-                    descText = descText.replace("{" + entry.getKey() + "}", entry.getValue());
-                }
-            }
+    private void sendAdvancementAnnouncement(AudienceIndex.Partition partition, Collection<Player> recipients,
+                                             Component message, Announcement announcement, PlaceholderContext context) {
+        // The description may be personalised too, its variants split the recipients further
+        Map<Component, Collection<Player>> descriptions = announcement.getDescription().isEmpty()
+                ? Map.of(Component.empty(), recipients)
+                : personalizedRenderer.render(announcement.getDescription(), context, recipients);
+        
+        // Advancement toast is not directly supported in Adventure API
+        // For now, we'll send a title and subtitle as fallback
+        descriptions.forEach((description, players) -> {
+            Title title = Title.title(
+                    message,
+                    description,
+                    Title.Times.times(
+                            Duration.ofMillis(10 * 50L),
+                            Duration.ofMillis(40 * 50L),
+                            Duration.ofMillis(10 * 50L)
+                    )
+            );
             
-            description = MiniMessage.miniMessage().deserialize(descText);
-        }
-        
-        // Send to each player (no common way to show advancements via Adventure API)
-        for (Player player : server.getPlayersConnected()) {
-            if (permissionPredicate.test(player)) {
-                // Advancement toast is not directly supported in Adventure API
-                // For now, we'll send a title and subtitle as fallback
-                Title title = Title.title(
-                        message,
-                        description,
-                        Title.Times.times(
-                                Duration.ofMillis(10 * 50L),
-                                Duration.ofMillis(40 * 50L),
-                                Duration.ofMillis(10 * 50L)
-                        )
-                );
-                
-                player.showTitle(title);
-            }
-        }
+            audience(partition, players).showTitle(title);
+        });
     }
     
-    private void sendSound(RegisteredServer server, Announcement announcement, Predicate<Player> permissionPredicate) {
+    private void sendSound(Audience audience, Announcement announcement) {
         String soundName = announcement.getSound();
         float volume = announcement.getVolume();
         float pitch = announcement.getPitch();
@@ -336,12 +371,6 @@ public class AnnouncementManager {
                     pitch
             );
             
-            Audience audience = Audience.audience(
-                    server.getPlayersConnected().stream()
-                            .filter(permissionPredicate)
-                            .collect(Collectors.toList())
-            );
-            
             audience.playSound(sound);
         } catch (Exception e) {
             plugin.getLogger().warn("Invalid sound: " + soundName);
@@ -376,62 +405,36 @@ public class AnnouncementManager {
         if (announcement.isPresent()) {
             announcement.get().setEnabled(enabled);
             saveAnnouncement(announcement.get());
+            
+            // Add or drop the announcement from the schedule right away
+            if (plugin.getAnnouncementTask() != null) {
+                plugin.getAnnouncementTask().reschedule(announcement.get());
+            }
         }
     }
     
     public void saveAnnouncement(Announcement announcement) {
-        // Get server config
-        Map<String, Object> serverConfig = plugin.getConfigManager().getServerConfig(announcement.getServerId());
         AnnouncementType type = announcement.getType();
         
-        // Get announcement type config
-        Object typeConfigObj = serverConfig.get(type.getConfigKey());
-        if (!(typeConfigObj instanceof Map)) {
-            return;
-        }
-        
-        Map<String, Object> typeConfig = (Map<String, Object>) typeConfigObj;
-        
-        // Get announcements map
-        Object announcementsObj = typeConfig.get("announcements");
-        if (!(announcementsObj instanceof Map)) {
-            return;
-        }
-        
-        Map<String, Object> announcementsMap = (Map<String, Object>) announcementsObj;
-        
-        // Update announcement config
-        announcementsMap.put(announcement.getId(), announcement.toMap());
-        
-        // Save to file
-        plugin.getConfigManager().saveServerConfig(
+        // Write the announcement back to its file and publish the change
+        plugin.getConfigManager().saveAnnouncementConfig(
                 announcement.getServerId(),
+                type.getConfigKey(),
                 type.getConfigFileName(),
-                Map.of("announcements", announcementsMap)
+                announcement.getId(),
+                announcement.toMap()
         );
     }
     
     private boolean isTypingEffectEnabled() {
-        Map<String, Object> mainConfig = plugin.getConfigManager().getMainConfig();
-        Object typingObj = mainConfig.get("typing");
-        
-        if (typingObj instanceof Map) {
-            Map<String, Object> typingConfig = (Map<String, Object>) typingObj;
-            Object enabledObj = typingConfig.get("enabled");
-            return enabledObj instanceof Boolean && (Boolean) enabledObj;
-        }
-        
-        return false;
+        return plugin.getConfigManager().getSettings().typing().enabled();
     }
     
     private boolean isSanitizationEnabled() {
-        Map<String, Object> config = plugin.getConfigManager().getMainConfig();
-        Map<String, Object> securityConfig = (Map<String, Object>) config.getOrDefault("security", Map.of());
-        Object sanitizeObj = securityConfig.getOrDefault("sanitize-input", true);
-        return sanitizeObj instanceof Boolean && (Boolean) sanitizeObj;
+        return plugin.getConfigManager().getSettings().security().sanitizeInput();
     }
     
-    private String sanitizeInput(String input) {
+    String sanitizeInput(String input) {
         if (input == null) {
             return "";
         }
@@ -448,12 +451,13 @@ public class AnnouncementManager {
     
     public void reload() {
         // Clear active boss bars
-        for (BossBar bossBar : activeBossBars.values()) {
-            plugin.getServer().getAllPlayers().forEach(player -> player.hideBossBar(bossBar));
-        }
-        activeBossBars.clear();
+        plugin.getBossBarManager().hideAll();
         
         // Reload announcements
         loadAnnouncements();
+        
+        if (plugin.getAnnouncementTask() != null) {
+            plugin.getAnnouncementTask().refresh();
+        }
     }
 } 
\ No newline at end of file
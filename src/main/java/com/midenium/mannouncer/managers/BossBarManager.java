@@ -0,0 +1,226 @@
+package com.midenium.mannouncer.managers;
+
+import com.midenium.mannouncer.MAnnouncer;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import net.kyori.adventure.bossbar.BossBar;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of every boss bar shown by the plugin and who is looking at it.
+ * <p>
+ * Bars are registered under a key and bound to the servers they were shown on. All bars expire
+ * from one shared timer, and viewers are dropped as soon as they disconnect or leave those servers.
+ */
+public class BossBarManager {
+
+    private static final long EXPIRY_CHECK_INTERVAL_MILLIS = 250L;
+
+    private final MAnnouncer plugin;
+
+    // Guarded by this
+    private final Map<String, ActiveBar> activeBars = new HashMap<>();
+    private ScheduledTask expiryTask;
+
+    private record Viewer(Player player, BossBar bossBar) {
+        private void hide() {
+            player.hideBossBar(bossBar);
+        }
+    }
+
+    private static final class ActiveBar {
+        private final Set<String> serverIds;
+        private final long expiresAt;
+        // Personalised announcements show a different bar to each group of viewers
+        private final Map<UUID, Viewer> viewers = new HashMap<>();
+
+        private ActiveBar(Set<String> serverIds, long expiresAt) {
+            this.serverIds = serverIds;
+            this.expiresAt = expiresAt;
+        }
+
+        private void hideAll() {
+            for (Viewer viewer : viewers.values()) {
+                viewer.hide();
+            }
+            viewers.clear();
+        }
+    }
+
+    public BossBarManager(MAnnouncer plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Show a boss bar to players on a server. A bar already shown under the same key is hidden first.
+     *
+     * @param key Unique key of the bar, e.g. the announcement key
+     * @param bossBar The boss bar
+     * @param serverId Server the viewers are on
+     * @param viewers Players to show the bar to
+     * @param durationSeconds How long the bar stays visible
+     */
+    public void show(String key, BossBar bossBar, String serverId, Collection<Player> viewers, long durationSeconds) {
+        show(key, bossBar, Set.of(serverId), viewers, durationSeconds);
+    }
+
+    /**
+     * Show one boss bar to players spread over several servers. Viewers keep it while they move
+     * between those servers. A bar already shown under the same key is hidden first.
+     *
+     * @param key Unique key of the bar
+     * @param bossBar The boss bar
+     * @param serverIds Servers the viewers are on
+     * @param viewers Players to show the bar to
+     * @param durationSeconds How long the bar stays visible
+     */
+    public void show(String key, BossBar bossBar, Set<String> serverIds, Collection<Player> viewers,
+                     long durationSeconds) {
+        show(key, Map.of(bossBar, viewers), serverIds, durationSeconds);
+    }
+
+    /**
+     * Show different boss bars to different players as one entry, e.g. the variants of a
+     * personalised announcement. They expire and are replaced together.
+     *
+     * @param key Unique key of the bars
+     * @param bossBars Each bar with the players to show it to
+     * @param serverIds Servers the viewers are on
+     * @param durationSeconds How long the bars stay visible
+     */
+    public synchronized void show(String key, Map<BossBar, ? extends Collection<Player>> bossBars,
+                                  Set<String> serverIds, long durationSeconds) {
+        ActiveBar previous = activeBars.remove(key);
+        if (previous != null) {
+            previous.hideAll();
+        }
+
+        ActiveBar bar = new ActiveBar(Set.copyOf(serverIds),
+                System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(Math.max(1L, durationSeconds)));
+        for (Map.Entry<BossBar, ? extends Collection<Player>> entry : bossBars.entrySet()) {
+            for (Player player : entry.getValue()) {
+                bar.viewers.put(player.getUniqueId(), new Viewer(player, entry.getKey()));
+                player.showBossBar(entry.getKey());
+            }
+        }
+
+        if (bar.viewers.isEmpty()) {
+            return;
+        }
+        activeBars.put(key, bar);
+        ensureExpiryTask();
+    }
+
+    /**
+     * Hide and forget a bar
+     *
+     * @param key The bar key
+     */
+    public synchronized void hide(String key) {
+        ActiveBar bar = activeBars.remove(key);
+        if (bar != null) {
+            bar.hideAll();
+        }
+    }
+
+    /**
+     * Hide every bar the plugin is currently showing
+     */
+    public synchronized void hideAll() {
+        for (ActiveBar bar : activeBars.values()) {
+            bar.hideAll();
+        }
+        activeBars.clear();
+        cancelExpiryTask();
+    }
+
+    /**
+     * Drop a player from all bars, e.g. when they disconnect
+     *
+     * @param playerId The player's UUID
+     */
+    public synchronized void removeViewer(UUID playerId) {
+        Iterator<ActiveBar> iterator = activeBars.values().iterator();
+        while (iterator.hasNext()) {
+            ActiveBar bar = iterator.next();
+            bar.viewers.remove(playerId);
+            if (bar.viewers.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Hide bars that belong to other servers after a player switched servers
+     *
+     * @param player The player
+     * @param serverId The server the player is now connected to
+     */
+    public synchronized void onServerSwitch(Player player, String serverId) {
+        Iterator<ActiveBar> iterator = activeBars.values().iterator();
+        while (iterator.hasNext()) {
+            ActiveBar bar = iterator.next();
+            if (bar.serverIds.contains(serverId)) {
+                continue;
+            }
+            Viewer viewer = bar.viewers.remove(player.getUniqueId());
+            if (viewer != null) {
+                viewer.hide();
+                if (bar.viewers.isEmpty()) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    public synchronized int getActiveBarCount() {
+        return activeBars.size();
+    }
+
+    public synchronized int getViewerCount() {
+        int viewers = 0;
+        for (ActiveBar bar : activeBars.values()) {
+            viewers += bar.viewers.size();
+        }
+        return viewers;
+    }
+
+    private void ensureExpiryTask() {
+        if (expiryTask == null) {
+            expiryTask = plugin.getServer().getScheduler().buildTask(plugin, this::expire)
+                    .repeat(EXPIRY_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)
+                    .schedule();
+        }
+    }
+
+    private void cancelExpiryTask() {
+        if (expiryTask != null) {
+            expiryTask.cancel();
+            expiryTask = null;
+        }
+    }
+
+    private synchronized void expire() {
+        long now = System.currentTimeMillis();
+
+        Iterator<ActiveBar> iterator = activeBars.values().iterator();
+        while (iterator.hasNext()) {
+            ActiveBar bar = iterator.next();
+            if (bar.expiresAt <= now) {
+                bar.hideAll();
+                iterator.remove();
+            }
+        }
+
+        if (activeBars.isEmpty()) {
+            cancelExpiryTask();
+        }
+    }
+}
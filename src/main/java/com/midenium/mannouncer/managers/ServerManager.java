@@ -1,103 +1,226 @@
 package com.midenium.mannouncer.managers;
 
 import com.midenium.mannouncer.MAnnouncer;
+import com.midenium.mannouncer.config.PluginSettings;
+import com.midenium.mannouncer.metrics.Counter;
+import com.midenium.mannouncer.metrics.Histogram;
+import com.midenium.mannouncer.metrics.PluginMetrics;
+import com.midenium.mannouncer.models.ServerHealth;
 import com.velocitypowered.api.proxy.server.RegisteredServer;
 import com.velocitypowered.api.proxy.server.ServerPing;
+import com.velocitypowered.api.scheduler.ScheduledTask;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.UnaryOperator;
 
+/**
+ * Tracks backend server health by pinging every server once per check interval.
+ * <p>
+ * Pings are spread over the interval, each server gets its own slot with a little jitter, so a
+ * large network isn't pinged in one burst. A ping that doesn't answer within the timeout counts
+ * as failed, and a server only flips status after the configured number of pings in a row agree.
+ */
 public class ServerManager {
 
     private final MAnnouncer plugin;
-    private final Map<String, Boolean> serverStatus = new ConcurrentHashMap<>();
-    private boolean isRunning = false;
-    private boolean assumeServersOnline = true; // Default to true to make sure announcements work
-    
+    private final Map<String, ServerHealth> health = new ConcurrentHashMap<>();
+    private final Set<String> pinging = ConcurrentHashMap.newKeySet();
+    private volatile PluginSettings.Servers settings;
+    private ScheduledTask roundTask;
+    private final PluginMetrics metrics;
+    private final Counter pingsOnline;
+    private final Counter pingsOffline;
+    private final Counter pingsTimeout;
+    private final Counter statusChanges;
+    private final Histogram pingLatency;
+
     public ServerManager(MAnnouncer plugin) {
         this.plugin = plugin;
+
+        this.metrics = plugin.getPluginMetrics();
+        this.pingsOnline = metrics.counter("mannouncer_server_pings_total", "Backend server pings by result", "result", "online");
+        this.pingsOffline = metrics.counter("mannouncer_server_pings_total", "Backend server pings by result", "result", "offline");
+        this.pingsTimeout = metrics.counter("mannouncer_server_pings_total", "Backend server pings by result", "result", "timeout");
+        this.statusChanges = metrics.counter("mannouncer_server_status_changes_total", "Backend servers going online or offline");
+        this.pingLatency = metrics.histogram("mannouncer_server_ping_seconds",
+                "Round trip time of backend server pings", PluginMetrics.LATENCY_BUCKETS);
+        metrics.gauge("mannouncer_servers_online", "Backend servers considered online",
+                () -> health.values().stream().filter(ServerHealth::isOnline).count());
+
         loadConfig();
         initializeServerStatus();
         startMonitoring();
     }
-    
+
     private void loadConfig() {
-        Map<String, Object> config = plugin.getConfigManager().getMainConfig();
-        Map<String, Object> serverConfig = (Map<String, Object>) config.getOrDefault("servers", Map.of());
-        assumeServersOnline = (boolean) serverConfig.getOrDefault("assume-all-online", true);
-        
-        plugin.getLogger().info("Server status monitoring: assume-all-online = " + assumeServersOnline);
+        settings = plugin.getConfigManager().getSettings().servers();
+
+        plugin.getLogger().info("Server status monitoring: assume-all-online = " + settings.assumeAllOnline());
     }
-    
+
     private void initializeServerStatus() {
         // Initialize all servers based on configuration
-        plugin.getServer().getAllServers().forEach(server -> {
-            String serverId = server.getServerInfo().getName();
-            serverStatus.put(serverId, assumeServersOnline);
-            plugin.getLogger().info("Initialized server " + serverId + " as " + 
-                  (assumeServersOnline ? "online" : "pending ping check"));
+        plugin.getServer().getAllServers().forEach(server -> track(server.getServerInfo().getName()));
+    }
+
+    private ServerHealth track(String serverId) {
+        ServerHealth[] added = new ServerHealth[1];
+        ServerHealth current = health.computeIfAbsent(serverId, id -> {
+            added[0] = ServerHealth.initial(id, settings.assumeAllOnline() ? ServerHealth.Status.ONLINE : ServerHealth.Status.UNKNOWN);
+            return added[0];
         });
+
+        if (added[0] != null) {
+            metrics.gauge("mannouncer_server_players", "Players on a backend server as reported by its last ping",
+                    () -> health.getOrDefault(serverId, added[0]).onlinePlayers(), "server", serverId);
+            metrics.gauge("mannouncer_server_latency_seconds", "Round trip time of the last successful ping",
+                    () -> health.getOrDefault(serverId, added[0]).latencyMillis() / 1000.0, "server", serverId);
+            plugin.getLogger().info("Initialized server " + serverId + " as " +
+                  (settings.assumeAllOnline() ? "online" : "pending ping check"));
+        }
+        return current;
     }
-    
-    private void startMonitoring() {
-        if (isRunning) {
+
+    private synchronized void startMonitoring() {
+        if (roundTask != null) {
             return;
         }
-        
-        isRunning = true;
-        
+
         // If we're assuming all servers are online, we don't need active monitoring
-        if (assumeServersOnline) {
+        if (settings.assumeAllOnline()) {
             plugin.getLogger().info("Server status monitoring is minimal because assume-all-online is true");
             return;
         }
-        
-        // Check server status every 30 seconds
-        plugin.getServer().getScheduler().buildTask(plugin, this::checkServers)
-                .repeat(30, TimeUnit.SECONDS)
+
+        roundTask = plugin.getServer().getScheduler().buildTask(plugin, this::checkServers)
+                .repeat(settings.checkInterval(), TimeUnit.SECONDS)
                 .schedule();
     }
-    
+
+    private synchronized void stopMonitoring() {
+        if (roundTask != null) {
+            roundTask.cancel();
+            roundTask = null;
+        }
+    }
+
+    /**
+     * Start one round of pings, each server in its own slot of the check interval
+     */
     private void checkServers() {
-        for (RegisteredServer server : plugin.getServer().getAllServers()) {
-            String serverId = server.getServerInfo().getName();
-            
-            // Ping server asynchronously
-            server.ping().thenAccept(ping -> {
-                boolean wasOnline = serverStatus.getOrDefault(serverId, false);
-                boolean isOnline = ping != null;
-                
-                // Status changed
-                if (wasOnline != isOnline) {
-                    serverStatus.put(serverId, isOnline);
-                    onServerStatusChange(serverId, isOnline);
-                }
-            }).exceptionally(ex -> {
-                // Failed to ping, server is offline
-                boolean wasOnline = serverStatus.getOrDefault(serverId, false);
-                if (wasOnline) {
-                    serverStatus.put(serverId, false);
-                    onServerStatusChange(serverId, false);
-                }
-                return null;
-            });
+        List<RegisteredServer> servers = new ArrayList<>(plugin.getServer().getAllServers());
+        if (servers.isEmpty()) {
+            return;
+        }
+
+        // Same order every round, so each server is pinged about one interval after its last ping
+        servers.sort(Comparator.comparing(server -> server.getServerInfo().getName()));
+        long slot = TimeUnit.SECONDS.toMillis(settings.checkInterval()) / servers.size();
+        long jitter = Math.max(1, slot / 4);
+
+        for (int i = 0; i < servers.size(); i++) {
+            RegisteredServer server = servers.get(i);
+            long delay = i * slot + ThreadLocalRandom.current().nextLong(jitter);
+            plugin.getServer().getScheduler().buildTask(plugin, () -> ping(server))
+                    .delay(delay, TimeUnit.MILLISECONDS)
+                    .schedule();
         }
     }
-    
-    private void onServerStatusChange(String serverId, boolean isOnline) {
-        plugin.getLogger().info("Server " + serverId + " is now " + (isOnline ? "online" : "offline"));
-        
-        // Get webhook URL from config
-        Map<String, Object> config = plugin.getConfigManager().getMainConfig();
-        Map<String, Object> discordConfig = (Map<String, Object>) config.getOrDefault("discord", Map.of());
-        
-        String webhookUrl = (String) discordConfig.getOrDefault("server-status-webhook-url", "");
-        if (!webhookUrl.isEmpty()) {
-            WebhookManager.sendServerStatusWebhook(webhookUrl, serverId, !isOnline);
+
+    private void ping(RegisteredServer server) {
+        String serverId = server.getServerInfo().getName();
+        if (!pinging.add(serverId)) {
+            // The previous ping hasn't timed out yet
+            return;
         }
+        track(serverId);
+
+        long start = System.nanoTime();
+        server.ping().orTimeout(settings.pingTimeout(), TimeUnit.SECONDS).whenComplete((ping, error) -> {
+            pinging.remove(serverId);
+            long now = System.currentTimeMillis();
+
+            if (error == null && ping != null) {
+                long elapsed = System.nanoTime() - start;
+                pingLatency.observeNanos(elapsed);
+                pingsOnline.increment();
+
+                ServerPing.Players players = ping.getPlayers().orElse(null);
+                int online = players != null ? players.getOnline() : -1;
+                int max = players != null ? players.getMax() : -1;
+                update(serverId, current -> current.withSuccess(TimeUnit.NANOSECONDS.toMillis(elapsed),
+                        online, max, settings.recoveryThreshold(), now));
+            } else {
+                // orTimeout fails the future directly, other errors arrive wrapped
+                (error instanceof TimeoutException || (error != null && error.getCause() instanceof TimeoutException)
+                        ? pingsTimeout : pingsOffline).increment();
+                update(serverId, current -> current.withFailure(settings.failureThreshold(), now));
+            }
+        });
     }
-    
+
+    private void update(String serverId, UnaryOperator<ServerHealth> change) {
+        ServerHealth[] previous = new ServerHealth[1];
+        ServerHealth updated = health.compute(serverId, (id, current) -> {
+            previous[0] = current != null ? current : ServerHealth.initial(id, ServerHealth.Status.UNKNOWN);
+            return change.apply(previous[0]);
+        });
+
+        if (previous[0].status() != updated.status()) {
+            onServerStatusChange(previous[0], updated);
+        }
+    }
+
+    private void onServerStatusChange(ServerHealth previous, ServerHealth current) {
+        plugin.getLogger().info("Server " + current.serverId() + " is now " + (current.isOnline() ? "online" : "offline"));
+
+        // The first ping only settles the initial state, that isn't news
+        if (previous.status() == ServerHealth.Status.UNKNOWN) {
+            return;
+        }
+        statusChanges.increment();
+
+        // Every proxy pings the server, the one that owns it reports the change
+        String webhookUrl = plugin.getConfigManager().getSettings().discord().serverStatusWebhookUrl();
+        if (!webhookUrl.isEmpty() && plugin.getClusterCoordinator().owns("server:" + current.serverId())) {
+            WebhookManager.sendServerStatusWebhook(webhookUrl, current);
+        }
+    }
+
+    /**
+     * @param serverId Server ID
+     * @return The server's current health, servers that aren't registered with the proxy are offline
+     */
+    public ServerHealth getHealth(String serverId) {
+        ServerHealth current = health.get(serverId);
+        if (current != null) {
+            return current;
+        }
+
+        // Registered after startup, it joins the next ping round
+        if (plugin.getServer().getServer(serverId).isPresent()) {
+            return track(serverId);
+        }
+        return ServerHealth.initial(serverId, ServerHealth.Status.OFFLINE);
+    }
+
+    /**
+     * @return Health of every tracked server
+     */
+    public Collection<ServerHealth> getAllHealth() {
+        return Collections.unmodifiableCollection(health.values());
+    }
+
     /**
      * Check if a server is online
      * @param serverId Server ID to check
@@ -105,43 +228,41 @@ public class ServerManager {
      */
     public boolean isServerOnline(String serverId) {
         // If we're assuming all servers are online, always return true
-        if (assumeServersOnline) {
+        if (settings.assumeAllOnline()) {
             return true;
         }
-        
-        // Check if the server exists in our status map
-        if (!serverStatus.containsKey(serverId)) {
-            // If the server exists in Velocity but we haven't tracked it, add it
-            if (plugin.getServer().getServer(serverId).isPresent()) {
-                serverStatus.put(serverId, true);
-                return true;
-            }
-            return false;
-        }
-        
-        return serverStatus.getOrDefault(serverId, false);
+
+        return getHealth(serverId).isOnline();
     }
-    
+
     /**
      * Force update server status
      * @param serverId Server ID
      * @param isOnline Server status
      */
     public void setServerStatus(String serverId, boolean isOnline) {
-        boolean wasOnline = serverStatus.getOrDefault(serverId, false);
-        
-        if (wasOnline != isOnline) {
-            serverStatus.put(serverId, isOnline);
-            onServerStatusChange(serverId, isOnline);
-        }
+        ServerHealth.Status status = isOnline ? ServerHealth.Status.ONLINE : ServerHealth.Status.OFFLINE;
+        long now = System.currentTimeMillis();
+        update(serverId, current -> current.status() == status ? current
+                : new ServerHealth(serverId, status, 0, 0, current.latencyMillis(), current.onlinePlayers(),
+                        current.maxPlayers(), current.lastCheck(), now));
     }
-    
+
     public void reload() {
+        boolean wasAssumed = settings.assumeAllOnline();
+        stopMonitoring();
         loadConfig();
+
+        if (wasAssumed != settings.assumeAllOnline()) {
+            // Assumed states mean nothing once real pings start, and the other way around
+            health.replaceAll((id, current) -> ServerHealth.initial(id,
+                    settings.assumeAllOnline() ? ServerHealth.Status.ONLINE : ServerHealth.Status.UNKNOWN));
+        }
         initializeServerStatus();
+        startMonitoring();
     }
-    
+
     public void shutdown() {
-        isRunning = false;
+        stopMonitoring();
     }
-} 
\ No newline at end of file
+}
@@ -1,36 +1,140 @@
 package com.midenium.mannouncer.managers;
 
 import com.midenium.mannouncer.MAnnouncer;
+import com.midenium.mannouncer.cluster.ClusterCoordinator;
+import com.midenium.mannouncer.config.ConfigSnapshot;
+import com.midenium.mannouncer.config.PluginSettings;
+import com.midenium.mannouncer.metrics.Counter;
+import com.midenium.mannouncer.metrics.Histogram;
+import com.midenium.mannouncer.metrics.PluginMetrics;
 import com.midenium.mannouncer.models.Streamer;
 import com.midenium.mannouncer.models.StreamerPlatform;
+import com.midenium.mannouncer.placeholders.PlaceholderContext;
+import com.midenium.mannouncer.placeholders.Template;
+import com.midenium.mannouncer.streamers.AdaptivePollingPolicy;
+import com.midenium.mannouncer.streamers.CallbackListener;
+import com.midenium.mannouncer.streamers.HttpStatusProvider;
+import com.midenium.mannouncer.streamers.KickStatusProvider;
+import com.midenium.mannouncer.streamers.LiveHistory;
+import com.midenium.mannouncer.streamers.SimulationStatusProvider;
+import com.midenium.mannouncer.streamers.StreamStatus;
+import com.midenium.mannouncer.streamers.StreamerPoller;
+import com.midenium.mannouncer.streamers.StreamerStatusProvider;
+import com.midenium.mannouncer.streamers.TwitchStatusProvider;
+import com.midenium.mannouncer.streamers.YouTubeStatusProvider;
+import com.velocitypowered.api.proxy.Player;
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.bossbar.BossBar;
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.title.Title;
 
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Manages streamers and their live status
+ * Manages streamers and their live status.
+ * <p>
+ * With several proxies, each streamer is checked by the proxy that owns it. The owner sends the
+ * webhook and publishes the status, the other proxies pick it up and tell their own players.
+ * Events pushed to a proxy that doesn't own the streamer are handed to the owner the same way.
  */
 public class StreamerManager {
 
+    /**
+     * An event this proxy received for a streamer it doesn't own, held until the owner has acted on it
+     *
+     * @param at Wall-clock millis it arrived
+     * @param state {@code "live"}, {@code "offline"} or {@code "check"}
+     */
+    private record Push(long at, String state) {
+    }
+
+    /**
+     * @param streamer The object the live state was set on
+     * @param wentLive Whether it was offline before
+     */
+    private record Transition(Streamer streamer, boolean wentLive) {
+    }
+
+    /**
+     * A provider this manager registered and the settings it was built from
+     */
+    private record BuiltInProvider(StreamerStatusProvider provider, PluginSettings.StatusProvider config,
+                                   boolean simulation) {
+    }
+
     private final MAnnouncer plugin;
     private final Map<String, Streamer> streamers = new ConcurrentHashMap<>();
-    private boolean isRunning = false;
+    // Live history by platform and streamer id, kept across reloads and restarts
+    private final Map<String, LiveHistory> histories = new ConcurrentHashMap<>();
+    private final Path historyFile;
+    private final HttpClient httpClient;
+    private final StreamerPoller poller;
+    // Providers this manager registered, the ones other plugins registered are left alone on reload
+    private final Map<StreamerPlatform, BuiltInProvider> builtInProviders = new ConcurrentHashMap<>();
+    // 304 answers counted by built-in providers that were replaced since, by provider name
+    private final Map<String, Long> retiredNotModified = new ConcurrentHashMap<>();
+    private CallbackListener callbackListener;
+    private volatile AdaptivePollingPolicy pollingPolicy;
+    private final Runnable clusterListener = this::applyPeerStatuses;
+    // Pushed events waiting for the owner by cluster key
+    private final Map<String, Push> pendingPushes = new ConcurrentHashMap<>();
+    // Arrival time of the last peer push acted on by cluster key, so each is acted on once
+    private final Map<String, Long> handledPushes = new ConcurrentHashMap<>();
+    private final Map<StreamerPlatform, Counter> announcements = new EnumMap<>(StreamerPlatform.class);
+    private final Histogram announcementRecipients;
     
     public StreamerManager(MAnnouncer plugin) {
         this.plugin = plugin;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.historyFile = plugin.getClusterCoordinator()
+                .localFile(plugin.getDataDirectory().resolve("streamer-history.dat"));
+        
+        PluginMetrics metrics = plugin.getPluginMetrics();
+        metrics.gauge("mannouncer_streamers", "Configured streamers", streamers::size);
+        metrics.gauge("mannouncer_streamers_live", "Streamers currently live",
+                () -> streamers.values().stream().filter(Streamer::isLive).count());
+        metrics.gauge("mannouncer_streamer_poll_interval_seconds", "Average seconds between checks of a streamer",
+                () -> streamers.values().stream().mapToInt(Streamer::getPollInterval).average().orElse(0));
+        for (StreamerPlatform platform : StreamerPlatform.values()) {
+            announcements.put(platform, metrics.counter("mannouncer_streamer_announcements_total",
+                    "Go-live announcements by platform", "platform", platform.getId()));
+        }
+        this.announcementRecipients = metrics.histogram("mannouncer_streamer_announcement_recipients",
+                "Players reached by one go-live announcement", PluginMetrics.SIZE_BUCKETS);
+        
+        // One poller for the manager's lifetime, other plugins register providers with it
+        this.poller = new StreamerPoller(plugin, this::ownedStreamers, this::applyStatus);
+        
+        loadHistory();
         loadStreamers();
         startChecking();
+        plugin.getClusterCoordinator().addListener(clusterListener);
     }
     
     private void loadStreamers() {
-        streamers.clear();
+        // Built aside, checks and pushes keep finding the streamers while the config is read
+        Map<String, Streamer> loaded = new HashMap<>();
         
+        int defaultInterval = plugin.getConfigManager().getSettings().streamers().checkInterval();
         Map<String, Object> streamersConfig = plugin.getConfigManager().getStreamersConfig();
         Object streamersObj = streamersConfig.get("streamers");
         
@@ -42,110 +146,347 @@ public class StreamerManager {
                 
                 if (entry.getValue() instanceof Map) {
                     Map<String, Object> streamerConfig = (Map<String, Object>) entry.getValue();
-                    Streamer streamer = new Streamer(id, streamerConfig);
-                    streamers.put(id, streamer);
+                    loaded.put(id, new Streamer(id, streamerConfig, defaultInterval));
                 }
             }
         }
         
+        for (Streamer streamer : loaded.values()) {
+            Streamer old = streamers.get(streamer.getId());
+            if (old == null) {
+                streamers.put(streamer.getId(), streamer);
+                continue;
+            }
+            // Keep the live state across reloads so live streamers aren't announced again. Swapped
+            // under the old object's lock, a status applied meanwhile lands before the copy or on the new object
+            synchronized (old) {
+                streamer.setLive(old.isLive());
+                streamer.setStreamUrl(old.getStreamUrl());
+                streamer.setLastCheck(old.getLastCheck());
+                streamer.setLastAnnounced(old.getLastAnnounced());
+                streamer.setPollInterval(old.getPollInterval());
+                streamers.put(streamer.getId(), streamer);
+            }
+        }
+        streamers.keySet().retainAll(loaded.keySet());
+        
         plugin.getLogger().info("Loaded " + streamers.size() + " streamers.");
     }
     
     private void startChecking() {
-        if (isRunning) {
+        PluginSettings.Streamers settings = plugin.getConfigManager().getSettings().streamers();
+        
+        pollingPolicy = new AdaptivePollingPolicy(settings.adaptivePolling());
+        registerProvider(StreamerPlatform.TWITCH, settings.twitch(), settings);
+        registerProvider(StreamerPlatform.KICK, settings.kick(), settings);
+        registerProvider(StreamerPlatform.YOUTUBE, settings.youtube(), settings);
+        poller.start();
+        
+        if (settings.callback().enabled()) {
+            callbackListener = new CallbackListener(plugin, settings.callback(), streamers::values,
+                    this::applyPushedStatus, this::requestCheck);
+            try {
+                callbackListener.start();
+            } catch (IOException e) {
+                plugin.getLogger().error("Failed to start the stream callback listener: " + e.getMessage());
+                callbackListener = null;
+            }
+        }
+    }
+    
+    private void registerProvider(StreamerPlatform platform, PluginSettings.StatusProvider config,
+                                  PluginSettings.Streamers settings) {
+        StreamerStatusProvider current = poller.getProvider(platform);
+        BuiltInProvider builtIn = builtInProviders.get(platform);
+        if (current != null && (builtIn == null || current != builtIn.provider())) {
+            // Another plugin took over this platform, it stays in charge
             return;
         }
+        if (builtIn != null && current != null && builtIn.config().equals(config)
+                && builtIn.simulation() == settings.simulationEnabled()) {
+            // Unchanged, keep the provider with its access token and ETags
+            return;
+        }
+        
+        Duration timeout = Duration.ofSeconds(Math.max(1, config.timeout()));
+        StreamerStatusProvider provider = null;
+        
+        if (config.enabled()) {
+            provider = switch (platform) {
+                case TWITCH -> config.clientId().isEmpty() || config.clientSecret().isEmpty() ? null
+                        : new TwitchStatusProvider(httpClient, config.apiUrl(), config.authUrl(),
+                                config.clientId(), config.clientSecret(), timeout);
+                case KICK -> new KickStatusProvider(httpClient, config.apiUrl(), timeout);
+                case YOUTUBE -> config.apiKey().isEmpty() ? null
+                        : new YouTubeStatusProvider(httpClient, config.apiUrl(), config.apiKey(), timeout);
+            };
+            if (provider == null) {
+                plugin.getLogger().warn("The " + platform.getId() + " status provider is enabled but its credentials are missing");
+            }
+        }
+        
+        if (provider == null && settings.simulationEnabled()) {
+            provider = new SimulationStatusProvider(
+                    () -> plugin.getConfigManager().getSettings().streamers().changeProbability());
+        }
+        
+        if (builtIn != null && builtIn.provider() instanceof HttpStatusProvider retired) {
+            // Its successor continues the count
+            retiredNotModified.merge(retired.getName(), retired.getNotModifiedCount(), Long::sum);
+        }
+        
+        if (provider == null) {
+            // Disabled since the last reload
+            if (builtInProviders.remove(platform) != null) {
+                poller.unregisterProvider(platform);
+            }
+        } else {
+            builtInProviders.put(platform, new BuiltInProvider(provider, config, settings.simulationEnabled()));
+            poller.registerProvider(platform, provider, config.maxConcurrent(), timeout);
+            if (provider instanceof HttpStatusProvider httpProvider) {
+                String name = provider.getName();
+                plugin.getPluginMetrics().counter("mannouncer_streamer_not_modified_total",
+                        "Status requests answered with 304 Not Modified",
+                        () -> retiredNotModified.getOrDefault(name, 0L) + httpProvider.getNotModifiedCount(),
+                        "provider", name);
+            }
+            plugin.getLogger().info("Checking " + platform.getId() + " streamers with the " + provider.getName() + " provider");
+        }
+    }
+    
+    /**
+     * @return The status poller, other plugins can register their own providers with it and
+     *         those registrations are kept across reloads
+     */
+    public StreamerPoller getPoller() {
+        return poller;
+    }
+    
+    /**
+     * @return The streamers this proxy checks, the other proxies of the network check the rest
+     */
+    private Collection<Streamer> ownedStreamers() {
+        ClusterCoordinator cluster = plugin.getClusterCoordinator();
+        List<Streamer> owned = new ArrayList<>(streamers.size());
+        for (Streamer streamer : streamers.values()) {
+            if (cluster.owns(clusterKey(streamer))) {
+                owned.add(streamer);
+            }
+        }
+        return owned;
+    }
+    
+    private void applyStatus(Streamer checked, StreamStatus status) {
+        // Newly live, prefer the link reported by the platform
+        Transition transition = setLive(checked, status.live(), status.streamUrl().isEmpty()
+                ? checked.getPlatform().getStreamUrl(checked.getId())
+                : status.streamUrl());
+        Streamer streamer = transition.streamer();
         
-        isRunning = true;
+        long now = System.currentTimeMillis();
+        LiveHistory history = histories.computeIfAbsent(historyKey(streamer), key -> new LiveHistory(now));
+        history.observe(status.live(), now);
+        streamer.setPollInterval(pollingPolicy.intervalFor(streamer.getInterval(), status.live(), history, now));
         
-        // Get check interval from config
-        Map<String, Object> config = plugin.getConfigManager().getMainConfig();
-        Map<String, Object> streamersConfig = (Map<String, Object>) config.getOrDefault("streamers", Map.of());
-        int checkInterval = getInt(streamersConfig, "check-interval", 60);
+        if (transition.wentLive()) {
+            announceStreamer(streamer);
+        }
         
-        plugin.getLogger().info("Starting streamer status checking (interval: " + checkInterval + "s)");
+        // The other proxies learn about it with the next heartbeat, an empty URL means offline
+        ClusterCoordinator cluster = plugin.getClusterCoordinator();
+        String key = clusterKey(streamer);
+        if (cluster.owns(key)) {
+            cluster.publish(key, status.live() ? streamer.getStreamUrl() : "");
+        }
+    }
+    
+    /**
+     * A status pushed to this proxy. The owner applies it like a polled one, any other proxy tells
+     * its own players right away and leaves the webhook and the published status to the owner.
+     */
+    private void applyPushedStatus(Streamer streamer, StreamStatus status) {
+        ClusterCoordinator cluster = plugin.getClusterCoordinator();
+        String key = clusterKey(streamer);
+        if (cluster.owns(key)) {
+            applyStatus(streamer, status);
+            return;
+        }
         
-        // Start periodic checks
-        plugin.getServer().getScheduler().buildTask(plugin, this::checkStreamers)
-                .repeat(checkInterval, TimeUnit.SECONDS)
-                .schedule();
+        String streamUrl = status.streamUrl().isEmpty()
+                ? streamer.getPlatform().getStreamUrl(streamer.getId())
+                : status.streamUrl();
+        handOver(key, status.live() ? "live" : "offline", status.live() ? streamUrl : "");
+        setPeerStatus(streamer, status.live(), streamUrl);
+    }
+    
+    /**
+     * Check a streamer soon rather than waiting for its interval, on the proxy that owns it
+     */
+    private void requestCheck(Streamer streamer) {
+        String key = clusterKey(streamer);
+        if (plugin.getClusterCoordinator().owns(key)) {
+            streamer.setLastCheck(0L);
+        } else {
+            handOver(key, "check", "");
+        }
+    }
+    
+    private void handOver(String key, String state, String streamUrl) {
+        long now = System.currentTimeMillis();
+        pendingPushes.put(key, new Push(now, state));
+        plugin.getClusterCoordinator().publish(pushKey(key), now + " " + state + " " + streamUrl);
     }
     
-    private void checkStreamers() {
-        // Get simulation settings from config
-        Map<String, Object> config = plugin.getConfigManager().getMainConfig();
-        Map<String, Object> streamersConfig = (Map<String, Object>) config.getOrDefault("streamers", Map.of());
+    /**
+     * Take over the statuses published by the proxies that check the other streamers, and act on
+     * the events the other proxies received for the streamers this one checks
+     */
+    private void applyPeerStatuses() {
+        ClusterCoordinator cluster = plugin.getClusterCoordinator();
+        long now = System.currentTimeMillis();
+        long holdMillis = pushHoldMillis();
         
-        // Simulation settings
-        Map<String, Object> simulationConfig = (Map<String, Object>) streamersConfig.getOrDefault("simulation", Map.of());
-        boolean simulationEnabled = (boolean) simulationConfig.getOrDefault("enabled", true);
-        int changeProbability = getInt(simulationConfig, "change-probability", 10);
+        // The owner has acted on these by now, or it's gone and its successor polls anyway
+        pendingPushes.entrySet().removeIf(entry -> {
+            if (now - entry.getValue().at() <= holdMillis) {
+                return false;
+            }
+            cluster.unpublish(pushKey(entry.getKey()));
+            return true;
+        });
         
-        // Check each streamer
         for (Streamer streamer : streamers.values()) {
-            streamer.setLastCheck(System.currentTimeMillis());
+            String key = clusterKey(streamer);
+            if (cluster.owns(key)) {
+                // Took over the streamer, what this proxy pushed is its own business now
+                if (pendingPushes.remove(key) != null) {
+                    cluster.unpublish(pushKey(key));
+                }
+                applyPeerPush(streamer, key, now, holdMillis);
+                continue;
+            }
+            // Checked elsewhere now, what this proxy published would only go stale
+            cluster.unpublish(key);
             
-            if (simulationEnabled) {
-                // Simulate status change based on configured probability
-                long now = System.currentTimeMillis();
-                boolean wasLive = streamer.isLive();
-                
-                // Platform-based check - will work for all platforms
-                boolean isLive = false;
-                String streamerId = streamer.getId();
-                StreamerPlatform platform = streamer.getPlatform();
-                
-                // Apply platform-specific check
-                switch(platform) {
-                    case TWITCH:
-                        // Twitch status simulation
-                        isLive = (streamerId.hashCode() + now) % changeProbability == 0;
-                        break;
-                    case KICK:
-                        // Kick status simulation (different algorithm)
-                        isLive = (streamerId.hashCode() + now / 1000) % changeProbability == 1;
-                        break;
-                    case YOUTUBE:
-                        // YouTube status simulation (another algorithm)
-                        isLive = (streamerId.hashCode() + now / 5000) % changeProbability == 2;
-                        break;
-                    default:
-                        // General status simulation
-                        isLive = (streamerId.hashCode() + now) % changeProbability == 0;
+            String streamUrl = cluster.getPeerValue(key);
+            if (streamUrl == null) {
+                // The owner hasn't reported yet, e.g. it just took over, keep the last known status
+                continue;
+            }
+            
+            boolean live = !streamUrl.isEmpty();
+            Push push = pendingPushes.get(key);
+            if (push != null && !push.state().equals("check")) {
+                if (push.state().equals("live") != live) {
+                    // The owner hasn't acted on the newer pushed status yet
+                    continue;
+                }
+                pendingPushes.remove(key);
+                cluster.unpublish(pushKey(key));
+            }
+            setPeerStatus(streamer, live, streamUrl);
+        }
+    }
+    
+    /**
+     * Act on an event another proxy received for a streamer this one checks
+     */
+    private void applyPeerPush(Streamer streamer, String key, long now, long holdMillis) {
+        String value = plugin.getClusterCoordinator().getPeerValue(pushKey(key));
+        if (value == null) {
+            return;
+        }
+        
+        String[] parts = value.split(" ", 3);
+        long at;
+        try {
+            at = Long.parseLong(parts[0]);
+        } catch (NumberFormatException e) {
+            return;
+        }
+        Long handled = handledPushes.get(key);
+        if (parts.length < 2 || (handled != null && at <= handled) || now - at > holdMillis) {
+            return;
+        }
+        handledPushes.put(key, at);
+        
+        switch (parts[1]) {
+            case "live" -> applyStatus(streamer, StreamStatus.live(parts.length > 2 ? parts[2] : "", ""));
+            case "offline" -> applyStatus(streamer, StreamStatus.offline());
+            case "check" -> streamer.setLastCheck(0L);
+            default -> {
+                // Written by a newer version, ignore
+            }
+        }
+    }
+    
+    private void setPeerStatus(Streamer streamer, boolean live, String streamUrl) {
+        Transition transition = setLive(streamer, live, streamUrl);
+        if (transition.wentLive()) {
+            announceStreamer(transition.streamer());
+        }
+    }
+    
+    /**
+     * Set the live state on the streamer's current object. Polled and pushed statuses can arrive at
+     * the same time, and a reload may have replaced the object a check started with.
+     *
+     * @param streamUrl Link set if the streamer just went live
+     */
+    private Transition setLive(Streamer streamer, boolean live, String streamUrl) {
+        Streamer target = streamer;
+        while (true) {
+            synchronized (target) {
+                Streamer current = streamers.get(target.getId());
+                if (current != null && current != target) {
+                    target = current;
+                    continue;
                 }
                 
-                streamer.setLive(isLive);
-                
-                if (isLive && !wasLive) {
-                    // Newly live - use platform-specific URL format
-                    streamer.setStreamUrl(streamer.getPlatform().getStreamUrl(streamerId));
-                    announceStreamer(streamer);
+                boolean wasLive = target.isLive();
+                target.setLive(live);
+                if (live && !wasLive) {
+                    target.setStreamUrl(streamUrl);
                 }
+                return new Transition(target, live && !wasLive);
             }
         }
     }
     
-    private void announceStreamer(Streamer streamer) {
+    /**
+     * @return How long a pushed event waits for the owner, two lease timeouts cover a heartbeat
+     *         on each side and an owner that died meanwhile
+     */
+    private long pushHoldMillis() {
+        return 2 * TimeUnit.SECONDS.toMillis(plugin.getConfigManager().getSettings().cluster().leaseTimeout());
+    }
+    
+    /**
+     * Announce that a streamer went live, subject to the announcement cooldown
+     * @param streamer The streamer
+     */
+    public void announceStreamer(Streamer streamer) {
         // Check if enough time has passed since last announcement
         long now = System.currentTimeMillis();
-        Map<String, Object> config = plugin.getConfigManager().getMainConfig();
-        Map<String, Object> streamersConfig = (Map<String, Object>) config.getOrDefault("streamers", Map.of());
-        long globalCooldown = getLong(streamersConfig, "cooldown", 1800) * 1000;
+        ConfigSnapshot snapshot = plugin.getConfigManager().getSnapshot();
+        PluginSettings.Streamers settings = snapshot.settings().streamers();
+        long globalCooldown = settings.cooldown() * 1000;
         
         if (now - streamer.getLastAnnounced() < globalCooldown) {
             return;
         }
         
         streamer.setLastAnnounced(now);
+        announcements.get(streamer.getPlatform()).increment();
         
-        // Send Discord webhook if configured
+        // Send Discord webhook if configured, only from the proxy that checks the streamer
         String webhookUrl = streamer.getWebhookUrl();
         if (webhookUrl.isEmpty()) {
             // Try global webhook URL
-            webhookUrl = getString(streamersConfig, "default-webhook-url", "");
+            webhookUrl = settings.defaultWebhookUrl();
         }
         
-        if (!webhookUrl.isEmpty()) {
+        if (!webhookUrl.isEmpty() && plugin.getClusterCoordinator().owns(clusterKey(streamer))) {
             WebhookManager.sendStreamerLiveWebhook(
                     webhookUrl, 
                     streamer.getId(), 
@@ -155,158 +496,75 @@ public class StreamerManager {
         }
         
         // Send in-game announcements
-        Map<String, Object> messagesConfig = plugin.getConfigManager().getMessagesConfig();
-        Map<String, String> placeholders = Map.of(
-                "streamer", streamer.getId(),
-                "platform", streamer.getPlatform().getId(),
-                "url", streamer.getStreamUrl()
-        );
-        
-        // Announce to each server configured for this streamer
-        for (String serverId : streamer.getServers()) {
-            // Skip if server doesn't exist
-            if (serverId.equals("all")) {
-                // Announce to all servers
-                plugin.getServer().getAllServers().forEach(server -> {
-                    announceToServer(streamer, server.getServerInfo().getName(), messagesConfig, placeholders);
-                });
-            } else {
-                // Announce to specific server
-                if (plugin.getServer().getServer(serverId).isPresent()) {
-                    announceToServer(streamer, serverId, messagesConfig, placeholders);
-                }
-            }
-        }
-    }
-    
-    private void announceToServer(Streamer streamer, String serverId, Map<String, Object> messagesConfig, Map<String, String> placeholders) {
-        // Get announcement types
         List<String> types = streamer.getAnnouncementTypes();
+        Set<String> serverIds = resolveServers(streamer);
+        List<Player> players = new ArrayList<>();
+        for (String serverId : serverIds) {
+            plugin.getServer().getServer(serverId).ifPresent(server -> players.addAll(server.getPlayersConnected()));
+        }
+        if (players.isEmpty() || types.isEmpty()) {
+            return;
+        }
+        
+        // Render every message once and deliver it to all target servers as one audience
+        Map<String, Object> streamersMessages = (Map<String, Object>) snapshot.messagesConfig()
+                .getOrDefault("streamers", Map.of());
+        PlaceholderContext placeholders = PlaceholderContext.forStreamer(streamer);
+        Audience audience = Audience.audience(players);
         
         if (types.contains("chat")) {
-            sendChatAnnouncement(streamer, serverId, messagesConfig, placeholders);
+            audience.sendMessage(render(streamer, "chat", streamersMessages, "live-chat",
+                    "<red>🔴 LIVE</red> <white>» {streamer} is now streaming on {platform}!</white>", placeholders));
         }
         
         if (types.contains("title")) {
-            sendTitleAnnouncement(streamer, serverId, messagesConfig, placeholders);
+            Component title = render(streamer, "title", streamersMessages, "live-title",
+                    "<red>🔴 LIVE</red>", placeholders);
+            Component subtitle = render(streamer, "subtitle", streamersMessages, "live-subtitle",
+                    "<white>{streamer} is now streaming!</white>", placeholders);
+            audience.showTitle(Title.title(title, subtitle, Title.Times.times(
+                    Duration.ofMillis(500),
+                    Duration.ofMillis(3000),
+                    Duration.ofMillis(500)
+            )));
         }
         
         if (types.contains("bossbar")) {
-            sendBossbarAnnouncement(streamer, serverId, messagesConfig, placeholders);
-        }
-    }
-    
-    private void sendChatAnnouncement(Streamer streamer, String serverId, Map<String, Object> messagesConfig, Map<String, String> placeholders) {
-        // Get message template
-        String message;
-        if (streamer.hasCustomMessage("chat")) {
-            message = streamer.getCustomMessage("chat");
-        } else {
-            Map<String, Object> streamersMessages = (Map<String, Object>) messagesConfig.getOrDefault("streamers", Map.of());
-            message = getString(streamersMessages, "live-chat", "<red>🔴 LIVE</red> <white>» {streamer} is now streaming on {platform}!</white>");
-        }
-        
-        // Apply placeholders
-        for (Map.Entry<String, String> entry : placeholders.entrySet()) {
-            message = message.replace("{" + entry.getKey() + "}", entry.getValue());
+            BossBar bossBar = BossBar.bossBar(
+                    render(streamer, "bossbar", streamersMessages, "live-chat",
+                            "<red>🔴 LIVE</red> <white>» {streamer} is now streaming on {platform}!</white>", placeholders),
+                    1.0f,
+                    BossBar.Color.RED,
+                    BossBar.Overlay.PROGRESS
+            );
+            plugin.getBossBarManager().show("streamer:" + streamer.getId(), bossBar, serverIds, players, 15);
         }
         
-        // Parse with MiniMessage
-        Component component = MiniMessage.miniMessage().deserialize(message);
-        
-        // Send to all players on this server
-        plugin.getServer().getServer(serverId).ifPresent(server -> {
-            server.sendMessage(component);
-        });
+        announcementRecipients.observe(players.size());
     }
     
-    private void sendTitleAnnouncement(Streamer streamer, String serverId, Map<String, Object> messagesConfig, Map<String, String> placeholders) {
-        // Get message templates
-        String titleMsg;
-        String subtitleMsg;
-        
-        if (streamer.hasCustomMessage("title")) {
-            titleMsg = streamer.getCustomMessage("title");
-        } else {
-            Map<String, Object> streamersMessages = (Map<String, Object>) messagesConfig.getOrDefault("streamers", Map.of());
-            titleMsg = getString(streamersMessages, "live-title", "<red>🔴 LIVE</red>");
+    /**
+     * @return Names of the servers a streamer is announced on, "all" expanded to every backend
+     */
+    private Set<String> resolveServers(Streamer streamer) {
+        Set<String> serverIds = new LinkedHashSet<>();
+        for (String serverId : streamer.getServers()) {
+            if (serverId.equals("all")) {
+                plugin.getServer().getAllServers().forEach(server -> serverIds.add(server.getServerInfo().getName()));
+            } else if (plugin.getServer().getServer(serverId).isPresent()) {
+                serverIds.add(serverId);
+            }
         }
-        
-        if (streamer.hasCustomMessage("subtitle")) {
-            subtitleMsg = streamer.getCustomMessage("subtitle");
-        } else {
-            Map<String, Object> streamersMessages = (Map<String, Object>) messagesConfig.getOrDefault("streamers", Map.of());
-            subtitleMsg = getString(streamersMessages, "live-subtitle", "<white>{streamer} is now streaming!</white>");
-        }
-        
-        // Apply placeholders
-        for (Map.Entry<String, String> entry : placeholders.entrySet()) {
-            titleMsg = titleMsg.replace("{" + entry.getKey() + "}", entry.getValue());
-            subtitleMsg = subtitleMsg.replace("{" + entry.getKey() + "}", entry.getValue());
-        }
-        
-        // Parse with MiniMessage
-        Component title = MiniMessage.miniMessage().deserialize(titleMsg);
-        Component subtitle = MiniMessage.miniMessage().deserialize(subtitleMsg);
-        
-        // Create Velocity title object
-        net.kyori.adventure.title.Title titleObj = net.kyori.adventure.title.Title.title(
-                title,
-                subtitle,
-                net.kyori.adventure.title.Title.Times.times(
-                        java.time.Duration.ofMillis(500),
-                        java.time.Duration.ofMillis(3000),
-                        java.time.Duration.ofMillis(500)
-                )
-        );
-        
-        // Send to all players on this server
-        plugin.getServer().getServer(serverId).ifPresent(server -> {
-            server.getPlayersConnected().forEach(player -> {
-                player.showTitle(titleObj);
-            });
-        });
+        return serverIds;
     }
     
-    private void sendBossbarAnnouncement(Streamer streamer, String serverId, Map<String, Object> messagesConfig, Map<String, String> placeholders) {
-        // Get message template
-        String message;
-        if (streamer.hasCustomMessage("bossbar")) {
-            message = streamer.getCustomMessage("bossbar");
-        } else {
-            Map<String, Object> streamersMessages = (Map<String, Object>) messagesConfig.getOrDefault("streamers", Map.of());
-            message = getString(streamersMessages, "live-chat", "<red>🔴 LIVE</red> <white>» {streamer} is now streaming on {platform}!</white>");
-        }
-        
-        // Apply placeholders
-        for (Map.Entry<String, String> entry : placeholders.entrySet()) {
-            message = message.replace("{" + entry.getKey() + "}", entry.getValue());
-        }
-        
-        // Parse with MiniMessage
-        Component component = MiniMessage.miniMessage().deserialize(message);
-        
-        // Create boss bar
-        net.kyori.adventure.bossbar.BossBar bossBar = net.kyori.adventure.bossbar.BossBar.bossBar(
-                component,
-                1.0f,
-                net.kyori.adventure.bossbar.BossBar.Color.RED,
-                net.kyori.adventure.bossbar.BossBar.Overlay.PROGRESS
-        );
-        
-        // Show to all players on this server
-        plugin.getServer().getServer(serverId).ifPresent(server -> {
-            server.getPlayersConnected().forEach(player -> {
-                player.showBossBar(bossBar);
-            });
-            
-            // Hide after 15 seconds
-            plugin.getServer().getScheduler().buildTask(plugin, () -> {
-                server.getPlayersConnected().forEach(player -> {
-                    player.hideBossBar(bossBar);
-                });
-            }).delay(15, TimeUnit.SECONDS).schedule();
-        });
+    private Component render(Streamer streamer, String type, Map<String, Object> streamersMessages,
+                             String messageKey, String defaultMessage, PlaceholderContext placeholders) {
+        String message = streamer.hasCustomMessage(type)
+                ? streamer.getCustomMessage(type)
+                : getString(streamersMessages, messageKey, defaultMessage);
+        Map<String, String> values = plugin.getPlaceholderRegistry().resolveAll(Template.compile(message), placeholders);
+        return plugin.getComponentCache().render(message, values);
     }
     
     // Utility methods
@@ -315,42 +573,82 @@ public class StreamerManager {
         return value != null ? value.toString() : defaultValue;
     }
     
-    private long getLong(Map<String, Object> map, String key, long defaultValue) {
-        Object value = map.get(key);
-        if (value instanceof Long) {
-            return (Long) value;
-        } else if (value instanceof Integer) {
-            return ((Integer) value).longValue();
-        } else if (value instanceof String) {
-            try {
-                return Long.parseLong((String) value);
-            } catch (NumberFormatException e) {
-                return defaultValue;
+    private static String historyKey(Streamer streamer) {
+        return streamer.getPlatform().getId() + ":" + streamer.getId();
+    }
+    
+    private static String clusterKey(Streamer streamer) {
+        return "streamer:" + historyKey(streamer);
+    }
+    
+    private static String pushKey(String clusterKey) {
+        return "push:" + clusterKey;
+    }
+    
+    private void loadHistory() {
+        if (!Files.exists(historyFile)) {
+            return;
+        }
+        
+        try {
+            for (String line : Files.readAllLines(historyFile, StandardCharsets.UTF_8)) {
+                int separator = line.indexOf('\t');
+                if (separator <= 0) {
+                    continue;
+                }
+                try {
+                    histories.put(line.substring(0, separator), LiveHistory.decode(line.substring(separator + 1)));
+                } catch (IllegalArgumentException e) {
+                    plugin.getLogger().warn("Skipping malformed streamer history for " + line.substring(0, separator)
+                            + ": " + e.getMessage());
+                }
             }
+        } catch (IOException e) {
+            plugin.getLogger().error("Failed to load streamer history: " + historyFile, e);
         }
-        return defaultValue;
     }
     
-    private int getInt(Map<String, Object> map, String key, int defaultValue) {
-        Object value = map.get(key);
-        if (value instanceof Integer) {
-            return (Integer) value;
-        } else if (value instanceof String) {
-            try {
-                return Integer.parseInt((String) value);
-            } catch (NumberFormatException e) {
-                return defaultValue;
+    private synchronized void saveHistory() {
+        List<String> lines = new ArrayList<>();
+        for (Streamer streamer : streamers.values()) {
+            LiveHistory history = histories.get(historyKey(streamer));
+            if (history != null) {
+                lines.add(historyKey(streamer) + "\t" + history.encode());
             }
         }
-        return defaultValue;
+        
+        try {
+            Path temp = historyFile.resolveSibling(historyFile.getFileName() + ".tmp");
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            Files.move(temp, historyFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            plugin.getLogger().error("Failed to save streamer history: " + historyFile, e);
+        }
     }
     
     public void reload() {
+        saveHistory();
         loadStreamers();
+        
+        // Provider settings may have changed, the poller keeps running with providers of other plugins
+        stopCallbackListener();
+        startChecking();
+    }
+    
+    private void stopCallbackListener() {
+        if (callbackListener != null) {
+            callbackListener.stop();
+            callbackListener = null;
+        }
     }
     
     public void shutdown() {
-        isRunning = false;
+        plugin.getClusterCoordinator().removeListener(clusterListener);
+        pendingPushes.keySet().forEach(key -> plugin.getClusterCoordinator().unpublish(pushKey(key)));
+        pendingPushes.clear();
+        poller.stop();
+        stopCallbackListener();
+        saveHistory();
     }
     
     public Map<String, Streamer> getStreamers() {
@@ -1,19 +1,86 @@
 package com.midenium.mannouncer.managers;
 
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import com.midenium.mannouncer.config.PluginSettings;
+import com.midenium.mannouncer.metrics.Histogram;
+import com.midenium.mannouncer.metrics.PluginMetrics;
+import com.midenium.mannouncer.models.ServerHealth;
+import com.midenium.mannouncer.webhook.DeliveryResult;
+import com.midenium.mannouncer.webhook.DiscordMarkdown;
+import com.midenium.mannouncer.webhook.OverflowPolicy;
+import com.midenium.mannouncer.webhook.WebhookCoalescer;
+import com.midenium.mannouncer.webhook.WebhookDispatcher;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class WebhookManager {
 
-    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
-    private static final Pattern GRADIENT_PATTERN = Pattern.compile("<gradient:(#[0-9A-Fa-f]{6}):(#[0-9A-Fa-f]{6})(.+?)\\s*/gradient>");
+    private static volatile WebhookDispatcher dispatcher = createDispatcher(
+            new PluginSettings.Delivery(256, 4, "drop-oldest", 5, 10, 250), result -> {});
+    private static volatile WebhookCoalescer coalescer = new WebhookCoalescer(dispatcher, 250, 256, OverflowPolicy.DROP_OLDEST);
+    
+    /**
+     * Rebuild the delivery engine from the current settings
+     * @param delivery Delivery settings
+     * @param logger Logger used to report failed deliveries
+     * @param metrics Metrics registry for delivery outcomes and latency
+     */
+    public static synchronized void configure(PluginSettings.Delivery delivery, Logger logger, PluginMetrics metrics) {
+        WebhookCoalescer previousCoalescer = coalescer;
+        WebhookDispatcher previousDispatcher = dispatcher;
+        
+        Histogram latency = metrics.histogram("mannouncer_webhook_latency_seconds",
+                "Time from submitting a webhook request until Discord answered", PluginMetrics.LATENCY_BUCKETS);
+        
+        dispatcher = createDispatcher(delivery, result -> {
+            metrics.counter("mannouncer_webhook_deliveries_total", "Webhook requests by outcome",
+                    "status", result.status().name().toLowerCase()).increment();
+            if (result.status() != DeliveryResult.Status.DROPPED) {
+                latency.observeNanos(result.latencyNanos());
+            }
+            logResult(logger, result);
+        });
+        coalescer = new WebhookCoalescer(dispatcher, delivery.flushWindow(), delivery.queueCapacity(),
+                OverflowPolicy.fromString(delivery.overflowPolicy(), OverflowPolicy.DROP_OLDEST));
+        
+        // Coalescer first, its last batches still need an open dispatcher
+        previousCoalescer.shutdown();
+        previousDispatcher.shutdown();
+    }
+    
+    private static WebhookDispatcher createDispatcher(PluginSettings.Delivery delivery, Consumer<DeliveryResult> listener) {
+        return new WebhookDispatcher(
+                delivery.queueCapacity(),
+                delivery.maxInFlight(),
+                OverflowPolicy.fromString(delivery.overflowPolicy(), OverflowPolicy.DROP_OLDEST),
+                Duration.ofSeconds(delivery.connectTimeout()),
+                Duration.ofSeconds(delivery.requestTimeout()),
+                listener
+        );
+    }
+    
+    private static void logResult(Logger logger, DeliveryResult result) {
+        if (result.isSuccess()) {
+            return;
+        }
+        
+        // Never log the webhook token part of the URL
+        String target = redactUrl(result.url());
+        switch (result.status()) {
+            case RATE_LIMITED -> logger.warn("Webhook to " + target + " was rate limited by Discord");
+            case HTTP_ERROR -> logger.warn("Webhook to " + target + " failed with HTTP " + result.statusCode());
+            case DROPPED -> logger.warn("Webhook to " + target + " dropped, the delivery queue is full");
+            default -> logger.warn("Webhook to " + target + " failed: " +
+                    (result.error() != null ? result.error().getMessage() : "unknown error"));
+        }
+    }
+    
+    private static String redactUrl(String url) {
+        int lastSlash = url.lastIndexOf('/');
+        return lastSlash > 0 ? url.substring(0, lastSlash) + "/***" : "***";
+    }
     
     /**
      * Sends a message to a Discord webhook asynchronously
@@ -21,52 +88,33 @@ public class WebhookManager {
      * @param message The message content
      * @param type The type of announcement (for logging)
      */
-    public static void sendWebhookMessage(String webhookUrl, String message, String type) {
-        if (webhookUrl == null || webhookUrl.isEmpty()) return;
-        
-        EXECUTOR.submit(() -> {
-            try {
-                // Önce mesajdan tüm MiniMessage formatlamalarını temizle
-                String cleanMessage = stripMiniMessageFormatting(message);
-                
-                // Split message for embed if it contains a line break
-                String title = "";
-                String description = cleanMessage;
-                int newlineIndex = cleanMessage.indexOf('\n');
-                if (newlineIndex > 0) {
-                    title = cleanMessage.substring(0, newlineIndex).trim();
-                    description = cleanMessage.substring(newlineIndex + 1).trim();
-                }
-                
-                // Build the JSON payload
-                String json = String.format(
-                    "{\"embeds\":[{" +
-                    "\"title\":\"%s\"," +
-                    "\"description\":\"%s\"," +
-                    "\"color\":%d," +
-                    "\"footer\":{\"text\":\"Powered by mAnnouncer\"}" +
-                    "}]}",
-                    escapeJson(title), escapeJson(description), 3447003
-                );
-                
-                // Send POST request
-                URL url = new URL(webhookUrl);
-                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-                connection.setRequestMethod("POST");
-                connection.setRequestProperty("Content-Type", "application/json");
-                connection.setDoOutput(true);
-                
-                try (OutputStream os = connection.getOutputStream()) {
-                    byte[] input = json.getBytes(StandardCharsets.UTF_8);
-                    os.write(input, 0, input.length);
-                }
-                
-                connection.getResponseCode();
-                connection.disconnect();
-            } catch (Exception e) {
-                // Silent fail
-            }
-        });
+    public static CompletableFuture<DeliveryResult> sendWebhookMessage(String webhookUrl, String message, String type) {
+        if (webhookUrl == null || webhookUrl.isEmpty()) return CompletableFuture.completedFuture(null);
+        
+        // Discord embeds take markdown, keep what it can show and drop the rest
+        String cleanMessage = DiscordMarkdown.fromMiniMessage(message);
+        
+        // Split message for embed if it contains a line break
+        String title = "";
+        String description = cleanMessage;
+        int newlineIndex = cleanMessage.indexOf('\n');
+        if (newlineIndex > 0) {
+            title = cleanMessage.substring(0, newlineIndex).trim();
+            description = cleanMessage.substring(newlineIndex + 1).trim();
+        }
+        
+        // Build the embed, it is packed together with other pending embeds for this URL
+        String embed = String.format(
+            "{" +
+            "\"title\":\"%s\"," +
+            "\"description\":\"%s\"," +
+            "\"color\":%d," +
+            "\"footer\":{\"text\":\"Powered by mAnnouncer\"}" +
+            "}",
+            escapeJson(title), escapeJson(description), 3447003
+        );
+        
+        return coalescer.submit(webhookUrl, embed);
     }
     
     /**
@@ -76,122 +124,78 @@ public class WebhookManager {
      * @param platform The platform they are streaming on
      * @param streamUrl The URL of the stream
      */
-    public static void sendStreamerLiveWebhook(String webhookUrl, String streamerName, String platform, String streamUrl) {
-        if (webhookUrl == null || webhookUrl.isEmpty()) return;
-        
-        EXECUTOR.submit(() -> {
-            try {
-                // Tüm parametrelerden formatlamayı temizle
-                String cleanStreamerName = stripMiniMessageFormatting(streamerName);
-                String cleanPlatform = stripMiniMessageFormatting(platform);
-                String cleanStreamUrl = streamUrl; // URL'de formatlamaya gerek yok
-                
-                String json = String.format(
-                    "{\"embeds\":[{" +
-                    "\"title\":\"%s\"," +
-                    "\"description\":\"%s\"," +
-                    "\"url\":\"%s\"," +
-                    "\"color\":16711680" +
-                    "}]}",
-                    escapeJson("🔴 LIVE: " + cleanStreamerName),
-                    escapeJson(cleanStreamerName + " is streaming on " + cleanPlatform),
-                    escapeJson(cleanStreamUrl)
-                );
-                
-                URL url = new URL(webhookUrl);
-                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-                connection.setRequestMethod("POST");
-                connection.setRequestProperty("Content-Type", "application/json");
-                connection.setDoOutput(true);
-                
-                try (OutputStream os = connection.getOutputStream()) {
-                    byte[] input = json.getBytes(StandardCharsets.UTF_8);
-                    os.write(input, 0, input.length);
-                }
-                
-                connection.getResponseCode();
-                connection.disconnect();
-            } catch (Exception e) {
-                // Silent fail
-            }
-        });
+    public static CompletableFuture<DeliveryResult> sendStreamerLiveWebhook(String webhookUrl, String streamerName, String platform, String streamUrl) {
+        if (webhookUrl == null || webhookUrl.isEmpty()) return CompletableFuture.completedFuture(null);
+        
+        // Tüm parametrelerden formatlamayı temizle
+        String cleanStreamerName = stripMiniMessageFormatting(streamerName);
+        String cleanPlatform = stripMiniMessageFormatting(platform);
+        String cleanStreamUrl = streamUrl; // URL'de formatlamaya gerek yok
+        
+        String embed = String.format(
+            "{" +
+            "\"title\":\"%s\"," +
+            "\"description\":\"%s\"," +
+            "\"url\":\"%s\"," +
+            "\"color\":16711680" +
+            "}",
+            escapeJson("🔴 LIVE: " + cleanStreamerName),
+            escapeJson(cleanStreamerName + " is streaming on " + cleanPlatform),
+            escapeJson(cleanStreamUrl)
+        );
+        
+        return coalescer.submit(webhookUrl, embed);
     }
     
     /**
      * Sends a server status webhook message
      * @param webhookUrl The Discord webhook URL
-     * @param serverName The name of the server
-     * @param isOffline Whether the server is offline
+     * @param health The server's health after the status change
      */
-    public static void sendServerStatusWebhook(String webhookUrl, String serverName, boolean isOffline) {
-        if (webhookUrl == null || webhookUrl.isEmpty()) return;
-        
-        EXECUTOR.submit(() -> {
-            try {
-                // Sunucu adından formatlamayı temizle
-                String cleanServerName = stripMiniMessageFormatting(serverName);
-                
-                String json = String.format(
-                    "{\"embeds\":[{" +
-                    "\"title\":\"%s\"," +
-                    "\"description\":\"%s\"," +
-                    "\"color\":%s" +
-                    "}]}",
-                    escapeJson(isOffline ? "⚠️ Server Offline" : "✅ Server Online"),
-                    escapeJson("The server " + cleanServerName + " is currently " + 
-                            (isOffline ? "offline" : "online") + "."),
-                    isOffline ? "16711680" : "65280"
-                );
-                
-                URL url = new URL(webhookUrl);
-                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-                connection.setRequestMethod("POST");
-                connection.setRequestProperty("Content-Type", "application/json");
-                connection.setDoOutput(true);
-                
-                try (OutputStream os = connection.getOutputStream()) {
-                    byte[] input = json.getBytes(StandardCharsets.UTF_8);
-                    os.write(input, 0, input.length);
-                }
-                
-                connection.getResponseCode();
-                connection.disconnect();
-            } catch (Exception e) {
-                // Silent fail
-            }
-        });
-    }
-    
-    private static String stripMiniMessageFormatting(String message) {
-        if (message == null) return "";
+    public static CompletableFuture<DeliveryResult> sendServerStatusWebhook(String webhookUrl, ServerHealth health) {
+        if (webhookUrl == null || webhookUrl.isEmpty()) return CompletableFuture.completedFuture(null);
         
-        // Tüm formatlamaları ve renk kodlarını tamamen kaldır
-        String result = message;
+        // Sunucu adından formatlamayı temizle
+        String cleanServerName = stripMiniMessageFormatting(health.serverId());
+        boolean isOffline = !health.isOnline();
         
-        // Gradient formatlamasını kaldır
-        result = result.replaceAll("<gradient:[^>]+>", "").replaceAll("</gradient>", "");
-        
-        // Renk kodlarını kaldır (örn: <red>text</red>, <#FF0000>text</#FF0000>)
-        result = result.replaceAll("<[a-zA-Z0-9#_:]+>", "").replaceAll("</[a-zA-Z0-9#_:]+>", "");
-        
-        // Click ve hover gibi etkileşim formatlamalarını kaldır
-        result = result.replaceAll("<click:[^>]+>", "").replaceAll("</click>", "");
-        result = result.replaceAll("<hover:[^>]+>", "").replaceAll("</hover>", "");
+        StringBuilder description = new StringBuilder("The server ").append(cleanServerName)
+                .append(" is currently ").append(isOffline ? "offline" : "online").append('.');
+        if (isOffline) {
+            if (health.consecutiveFailures() > 0) {
+                description.append("\n").append(health.consecutiveFailures()).append(" pings in a row failed.");
+            }
+        } else {
+            if (health.onlinePlayers() >= 0) {
+                description.append("\nPlayers: ").append(health.onlinePlayers());
+                if (health.maxPlayers() >= 0) {
+                    description.append('/').append(health.maxPlayers());
+                }
+            }
+            if (health.latencyMillis() >= 0) {
+                description.append("\nPing: ").append(health.latencyMillis()).append(" ms");
+            }
+        }
         
-        // Kalan tüm MiniMessage formatlamalarını kaldır
-        result = result.replaceAll("<[^>]+>", "");
+        String embed = String.format(
+            "{" +
+            "\"title\":\"%s\"," +
+            "\"description\":\"%s\"," +
+            "\"color\":%s" +
+            "}",
+            escapeJson(isOffline ? "⚠️ Server Offline" : "✅ Server Online"),
+            escapeJson(description.toString()),
+            isOffline ? "16711680" : "65280"
+        );
         
-        return result;
+        return coalescer.submit(webhookUrl, embed);
     }
     
-    private static String parseGradientTags(String message) {
-        if (message == null) return "";
-        
-        // Discord gradientleri desteklemediği için doğrudan tüm formatları kaldıralım
-        return stripMiniMessageFormatting(message);
+    static String stripMiniMessageFormatting(String message) {
+        return DiscordMarkdown.stripTags(message);
     }
     
-    private static String escapeJson(String text) {
+    static String escapeJson(String text) {
         if (text == null) return "";
         
         return text.replace("\\", "\\\\")
@@ -201,10 +205,20 @@ public class WebhookManager {
                 .replace("\t", "\\t");
     }
     
+    public static int getQueuedCount() {
+        return dispatcher.getQueuedCount();
+    }
+    
+    public static int getInFlightCount() {
+        return dispatcher.getInFlightCount();
+    }
+    
     /**
-     * Shutdown webhook executor service
+     * Stop the delivery engine, buffered and queued webhooks are still sent
      */
     public static void shutdown() {
-        EXECUTOR.shutdown();
+        // Coalescer first, its last batches still need an open dispatcher
+        coalescer.shutdown();
+        dispatcher.shutdown();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.midenium.mannouncer.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed bucket histogram in the Prometheus layout: bucket counts, a running sum and a total count
+ */
+public final class Histogram {
+
+    private final double[] bounds;
+    private final LongAdder[] buckets;
+    private final DoubleAdder sum = new DoubleAdder();
+    private final LongAdder count = new LongAdder();
+
+    Histogram(double[] bounds) {
+        this.bounds = bounds;
+        // One extra bucket for everything above the highest bound
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void observe(double value) {
+        int index = 0;
+        while (index < bounds.length && value > bounds[index]) {
+            index++;
+        }
+        buckets[index].increment();
+        sum.add(value);
+        count.increment();
+    }
+
+    /**
+     * Record a duration measured with {@link System#nanoTime()}, in seconds
+     * @param nanos The duration in nanoseconds
+     */
+    public void observeNanos(long nanos) {
+        observe(nanos / 1_000_000_000.0);
+    }
+
+    /**
+     * Record the time elapsed since a {@link System#nanoTime()} reading, in seconds
+     * @param startNanos The start time
+     */
+    public void observeSince(long startNanos) {
+        observeNanos(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getSum() {
+        return sum.sum();
+    }
+
+    double[] getBounds() {
+        return bounds;
+    }
+
+    /**
+     * @return Cumulative bucket counts, the last entry is the +Inf bucket
+     */
+    long[] getCumulativeCounts() {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            total += buckets[i].sum();
+            counts[i] = total;
+        }
+        return counts;
+    }
+
+    /**
+     * Estimate a quantile as the upper bound of the bucket it falls into
+     * @param quantile The quantile, between 0 and 1
+     * @return The estimate, or infinity if it falls above the highest bound
+     */
+    public double quantile(double quantile) {
+        long[] counts = getCumulativeCounts();
+        long total = counts[counts.length - 1];
+        if (total == 0) {
+            return 0.0;
+        }
+
+        long rank = (long) Math.ceil(quantile * total);
+        for (int i = 0; i < bounds.length; i++) {
+            if (counts[i] >= rank) {
+                return bounds[i];
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+}
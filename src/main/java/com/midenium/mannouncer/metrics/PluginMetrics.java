@@ -0,0 +1,250 @@
+package com.midenium.mannouncer.metrics;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registry of the plugin's counters, gauges and histograms.
+ * <p>
+ * Metrics are grouped into families by name, each series in a family is identified by its label
+ * pairs. Callers on hot paths should look a series up once and keep the returned instance.
+ */
+public class PluginMetrics {
+
+    /** Latency buckets in seconds, from 100µs to 10s */
+    public static final double[] LATENCY_BUCKETS = {
+            0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0, 10.0
+    };
+
+    /** Buckets for counts of players */
+    public static final double[] SIZE_BUCKETS = {
+            0, 1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000
+    };
+
+    private enum Type {
+        COUNTER, GAUGE, HISTOGRAM
+    }
+
+    private static final class Family {
+        private final String name;
+        private final String help;
+        private final Type type;
+        private final Map<String, Object> series = new ConcurrentSkipListMap<>();
+
+        private Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * Get or create a counter
+     *
+     * @param name Metric name
+     * @param help Description of the metric
+     * @param labels Label names and values, alternating
+     * @return The counter
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, Type.COUNTER).series
+                .computeIfAbsent(formatLabels(labels), k -> new Counter());
+    }
+
+    /**
+     * Register a counter whose value is read from elsewhere, e.g. an existing hit counter
+     *
+     * @param name Metric name
+     * @param help Description of the metric
+     * @param value Supplier of the current total
+     * @param labels Label names and values, alternating
+     */
+    public void counter(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.COUNTER).series.put(formatLabels(labels), value);
+    }
+
+    /**
+     * Register a gauge, replacing any earlier gauge with the same name and labels
+     *
+     * @param name Metric name
+     * @param help Description of the metric
+     * @param value Supplier of the current value
+     * @param labels Label names and values, alternating
+     */
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.GAUGE).series.put(formatLabels(labels), value);
+    }
+
+    /**
+     * Get or create a histogram
+     *
+     * @param name Metric name
+     * @param help Description of the metric
+     * @param buckets Upper bounds of the buckets, ascending
+     * @param labels Label names and values, alternating
+     * @return The histogram
+     */
+    public Histogram histogram(String name, String help, double[] buckets, String... labels) {
+        return (Histogram) family(name, help, Type.HISTOGRAM).series
+                .computeIfAbsent(formatLabels(labels), k -> new Histogram(buckets));
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, k -> new Family(name, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as " + family.type);
+        }
+        return family;
+    }
+
+    /**
+     * Render all metrics in the Prometheus text exposition format
+     *
+     * @return The exposition text
+     */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder(4096);
+
+        for (Family family : families.values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(escapeHelp(family.help)).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type.name().toLowerCase(Locale.ROOT)).append('\n');
+
+            for (Map.Entry<String, Object> entry : family.series.entrySet()) {
+                String labels = entry.getKey();
+                Object metric = entry.getValue();
+
+                if (metric instanceof Histogram histogram) {
+                    double[] bounds = histogram.getBounds();
+                    long[] counts = histogram.getCumulativeCounts();
+                    for (int i = 0; i < counts.length; i++) {
+                        String le = i < bounds.length ? formatValue(bounds[i]) : "+Inf";
+                        out.append(family.name).append("_bucket")
+                                .append(joinLabels(labels, "le=\"" + le + "\""))
+                                .append(' ').append(counts[i]).append('\n');
+                    }
+                    out.append(family.name).append("_sum").append(joinLabels(labels, ""))
+                            .append(' ').append(formatValue(histogram.getSum())).append('\n');
+                    out.append(family.name).append("_count").append(joinLabels(labels, ""))
+                            .append(' ').append(histogram.getCount()).append('\n');
+                } else {
+                    out.append(family.name).append(joinLabels(labels, ""))
+                            .append(' ').append(formatValue(valueOf(metric))).append('\n');
+                }
+            }
+        }
+
+        return out.toString();
+    }
+
+    /**
+     * Short human readable lines for every series, used by the stats command
+     *
+     * @return One line per series
+     */
+    public List<String> summary() {
+        List<String> lines = new ArrayList<>();
+
+        for (Family family : families.values()) {
+            String shortName = family.name.startsWith("mannouncer_") ? family.name.substring(11) : family.name;
+
+            for (Map.Entry<String, Object> entry : family.series.entrySet()) {
+                String series = shortName + joinLabels(entry.getKey(), "");
+                Object metric = entry.getValue();
+
+                if (metric instanceof Histogram histogram) {
+                    long count = histogram.getCount();
+                    boolean seconds = family.name.endsWith("_seconds");
+                    double mean = count == 0 ? 0.0 : histogram.getSum() / count;
+                    lines.add(series + ": count=" + count
+                            + " avg=" + formatSummary(mean, seconds)
+                            + " p95=" + formatSummary(histogram.quantile(0.95), seconds)
+                            + " p99=" + formatSummary(histogram.quantile(0.99), seconds));
+                } else {
+                    lines.add(series + ": " + formatValue(valueOf(metric)));
+                }
+            }
+        }
+
+        return lines;
+    }
+
+    private static double valueOf(Object metric) {
+        if (metric instanceof Counter counter) {
+            return counter.get();
+        }
+        try {
+            return ((DoubleSupplier) metric).getAsDouble();
+        } catch (RuntimeException e) {
+            // A gauge whose source is gone shouldn't break the whole export
+            return Double.NaN;
+        }
+    }
+
+    private static String formatLabels(String... labels) {
+        if (labels.length == 0) {
+            return "";
+        }
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(labels[i]).append("=\"").append(escapeLabelValue(labels[i + 1])).append('"');
+        }
+        return out.toString();
+    }
+
+    private static String joinLabels(String labels, String extra) {
+        if (labels.isEmpty() && extra.isEmpty()) {
+            return "";
+        }
+        if (labels.isEmpty()) {
+            return "{" + extra + "}";
+        }
+        if (extra.isEmpty()) {
+            return "{" + labels + "}";
+        }
+        return "{" + labels + "," + extra + "}";
+    }
+
+    private static String escapeLabelValue(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private static String formatValue(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return BigDecimal.valueOf(value).toPlainString();
+    }
+
+    private static String formatSummary(double value, boolean seconds) {
+        if (Double.isInfinite(value)) {
+            return "+Inf";
+        }
+        return seconds
+                ? String.format(Locale.ROOT, "%.2fms", value * 1000.0)
+                : String.format(Locale.ROOT, "%.1f", value);
+    }
+}
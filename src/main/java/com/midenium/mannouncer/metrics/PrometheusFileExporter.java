@@ -0,0 +1,77 @@
+package com.midenium.mannouncer.metrics;
+
+import com.midenium.mannouncer.MAnnouncer;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically writes the plugin metrics to a file in the Prometheus text format, for
+ * node exporter's textfile collector. The file is replaced atomically so a scrape never
+ * reads a half written snapshot.
+ */
+public class PrometheusFileExporter {
+
+    private final MAnnouncer plugin;
+    private final PluginMetrics metrics;
+    private ScheduledTask task;
+    private Path file;
+
+    public PrometheusFileExporter(MAnnouncer plugin, PluginMetrics metrics) {
+        this.plugin = plugin;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Start exporting, restarting with the new settings if already running
+     *
+     * @param fileName File name, relative to the data directory
+     * @param intervalSeconds Seconds between snapshots
+     */
+    public synchronized void start(String fileName, int intervalSeconds) {
+        stop();
+
+        file = plugin.getClusterCoordinator().localFile(plugin.getDataDirectory().resolve(fileName));
+        task = plugin.getServer().getScheduler().buildTask(plugin, this::export)
+                .repeat(Math.max(1, intervalSeconds), TimeUnit.SECONDS)
+                .schedule();
+    }
+
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Write a snapshot right away
+     */
+    public void export() {
+        Path target;
+        synchronized (this) {
+            target = file;
+        }
+        if (target == null) {
+            return;
+        }
+
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            Files.writeString(temp, metrics.toPrometheus(), StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warn("Failed to write metrics to " + target + ": " + e.getMessage());
+        }
+    }
+}
@@ -9,7 +9,9 @@ public class Announcement {
     private final String id;
     private final String serverId;
     private final AnnouncementType type;
-    private boolean enabled;
+    private final String key;
+    private final String permissionNode;
+    private volatile boolean enabled;
     private String message;
     private String description;
     private String sound;
@@ -18,9 +20,10 @@ public class Announcement {
     private String permission;
     private String webhookUrl;
     private boolean scheduled;
-    private int interval;
+    private long intervalMillis;
     private long cooldown;
-    private long lastSent;
+    private int priority;
+    private volatile long lastSent;
     
     // Type-specific properties
     private final Map<String, Object> properties = new HashMap<>();
@@ -29,6 +32,8 @@ public class Announcement {
         this.id = id;
         this.serverId = serverId;
         this.type = type;
+        this.key = serverId + ":" + type.getPermissionNode() + ":" + id;
+        this.permissionNode = "mannouncer.announcement." + type.getPermissionNode() + "." + serverId + "." + id;
         
         this.enabled = getBoolean(config, "enabled", true);
         this.message = getString(config, "message", "");
@@ -39,8 +44,9 @@ public class Announcement {
         this.permission = getString(config, "permission", "");
         this.webhookUrl = getString(config, "webhook-url", "");
         this.scheduled = getBoolean(config, "scheduled", false);
-        this.interval = getInt(config, "interval", 300);
+        this.intervalMillis = getIntervalMillis(config, "interval", 300_000L);
         this.cooldown = getLong(config, "cooldown", 0L);
+        this.priority = getInt(config, "priority", 0);
         this.lastSent = 0L;
         
         // Load type-specific properties based on announcement type
@@ -89,6 +95,23 @@ public class Announcement {
         return defaultValue;
     }
     
+    private long getIntervalMillis(Map<String, Object> map, String key, long defaultValue) {
+        // Intervals are configured in seconds; fractional values allow sub-second schedules
+        Object value = map.get(key);
+        if (value instanceof Integer || value instanceof Long) {
+            return ((Number) value).longValue() * 1000L;
+        } else if (value instanceof Number) {
+            return Math.round(((Number) value).doubleValue() * 1000.0);
+        } else if (value instanceof String) {
+            try {
+                return Math.round(Double.parseDouble((String) value) * 1000.0);
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+    
     private float getFloat(Map<String, Object> map, String key, float defaultValue) {
         Object value = map.get(key);
         if (value instanceof Float) {
@@ -133,6 +156,15 @@ public class Announcement {
         return type;
     }
     
+    /**
+     * Unique key of this announcement across all servers and types
+     * 
+     * @return The key in the form {@code serverId:type:id}
+     */
+    public String getKey() {
+        return key;
+    }
+    
     public boolean isEnabled() {
         return enabled;
     }
@@ -206,11 +238,19 @@ public class Announcement {
     }
     
     public int getInterval() {
-        return interval;
+        return (int) (intervalMillis / 1000L);
     }
     
     public void setInterval(int interval) {
-        this.interval = interval;
+        this.intervalMillis = interval * 1000L;
+    }
+    
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+    
+    public void setIntervalMillis(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
     }
     
     public long getCooldown() {
@@ -221,6 +261,17 @@ public class Announcement {
         this.cooldown = cooldown;
     }
     
+    /**
+     * @return Dispatch priority, higher values go first when announcements have to wait
+     */
+    public int getPriority() {
+        return priority;
+    }
+    
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+    
     public long getLastSent() {
         return lastSent;
     }
@@ -280,6 +331,15 @@ public class Announcement {
         return enabled && !isOnCooldown();
     }
     
+    /**
+     * Permission node required to receive this announcement
+     * 
+     * @return The node in the form {@code mannouncer.announcement.type.server.id}
+     */
+    public String getPermissionNode() {
+        return permissionNode;
+    }
+    
     public boolean hasPermissionRequirement() {
         return permission != null && !permission.isEmpty();
     }
@@ -311,8 +371,15 @@ public class Announcement {
             map.put("webhook-url", webhookUrl);
         }
         map.put("scheduled", scheduled);
-        map.put("interval", interval);
+        if (intervalMillis % 1000L == 0) {
+            map.put("interval", (int) (intervalMillis / 1000L));
+        } else {
+            map.put("interval", intervalMillis / 1000.0);
+        }
         map.put("cooldown", cooldown);
+        if (priority != 0) {
+            map.put("priority", priority);
+        }
         
         // Add type-specific properties
         map.putAll(properties);
@@ -0,0 +1,61 @@
+package com.midenium.mannouncer.models;
+
+/**
+ * Health of one backend server as seen by the ping monitor. Instances are immutable, every ping
+ * result produces a new one.
+ *
+ * @param serverId The server name
+ * @param status Current status, only flipped after enough consecutive pings agree
+ * @param consecutiveFailures Failed pings in a row, reset by a successful ping
+ * @param consecutiveSuccesses Successful pings in a row, reset by a failed ping
+ * @param latencyMillis Round trip time of the last successful ping, or -1 if there was none yet
+ * @param onlinePlayers Players reported by the last successful ping, or -1 if unknown
+ * @param maxPlayers Player limit reported by the last successful ping, or -1 if unknown
+ * @param lastCheck Time of the last ping result in milliseconds, 0 if never pinged
+ * @param lastChange Time the status last flipped in milliseconds, 0 if it never did
+ */
+public record ServerHealth(String serverId, Status status, int consecutiveFailures, int consecutiveSuccesses,
+                           long latencyMillis, int onlinePlayers, int maxPlayers, long lastCheck, long lastChange) {
+
+    public enum Status {
+        /** Not pinged yet */
+        UNKNOWN,
+        ONLINE,
+        OFFLINE
+    }
+
+    public static ServerHealth initial(String serverId, Status status) {
+        return new ServerHealth(serverId, status, 0, 0, -1, -1, -1, 0, 0);
+    }
+
+    public boolean isOnline() {
+        return status == Status.ONLINE;
+    }
+
+    /**
+     * @param latencyMillis Round trip time of the ping
+     * @param onlinePlayers Players reported by the ping, or -1
+     * @param maxPlayers Player limit reported by the ping, or -1
+     * @param recoveryThreshold Successes in a row needed to go from offline to online
+     * @param now Current time in milliseconds
+     * @return The health after a successful ping
+     */
+    public ServerHealth withSuccess(long latencyMillis, int onlinePlayers, int maxPlayers, int recoveryThreshold, long now) {
+        int successes = consecutiveSuccesses + 1;
+        Status next = status == Status.UNKNOWN || successes >= recoveryThreshold ? Status.ONLINE : status;
+        return new ServerHealth(serverId, next, 0, successes, latencyMillis, onlinePlayers, maxPlayers,
+                now, next != status ? now : lastChange);
+    }
+
+    /**
+     * @param failureThreshold Failures in a row needed to go from online to offline
+     * @param now Current time in milliseconds
+     * @return The health after a failed or timed out ping
+     */
+    public ServerHealth withFailure(int failureThreshold, long now) {
+        int failures = consecutiveFailures + 1;
+        Status next = status == Status.UNKNOWN || failures >= failureThreshold ? Status.OFFLINE : status;
+        return new ServerHealth(serverId, next, failures, 0, latencyMillis, onlinePlayers, maxPlayers,
+                now, next != status ? now : lastChange);
+    }
+}
@@ -13,19 +13,27 @@ public class Streamer {
     private final String webhookUrl;
     private final Map<String, String> customMessages;
     
-    private boolean isLive;
-    private String streamUrl;
-    private long lastCheck;
-    private long lastAnnounced;
+    // Updated from status check threads
+    private volatile boolean isLive;
+    private volatile String streamUrl;
+    private volatile long lastCheck;
+    private volatile long lastAnnounced;
+    // Seconds between checks, adjusted from the live history
+    private volatile int pollInterval;
     
     public Streamer(String id, Map<String, Object> config) {
+        this(id, config, 60);
+    }
+    
+    public Streamer(String id, Map<String, Object> config, int defaultInterval) {
         this.id = id;
         this.platform = StreamerPlatform.fromString(
                 (String) config.getOrDefault("platform", "twitch"));
                 
         this.servers = (List<String>) config.getOrDefault("servers", List.of("all"));
         this.announcementTypes = (List<String>) config.getOrDefault("announcement-types", List.of("chat"));
-        this.interval = getInt(config, "interval", 60);
+        this.interval = getInt(config, "interval", defaultInterval);
+        this.pollInterval = interval;
         this.webhookUrl = (String) config.getOrDefault("webhook-url", "");
         
         this.customMessages = (Map<String, String>) config.getOrDefault("messages", Map.of());
@@ -70,6 +78,14 @@ public class Streamer {
         return interval;
     }
     
+    public int getPollInterval() {
+        return pollInterval;
+    }
+    
+    public void setPollInterval(int pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+    
     public String getWebhookUrl() {
         return webhookUrl;
     }
@@ -111,7 +127,7 @@ public class Streamer {
     }
     
     public boolean shouldCheck() {
-        return System.currentTimeMillis() - lastCheck >= interval * 1000L;
+        return System.currentTimeMillis() - lastCheck >= pollInterval * 1000L;
     }
     
     public boolean matchesServer(String serverName) {
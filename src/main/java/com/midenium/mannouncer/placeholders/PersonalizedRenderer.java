@@ -0,0 +1,132 @@
+package com.midenium.mannouncer.placeholders;
+
+import com.midenium.mannouncer.MAnnouncer;
+import com.velocitypowered.api.proxy.Player;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TranslatableComponent;
+import net.kyori.adventure.text.minimessage.tag.Tag;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders messages that use per-player placeholders without a MiniMessage parse per recipient.
+ * <p>
+ * Shared placeholders are substituted as usual, per-player ones become marker components and the
+ * result is parsed once (and cached). Recipients are grouped by their per-player values, and each
+ * group gets one copy of the parsed tree with only the markers replaced by text in the marker's
+ * style. Slots inside tag arguments (click or hover values) can't be marked, for those each group's
+ * values are substituted and parsed instead, still once per group rather than per player.
+ */
+public class PersonalizedRenderer {
+
+    private static final String SLOT_TAG = "mannouncer_slot";
+    private static final String SLOT_KEY_PREFIX = "mannouncer.slot.";
+    private static final TagResolver SLOT_RESOLVER = TagResolver.resolver(SLOT_TAG, (arguments, context) ->
+            Tag.selfClosingInserting(Component.translatable(SLOT_KEY_PREFIX + arguments.popOr("slot key expected").value())));
+
+    private final MAnnouncer plugin;
+
+    public PersonalizedRenderer(MAnnouncer plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * @param source The template text
+     * @param context Shared context of the message, without a player
+     * @param recipients Players receiving the message
+     * @return Rendered variants with the players each one goes to, in first-recipient order. A single
+     *         variant for everyone maps to {@code recipients} itself.
+     */
+    public Map<Component, Collection<Player>> render(String source, PlaceholderContext context, Collection<Player> recipients) {
+        PlaceholderRegistry registry = plugin.getPlaceholderRegistry();
+        Template template = Template.compile(source);
+
+        List<String> slotKeys = new ArrayList<>();
+        for (String key : template.getKeys()) {
+            if (registry.isPerPlayer(key) && !context.values().containsKey(key)) {
+                slotKeys.add(key);
+            }
+        }
+
+        Map<String, String> shared = registry.resolveAll(template, context);
+        if (slotKeys.isEmpty()) {
+            Map<Component, Collection<Player>> single = new LinkedHashMap<>();
+            single.put(plugin.getComponentCache().render(source, shared), recipients);
+            return single;
+        }
+
+        // Recipients resolving to the same values share one component
+        Map<List<String>, List<Player>> groups = new LinkedHashMap<>();
+        for (Player player : recipients) {
+            PlaceholderContext playerContext = context.withPlayer(player);
+            String[] values = new String[slotKeys.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = registry.resolve(slotKeys.get(i), playerContext);
+            }
+            groups.computeIfAbsent(Arrays.asList(values), key -> new ArrayList<>()).add(player);
+        }
+
+        boolean markable = slotKeys.stream().noneMatch(template.getKeysInTags()::contains);
+        Component marked = null;
+        if (markable) {
+            Map<String, String> withMarkers = new HashMap<>(shared);
+            for (String key : slotKeys) {
+                withMarkers.put(key, "<" + SLOT_TAG + ":" + key + ">");
+            }
+            marked = plugin.getComponentCache().render(source, withMarkers, SLOT_RESOLVER);
+        }
+
+        Map<Component, Collection<Player>> variants = new LinkedHashMap<>();
+        for (Map.Entry<List<String>, List<Player>> group : groups.entrySet()) {
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < slotKeys.size(); i++) {
+                String value = group.getKey().get(i);
+                if (value != null) {
+                    values.put(slotKeys.get(i), value);
+                }
+            }
+
+            Component component;
+            if (marked != null) {
+                component = fill(marked, values);
+            } else {
+                values.putAll(shared);
+                component = plugin.getComponentCache().render(source, values);
+            }
+            variants.computeIfAbsent(component, key -> new ArrayList<>()).addAll(group.getValue());
+        }
+        return variants;
+    }
+
+    /**
+     * Replace slot markers with their values, sharing every untouched subtree with the original
+     */
+    private static Component fill(Component component, Map<String, String> values) {
+        List<Component> children = component.children();
+        List<Component> filledChildren = children;
+        for (int i = 0; i < children.size(); i++) {
+            Component child = children.get(i);
+            Component filled = fill(child, values);
+            if (filled != child) {
+                if (filledChildren == children) {
+                    filledChildren = new ArrayList<>(children);
+                }
+                filledChildren.set(i, filled);
+            }
+        }
+
+        if (component instanceof TranslatableComponent translatable && translatable.key().startsWith(SLOT_KEY_PREFIX)) {
+            String key = translatable.key().substring(SLOT_KEY_PREFIX.length());
+            String value = values.getOrDefault(key, "{" + key + "}");
+            return Component.text(value).style(translatable.style()).children(filledChildren);
+        }
+        return filledChildren == children ? component : component.children(filledChildren);
+    }
+}
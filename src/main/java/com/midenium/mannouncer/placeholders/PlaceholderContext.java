@@ -0,0 +1,43 @@
+package com.midenium.mannouncer.placeholders;
+
+import com.midenium.mannouncer.models.Streamer;
+import com.velocitypowered.api.proxy.Player;
+
+import java.util.Map;
+
+/**
+ * What a message is rendered for. Every part is optional, resolvers return null for
+ * placeholders they can't fill from the parts that are present.
+ *
+ * @param player The recipient, or null for messages shared by many players
+ * @param serverId The server the message is shown on, or null
+ * @param streamer The streamer being announced, or null
+ * @param values Explicit values, these take precedence over registered resolvers
+ */
+public record PlaceholderContext(Player player, String serverId, Streamer streamer, Map<String, String> values) {
+
+    private static final PlaceholderContext EMPTY = new PlaceholderContext(null, null, null, Map.of());
+
+    public static PlaceholderContext empty() {
+        return EMPTY;
+    }
+
+    public static PlaceholderContext forServer(String serverId, Map<String, String> values) {
+        return new PlaceholderContext(null, serverId, null, values);
+    }
+
+    public static PlaceholderContext forPlayer(Player player, String serverId) {
+        return new PlaceholderContext(player, serverId, null, Map.of());
+    }
+
+    public static PlaceholderContext forStreamer(Streamer streamer) {
+        return new PlaceholderContext(null, null, streamer, Map.of());
+    }
+
+    /**
+     * @return A copy of this context for another recipient
+     */
+    public PlaceholderContext withPlayer(Player player) {
+        return new PlaceholderContext(player, serverId, streamer, values);
+    }
+}
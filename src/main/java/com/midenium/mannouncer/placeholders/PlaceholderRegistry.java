@@ -0,0 +1,144 @@
+package com.midenium.mannouncer.placeholders;
+
+import com.midenium.mannouncer.MAnnouncer;
+import com.velocitypowered.api.proxy.ServerConnection;
+import com.velocitypowered.api.proxy.server.ServerInfo;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves {@code {key}} placeholders for compiled {@link Template}s.
+ * <p>
+ * Built in keys:
+ * <ul>
+ *     <li>{@code {player}} the recipient's name</li>
+ *     <li>{@code {server}} the server the message is shown on</li>
+ *     <li>{@code {online}} players on that server, or on the whole proxy without a server</li>
+ *     <li>{@code {streamer}}, {@code {platform}}, {@code {url}} the announced streamer</li>
+ * </ul>
+ * Other plugins add keys through {@link #register}, or {@link #registerPerPlayer} for values that
+ * differ between recipients. Explicit values in the context win over resolvers.
+ */
+public class PlaceholderRegistry {
+
+    private final Map<String, PlaceholderResolver> resolvers = new ConcurrentHashMap<>();
+    private final Set<String> perPlayerKeys = ConcurrentHashMap.newKeySet();
+
+    public PlaceholderRegistry(MAnnouncer plugin) {
+        registerPerPlayer("player", context -> context.player() != null ? context.player().getUsername() : null);
+        register("server", context -> {
+            if (context.serverId() != null) {
+                return context.serverId();
+            }
+            if (context.player() != null) {
+                return context.player().getCurrentServer()
+                        .map(ServerConnection::getServerInfo)
+                        .map(ServerInfo::getName)
+                        .orElse(null);
+            }
+            return null;
+        });
+        register("online", context -> {
+            if (context.serverId() == null) {
+                return Integer.toString(plugin.getServer().getPlayerCount());
+            }
+            if (plugin.getServer().getServer(context.serverId()).isEmpty()) {
+                return null;
+            }
+            // Counted by the occupancy index, the server's player collection would be copied on every render
+            return Integer.toString(plugin.getOccupancyIndex().getPlayerCount(context.serverId()));
+        });
+        register("streamer", context -> context.streamer() != null ? context.streamer().getId() : null);
+        register("platform", context -> context.streamer() != null ? context.streamer().getPlatform().getId() : null);
+        register("url", context -> context.streamer() != null ? context.streamer().getStreamUrl() : null);
+    }
+
+    /**
+     * Register a placeholder, replacing any resolver already registered for the key
+     *
+     * @param key The key, without braces
+     * @param resolver Supplier of the value
+     * @throws IllegalArgumentException If the key can't appear in a template
+     */
+    public void register(String key, PlaceholderResolver resolver) {
+        if (!Template.isValidKey(key)) {
+            throw new IllegalArgumentException("Invalid placeholder key: " + key);
+        }
+        resolvers.put(key, resolver);
+        perPlayerKeys.remove(key);
+    }
+
+    /**
+     * Register a placeholder whose value depends on the recipient. Messages using it are parsed
+     * once and only these slots are filled in per player, see {@link PersonalizedRenderer}.
+     *
+     * @param key The key, without braces
+     * @param resolver Supplier of the value, called with the recipient in the context
+     * @throws IllegalArgumentException If the key can't appear in a template
+     */
+    public void registerPerPlayer(String key, PlaceholderResolver resolver) {
+        register(key, resolver);
+        perPlayerKeys.add(key);
+    }
+
+    public void unregister(String key) {
+        resolvers.remove(key);
+        perPlayerKeys.remove(key);
+    }
+
+    /**
+     * @param key The key, without braces
+     * @return Whether the key was registered with {@link #registerPerPlayer}
+     */
+    public boolean isPerPlayer(String key) {
+        return perPlayerKeys.contains(key);
+    }
+
+    /**
+     * @param key The key, without braces
+     * @param context What the message is rendered for
+     * @return The value, or null if nothing provides it
+     */
+    public String resolve(String key, PlaceholderContext context) {
+        String value = context.values().get(key);
+        if (value != null) {
+            return value;
+        }
+        PlaceholderResolver resolver = resolvers.get(key);
+        return resolver != null ? resolver.resolve(context) : null;
+    }
+
+    /**
+     * Resolve only the placeholders a template uses, e.g. as part of a render cache key
+     *
+     * @param template The compiled template
+     * @param context What the message is rendered for
+     * @return Values keyed by name, placeholders nothing provides are left out
+     */
+    public Map<String, String> resolveAll(Template template, PlaceholderContext context) {
+        if (!template.hasPlaceholders()) {
+            return Map.of();
+        }
+
+        Map<String, String> values = new HashMap<>();
+        for (String key : template.getKeys()) {
+            String value = resolve(key, context);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @param template The template text
+     * @param context What the message is rendered for
+     * @return The text with placeholders substituted
+     */
+    public String render(String template, PlaceholderContext context) {
+        return Template.compile(template).render(key -> resolve(key, context));
+    }
+}
@@ -0,0 +1,15 @@
+package com.midenium.mannouncer.placeholders;
+
+/**
+ * Supplies the value of one placeholder key. Register implementations with
+ * {@link PlaceholderRegistry#register}, other plugins can add their own keys this way.
+ */
+@FunctionalInterface
+public interface PlaceholderResolver {
+
+    /**
+     * @param context What the message is being rendered for
+     * @return The value, or null if the placeholder doesn't apply in this context
+     */
+    String resolve(PlaceholderContext context);
+}
@@ -0,0 +1,200 @@
+package com.midenium.mannouncer.placeholders;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A message template compiled into literal segments and {@code {key}} placeholder slots.
+ * <p>
+ * Templates are parsed once and cached by their source text. Rendering walks the segments a
+ * single time into a per-thread builder, so substituting any number of placeholders costs one
+ * pass and one result string. Placeholders without a value are kept as written.
+ */
+public final class Template {
+
+    private static final int MAX_CACHED_TEMPLATES = 4096;
+    private static final int MAX_RETAINED_BUILDER = 8192;
+
+    private static final Map<String, Template> COMPILED = new ConcurrentHashMap<>();
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final String source;
+    // literals.length == keys.length + 1, slot i sits between literals[i] and literals[i + 1]
+    private final String[] literals;
+    private final String[] keys;
+    private final Set<String> distinctKeys;
+    // Keys with at least one slot inside a MiniMessage tag, e.g. a click or hover argument
+    private final Set<String> keysInTags;
+    private final int literalLength;
+
+    private Template(String source, String[] literals, String[] keys) {
+        this.source = source;
+        this.literals = literals;
+        this.keys = keys;
+
+        Set<String> distinct = new LinkedHashSet<>(List.of(keys));
+        this.distinctKeys = Collections.unmodifiableSet(distinct);
+
+        Set<String> inTags = new LinkedHashSet<>();
+        boolean inTag = false;
+        int length = 0;
+        for (int i = 0; i < literals.length; i++) {
+            String literal = literals[i];
+            length += literal.length();
+
+            int open = literal.lastIndexOf('<');
+            int close = literal.lastIndexOf('>');
+            if (open >= 0 || close >= 0) {
+                inTag = open > close;
+            }
+            if (inTag && i < keys.length) {
+                inTags.add(keys[i]);
+            }
+        }
+        this.keysInTags = Collections.unmodifiableSet(inTags);
+        this.literalLength = length;
+    }
+
+    /**
+     * Compile a template, reusing an earlier compilation of the same text
+     *
+     * @param source The template text
+     * @return The compiled template
+     */
+    public static Template compile(String source) {
+        Template template = COMPILED.get(source);
+        if (template != null) {
+            return template;
+        }
+
+        template = parse(source);
+        if (COMPILED.size() >= MAX_CACHED_TEMPLATES) {
+            // Templates come from config, this only trips on unbounded ad-hoc messages
+            COMPILED.clear();
+        }
+        COMPILED.put(source, template);
+        return template;
+    }
+
+    private static Template parse(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+
+        int literalStart = 0;
+        int index = source.indexOf('{');
+        while (index >= 0) {
+            int end = keyEnd(source, index + 1);
+            if (end < 0) {
+                index = source.indexOf('{', index + 1);
+                continue;
+            }
+            literals.add(source.substring(literalStart, index));
+            keys.add(source.substring(index + 1, end));
+            literalStart = end + 1;
+            index = source.indexOf('{', literalStart);
+        }
+        literals.add(source.substring(literalStart));
+
+        return new Template(source, literals.toArray(String[]::new), keys.toArray(String[]::new));
+    }
+
+    /**
+     * @return Index of the closing brace of a placeholder key starting at {@code start}, or -1
+     */
+    private static int keyEnd(String source, int start) {
+        int i = start;
+        while (i < source.length() && isKeyChar(source.charAt(i))) {
+            i++;
+        }
+        return i > start && i < source.length() && source.charAt(i) == '}' ? i : -1;
+    }
+
+    private static boolean isKeyChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '_' || c == '-' || c == '.';
+    }
+
+    /**
+     * @param key A placeholder key, without braces
+     * @return Whether the key can appear in a template
+     */
+    public static boolean isValidKey(String key) {
+        if (key == null || key.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (!isKeyChar(key.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return The placeholder keys used by the template, in order of first appearance
+     */
+    public Set<String> getKeys() {
+        return distinctKeys;
+    }
+
+    /**
+     * @return Keys used inside a MiniMessage tag, their value is part of the markup
+     */
+    public Set<String> getKeysInTags() {
+        return keysInTags;
+    }
+
+    public boolean hasPlaceholders() {
+        return keys.length > 0;
+    }
+
+    /**
+     * @param values Placeholder values keyed by name (without braces)
+     * @return The rendered text
+     */
+    public String render(Map<String, String> values) {
+        return values.isEmpty() ? source : render(values::get);
+    }
+
+    /**
+     * @param values Lookup of placeholder values by name, returning null for unknown keys
+     * @return The rendered text
+     */
+    public String render(Function<String, String> values) {
+        if (keys.length == 0) {
+            return source;
+        }
+
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        builder.ensureCapacity(literalLength + keys.length * 16);
+
+        builder.append(literals[0]);
+        for (int i = 0; i < keys.length; i++) {
+            String value = values.apply(keys[i]);
+            if (value != null) {
+                builder.append(value);
+            } else {
+                builder.append('{').append(keys[i]).append('}');
+            }
+            builder.append(literals[i + 1]);
+        }
+
+        String result = builder.toString();
+        if (builder.capacity() > MAX_RETAINED_BUILDER) {
+            // Don't keep a huge buffer alive after one oversized message
+            BUILDER.remove();
+        }
+        return result;
+    }
+}
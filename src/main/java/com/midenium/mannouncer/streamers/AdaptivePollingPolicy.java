@@ -0,0 +1,66 @@
+package com.midenium.mannouncer.streamers;
+
+import com.midenium.mannouncer.config.PluginSettings;
+
+/**
+ * Picks how often a streamer is checked from their live history.
+ * <ul>
+ *     <li>Live, just went offline, or close to a time they usually go live: the minimum interval</li>
+ *     <li>Close to a time they sometimes go live: the streamer's configured interval</li>
+ *     <li>Otherwise the configured interval doubles for every {@code quiet-after} hours without
+ *     activity, up to the maximum</li>
+ * </ul>
+ */
+public class AdaptivePollingPolicy {
+
+    private static final long HOUR_MILLIS = 3_600_000L;
+    // Streams that drop often come back within this time
+    private static final long RECONNECT_WINDOW = HOUR_MILLIS / 2;
+    private static final double HOT_SHARE = 0.25;
+    private static final double WARM_SHARE = 0.1;
+    // Go-lives needed before the history is trusted for speeding up
+    private static final int MIN_STARTS = 2;
+
+    private final PluginSettings.AdaptivePolling settings;
+
+    public AdaptivePollingPolicy(PluginSettings.AdaptivePolling settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * @param baseInterval The streamer's configured interval in seconds
+     * @param live Whether the streamer is live
+     * @param history The streamer's history
+     * @param now Current time
+     * @return Seconds until the next check
+     */
+    public int intervalFor(int baseInterval, boolean live, LiveHistory history, long now) {
+        if (!settings.enabled()) {
+            return baseInterval;
+        }
+
+        int min = Math.max(1, Math.min(settings.minInterval(), baseInterval));
+        int max = Math.max(baseInterval, settings.maxInterval());
+
+        if (live || now - history.getLastOffline() < RECONNECT_WINDOW) {
+            return min;
+        }
+
+        if (history.totalStarts() >= MIN_STARTS) {
+            // The current hour and the next, so fast checks begin before the usual start time
+            double weekly = history.weeklyShare(now, 0, 1);
+            double daily = history.dailyShare(now, 0, 1);
+            if (weekly >= HOT_SHARE || daily >= HOT_SHARE) {
+                return min;
+            }
+            if (weekly >= WARM_SHARE || daily >= WARM_SHARE) {
+                return baseInterval;
+            }
+        }
+
+        long quietMillis = Math.max(0L, now - history.getLastActivity());
+        long quietAfterMillis = Math.max(1, settings.quietAfter()) * HOUR_MILLIS;
+        int doublings = (int) Math.min(30, quietMillis / quietAfterMillis);
+        return (int) Math.min(max, (long) baseInterval << doublings);
+    }
+}
@@ -0,0 +1,290 @@
+package com.midenium.mannouncer.streamers;
+
+import com.midenium.mannouncer.MAnnouncer;
+import com.midenium.mannouncer.config.PluginSettings;
+import com.midenium.mannouncer.models.Streamer;
+import com.midenium.mannouncer.models.StreamerPlatform;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Embedded HTTP endpoint for platforms that push stream events instead of being polled.
+ * <ul>
+ *     <li>{@code /twitch}: Twitch EventSub webhooks. Handles the verification challenge, checks the
+ *     HMAC-SHA256 signature, rejects messages older than {@code max-age} and messages whose id was
+ *     already seen. {@code stream.online} and {@code stream.offline} update the streamer right away.</li>
+ *     <li>{@code /youtube}: YouTube WebSub (PubSubHubbub). Answers the hub's subscription challenge
+ *     for configured channels and checks the HMAC-SHA1 signature. The feed only says a channel
+ *     published or updated a video, not that it is live, so the channel is checked on the next tick
+ *     instead of being announced outright.</li>
+ * </ul>
+ * Subscriptions themselves are created against the platform with the listener's public URL and
+ * the same secret.
+ */
+public class CallbackListener {
+
+    private static final Pattern CHANNEL_ID = Pattern.compile("<yt:channelId>([^<]+)</yt:channelId>");
+    private static final Pattern VIDEO_ID = Pattern.compile("<yt:videoId>([^<]+)</yt:videoId>");
+
+    private final MAnnouncer plugin;
+    private final PluginSettings.Callback settings;
+    private final Supplier<Collection<Streamer>> streamers;
+    private final BiConsumer<Streamer, StreamStatus> listener;
+    private final Consumer<Streamer> recheck;
+    private final CallbackVerifier verifier;
+    private final boolean hasSecret;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param plugin Plugin instance
+     * @param settings Listener settings
+     * @param streamers Supplier of the configured streamers
+     * @param listener Receives the status pushed for a streamer
+     * @param recheck Receives a streamer whose status should be checked soon
+     */
+    public CallbackListener(MAnnouncer plugin, PluginSettings.Callback settings,
+                            Supplier<Collection<Streamer>> streamers, BiConsumer<Streamer, StreamStatus> listener,
+                            Consumer<Streamer> recheck) {
+        this.plugin = plugin;
+        this.settings = settings;
+        this.streamers = streamers;
+        this.listener = listener;
+        this.recheck = recheck;
+        this.verifier = new CallbackVerifier(settings.secret().getBytes(StandardCharsets.UTF_8),
+                settings.maxAge(), Clock.systemUTC());
+        this.hasSecret = !settings.secret().isEmpty();
+    }
+
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        if (!hasSecret) {
+            throw new IOException("no secret configured, signed callbacks can't be verified");
+        }
+
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mAnnouncer-callback-", 0).factory());
+        server = HttpServer.create(new InetSocketAddress(settings.bind(), settings.port()), 0);
+        server.createContext("/twitch", exchange -> handle(exchange, this::handleTwitch));
+        server.createContext("/youtube", exchange -> handle(exchange, this::handleYouTube));
+        server.setExecutor(executor);
+        server.start();
+        plugin.getLogger().info("Listening for stream callbacks on " + settings.bind() + ":" + settings.port());
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private interface Handler {
+        /**
+         * @return Result label for metrics
+         */
+        String handle(HttpExchange exchange, byte[] body) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        String source = exchange.getHttpContext().getPath().substring(1);
+        String result;
+        try (exchange) {
+            byte[] body = readBody(exchange);
+            if (body == null) {
+                result = respond(exchange, 413, "", "too_large");
+            } else {
+                result = handler.handle(exchange, body);
+            }
+        } catch (IOException | RuntimeException e) {
+            plugin.getLogger().warn("Failed to handle " + source + " callback: " + e.getMessage());
+            result = "error";
+        }
+        plugin.getPluginMetrics().counter("mannouncer_streamer_callbacks_total",
+                "Stream callbacks received by source and result", "source", source, "result", result).increment();
+    }
+
+    private String handleTwitch(HttpExchange exchange, byte[] body) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            return respond(exchange, 405, "", "bad_method");
+        }
+
+        String messageId = header(exchange, "Twitch-Eventsub-Message-Id");
+        String timestamp = header(exchange, "Twitch-Eventsub-Message-Timestamp");
+        String signature = header(exchange, "Twitch-Eventsub-Message-Signature");
+        String messageType = header(exchange, "Twitch-Eventsub-Message-Type");
+
+        if (!verifier.verifyTwitch(messageId, timestamp, body, signature)) {
+            return respond(exchange, 403, "", "bad_signature");
+        }
+        if (!verifier.isFresh(timestamp)) {
+            return respond(exchange, 403, "", "expired");
+        }
+        if (!verifier.markSeen("twitch:" + messageId)) {
+            // Already handled, Twitch retries until it gets a 2xx
+            return respond(exchange, 204, "", "duplicate");
+        }
+
+        Object message = JsonTree.parse(new String(body, StandardCharsets.UTF_8));
+        switch (messageType) {
+            case "webhook_callback_verification" -> {
+                exchange.getResponseHeaders().set("Content-Type", "text/plain");
+                return respond(exchange, 200, JsonTree.string(message, "challenge"), "challenge");
+            }
+            case "revocation" -> {
+                Map<String, Object> subscription = JsonTree.object(message, "subscription");
+                plugin.getLogger().warn("Twitch revoked the " + JsonTree.string(subscription, "type")
+                        + " subscription: " + JsonTree.string(subscription, "status"));
+                return respond(exchange, 204, "", "revocation");
+            }
+            case "notification" -> {
+                String type = JsonTree.string(JsonTree.object(message, "subscription"), "type");
+                String login = JsonTree.string(JsonTree.object(message, "event"), "broadcaster_user_login");
+                Streamer streamer = find(StreamerPlatform.TWITCH, login);
+                if (streamer == null) {
+                    return respond(exchange, 204, "", "unknown_streamer");
+                }
+
+                // Answer first, Twitch expects a response within a few seconds
+                respond(exchange, 204, "", "");
+                switch (type) {
+                    case "stream.online" -> listener.accept(streamer,
+                            StreamStatus.live(StreamerPlatform.TWITCH.getStreamUrl(login), ""));
+                    case "stream.offline" -> listener.accept(streamer, StreamStatus.offline());
+                    default -> {
+                        return "ignored";
+                    }
+                }
+                return "ok";
+            }
+            default -> {
+                return respond(exchange, 204, "", "ignored");
+            }
+        }
+    }
+
+    private String handleYouTube(HttpExchange exchange, byte[] body) throws IOException {
+        if ("GET".equals(exchange.getRequestMethod())) {
+            // Subscription verification, only confirm topics for configured channels
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String topic = query.getOrDefault("hub.topic", "");
+            Map<String, String> topicQuery = parseQuery(topic.contains("?") ? topic.substring(topic.indexOf('?') + 1) : "");
+            if (find(StreamerPlatform.YOUTUBE, topicQuery.getOrDefault("channel_id", "")) == null) {
+                return respond(exchange, 404, "", "unknown_streamer");
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/plain");
+            return respond(exchange, 200, query.getOrDefault("hub.challenge", ""), "challenge");
+        }
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            return respond(exchange, 405, "", "bad_method");
+        }
+
+        // The hub expects a 2xx even for bad signatures, the content is ignored instead
+        if (!verifier.verifyYouTube(body, header(exchange, "X-Hub-Signature"))) {
+            return respond(exchange, 204, "", "bad_signature");
+        }
+
+        String feed = new String(body, StandardCharsets.UTF_8);
+        Matcher channel = CHANNEL_ID.matcher(feed);
+        Matcher video = VIDEO_ID.matcher(feed);
+        if (!channel.find() || !video.find()) {
+            // Deleted entries carry no channel or video id
+            return respond(exchange, 204, "", "ignored");
+        }
+        if (!verifier.markSeen("youtube:" + HexFormat.of().formatHex(sha256(body)))) {
+            return respond(exchange, 204, "", "duplicate");
+        }
+
+        Streamer streamer = find(StreamerPlatform.YOUTUBE, channel.group(1));
+        if (streamer == null) {
+            return respond(exchange, 204, "", "unknown_streamer");
+        }
+
+        // Check soon rather than waiting for the interval
+        recheck.accept(streamer);
+        return respond(exchange, 204, "", "ok");
+    }
+
+    private Streamer find(StreamerPlatform platform, String id) {
+        if (id.isEmpty()) {
+            return null;
+        }
+        for (Streamer streamer : streamers.get()) {
+            if (streamer.getPlatform() == platform && streamer.getId().equalsIgnoreCase(id)) {
+                return streamer;
+            }
+        }
+        return null;
+    }
+
+    // HTTP helpers
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return CallbackVerifier.readBody(in);
+        }
+    }
+
+    private static String respond(HttpExchange exchange, int status, String body, String result) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+        return result;
+    }
+
+    private static String header(HttpExchange exchange, String name) {
+        String value = exchange.getRequestHeaders().getFirst(name);
+        return value != null ? value : "";
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new LinkedHashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            String key = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            params.putIfAbsent(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
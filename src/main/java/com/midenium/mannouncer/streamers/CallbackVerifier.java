@@ -0,0 +1,122 @@
+package com.midenium.mannouncer.streamers;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The checks a stream callback has to pass before the {@link CallbackListener} acts on it: the
+ * body size limit, the platform's HMAC signature, the message age and replay protection.
+ */
+final class CallbackVerifier {
+
+    static final int MAX_BODY_BYTES = 64 * 1024;
+    static final int MAX_SEEN_MESSAGES = 10_000;
+
+    private final byte[] secret;
+    private final int maxAge;
+    private final Clock clock;
+    // Message id to arrival time, guarded by itself
+    private final Map<String, Long> seenMessages = new LinkedHashMap<>();
+
+    /**
+     * @param secret Secret shared with the platform
+     * @param maxAge Seconds a message stays valid and is remembered for replay protection
+     * @param clock Clock for the age checks
+     */
+    CallbackVerifier(byte[] secret, int maxAge, Clock clock) {
+        this.secret = secret.clone();
+        this.maxAge = maxAge;
+        this.clock = clock;
+    }
+
+    /**
+     * Twitch EventSub signs the message id, the timestamp and the raw body with HMAC-SHA256
+     *
+     * @param signature {@code Twitch-Eventsub-Message-Signature} header, {@code sha256=<hex>}
+     */
+    boolean verifyTwitch(String messageId, String timestamp, byte[] body, String signature) {
+        byte[] prefix = (messageId + timestamp).getBytes(StandardCharsets.UTF_8);
+        byte[] signed = new byte[prefix.length + body.length];
+        System.arraycopy(prefix, 0, signed, 0, prefix.length);
+        System.arraycopy(body, 0, signed, prefix.length, body.length);
+        return verify("HmacSHA256", "sha256=", signed, signature);
+    }
+
+    /**
+     * WebSub hubs sign the raw body with HMAC-SHA1
+     *
+     * @param signature {@code X-Hub-Signature} header, {@code sha1=<hex>}
+     */
+    boolean verifyYouTube(byte[] body, String signature) {
+        return verify("HmacSHA1", "sha1=", body, signature);
+    }
+
+    /**
+     * @param timestamp RFC 3339 timestamp sent with the message
+     * @return Whether it lies within {@code maxAge} seconds of now, either way
+     */
+    boolean isFresh(String timestamp) {
+        try {
+            Duration age = Duration.between(Instant.parse(timestamp), clock.instant());
+            return age.abs().getSeconds() <= maxAge;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return Whether the message is new, remembering it for the replay window
+     */
+    boolean markSeen(String messageId) {
+        long now = clock.millis();
+        long cutoff = now - maxAge * 1000L;
+        synchronized (seenMessages) {
+            // Entries are in arrival order, drop the ones past the replay window
+            Iterator<Long> arrivals = seenMessages.values().iterator();
+            while (arrivals.hasNext()) {
+                long arrival = arrivals.next();
+                if (arrival >= cutoff && seenMessages.size() < MAX_SEEN_MESSAGES) {
+                    break;
+                }
+                arrivals.remove();
+            }
+            return seenMessages.putIfAbsent(messageId, now) == null;
+        }
+    }
+
+    /**
+     * @return The body, or null if it is larger than {@link #MAX_BODY_BYTES}
+     */
+    static byte[] readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+        return body.length > MAX_BODY_BYTES ? null : body;
+    }
+
+    private boolean verify(String algorithm, String prefix, byte[] data, String signature) {
+        if (!signature.startsWith(prefix)) {
+            return false;
+        }
+        try {
+            Mac mac = Mac.getInstance(algorithm);
+            mac.init(new SecretKeySpec(secret, algorithm));
+            byte[] expected = mac.doFinal(data);
+            byte[] actual = HexFormat.of().parseHex(signature.substring(prefix.length()));
+            return MessageDigest.isEqual(expected, actual);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.midenium.mannouncer.streamers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Base for providers that query a platform's HTTP API.
+ * <p>
+ * Responses that carry an ETag are remembered per URL, and the next request for the same URL
+ * is made conditional with If-None-Match. A 304 answer reuses the remembered body, which
+ * platforms typically don't count against rate limits or quota the way a full response is.
+ */
+public abstract class HttpStatusProvider implements StreamerStatusProvider {
+
+    private static final String USER_AGENT = "mAnnouncer (Velocity plugin)";
+    private static final int MAX_CACHED_RESPONSES = 1024;
+
+    private record CachedResponse(String etag, String body) {
+    }
+
+    // Guarded by itself
+    private final Map<String, CachedResponse> responseCache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+            return size() > MAX_CACHED_RESPONSES;
+        }
+    };
+    private final LongAdder notModified = new LongAdder();
+
+    protected final HttpClient client;
+    protected final String apiUrl;
+    protected final Duration timeout;
+
+    protected HttpStatusProvider(HttpClient client, String apiUrl, Duration timeout) {
+        this.client = client;
+        this.apiUrl = apiUrl.endsWith("/") ? apiUrl.substring(0, apiUrl.length() - 1) : apiUrl;
+        this.timeout = timeout;
+    }
+
+    protected HttpRequest.Builder request(String pathAndQuery) {
+        return HttpRequest.newBuilder(URI.create(apiUrl + pathAndQuery))
+                .timeout(timeout)
+                .header("Accept", "application/json")
+                .header("User-Agent", USER_AGENT);
+    }
+
+    protected HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Send a request and return the body of a successful response
+     */
+    protected String sendForBody(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(request);
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException(getName() + " API answered HTTP " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    /**
+     * Send a GET request conditionally, reusing the last body for this URL if it didn't change
+     *
+     * @param request The request builder, If-None-Match is added when an ETag is known
+     * @return The response, with the remembered body substituted for a 304
+     */
+    protected ConditionalResponse sendConditional(HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpRequest built = request.copy().build();
+        String key = built.uri().toString();
+
+        CachedResponse cached;
+        synchronized (responseCache) {
+            cached = responseCache.get(key);
+        }
+        if (cached != null) {
+            built = request.copy().header("If-None-Match", cached.etag()).build();
+        }
+
+        HttpResponse<String> response = send(built);
+        if (response.statusCode() == 304 && cached != null) {
+            notModified.increment();
+            return new ConditionalResponse(200, cached.body(), true);
+        }
+
+        if (response.statusCode() / 100 == 2) {
+            Optional<String> etag = response.headers().firstValue("ETag");
+            synchronized (responseCache) {
+                if (etag.isPresent()) {
+                    responseCache.put(key, new CachedResponse(etag.get(), response.body()));
+                } else {
+                    responseCache.remove(key);
+                }
+            }
+        }
+        return new ConditionalResponse(response.statusCode(), response.body(), false);
+    }
+
+    /**
+     * @param statusCode HTTP status, 200 when a cached body was reused
+     * @param body The response body
+     * @param notModified Whether the platform answered 304 and the cached body was used
+     */
+    protected record ConditionalResponse(int statusCode, String body, boolean notModified) {
+    }
+
+    /**
+     * @return Number of requests answered with 304 Not Modified
+     */
+    public long getNotModifiedCount() {
+        return notModified.sum();
+    }
+
+    protected static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
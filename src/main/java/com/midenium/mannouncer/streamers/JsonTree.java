@@ -0,0 +1,95 @@
+package com.midenium.mannouncer.streamers;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON reader for platform API responses. Parses into plain maps, lists, strings,
+ * numbers and booleans with jackson-core's streaming parser.
+ */
+final class JsonTree {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private JsonTree() {
+    }
+
+    static Object parse(String json) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(json)) {
+            JsonToken token = parser.nextToken();
+            return token == null ? null : readValue(parser, token);
+        }
+    }
+
+    private static Object readValue(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT -> {
+                Map<String, Object> map = new HashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    map.put(name, readValue(parser, parser.nextToken()));
+                }
+                return map;
+            }
+            case START_ARRAY -> {
+                List<Object> list = new ArrayList<>();
+                JsonToken next;
+                while ((next = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    list.add(readValue(parser, next));
+                }
+                return list;
+            }
+            case VALUE_STRING -> {
+                return parser.getText();
+            }
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> {
+                return parser.getNumberValue();
+            }
+            case VALUE_TRUE -> {
+                return Boolean.TRUE;
+            }
+            case VALUE_FALSE -> {
+                return Boolean.FALSE;
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    // Helpers for navigating parsed responses
+    static Map<String, Object> object(Object value, String key) {
+        if (value instanceof Map<?, ?> map && map.get(key) instanceof Map<?, ?> child) {
+            return (Map<String, Object>) child;
+        }
+        return null;
+    }
+
+    static List<Object> array(Object value, String key) {
+        if (value instanceof Map<?, ?> map && map.get(key) instanceof List<?> list) {
+            return (List<Object>) list;
+        }
+        return List.of();
+    }
+
+    static String string(Object value, String key) {
+        if (value instanceof Map<?, ?> map && map.get(key) != null) {
+            return map.get(key).toString();
+        }
+        return "";
+    }
+
+    static long number(Object value, String key, long defaultValue) {
+        if (value instanceof Map<?, ?> map && map.get(key) instanceof Number number) {
+            return number.longValue();
+        }
+        return defaultValue;
+    }
+}
@@ -0,0 +1,43 @@
+package com.midenium.mannouncer.streamers;
+
+import com.midenium.mannouncer.models.Streamer;
+import com.midenium.mannouncer.models.StreamerPlatform;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Kick live status through the public channel endpoint, a channel is live while it has a livestream
+ */
+public class KickStatusProvider extends HttpStatusProvider {
+
+    public KickStatusProvider(HttpClient client, String apiUrl, Duration timeout) {
+        super(client, apiUrl, timeout);
+    }
+
+    @Override
+    public String getName() {
+        return "kick";
+    }
+
+    @Override
+    public StreamStatus fetchStatus(Streamer streamer) throws Exception {
+        ConditionalResponse response = sendConditional(request("/channels/" + encode(streamer.getId())).GET());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("kick API answered HTTP " + response.statusCode());
+        }
+        String body = response.body();
+
+        Map<String, Object> livestream = JsonTree.object(JsonTree.parse(body), "livestream");
+        if (livestream == null || Boolean.FALSE.equals(livestream.get("is_live"))) {
+            return StreamStatus.offline();
+        }
+
+        return StreamStatus.live(
+                StreamerPlatform.KICK.getStreamUrl(streamer.getId()),
+                JsonTree.string(livestream, "session_title")
+        );
+    }
+}
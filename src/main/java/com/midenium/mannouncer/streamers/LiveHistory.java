@@ -0,0 +1,197 @@
+package com.midenium.mannouncer.streamers;
+
+import java.util.StringJoiner;
+
+/**
+ * Compact record of when a streamer went live and offline.
+ * <p>
+ * The last {@value #MAX_TRANSITIONS} transitions are kept in a ring buffer, and every go-live is
+ * also counted in one of the 168 hours of the week (UTC). The hour counts are halved once one of
+ * them reaches {@value #MAX_HOUR_COUNT}, so recent habits outweigh old ones.
+ */
+public final class LiveHistory {
+
+    static final int HOURS_PER_WEEK = 168;
+    private static final int MAX_TRANSITIONS = 32;
+    private static final int MAX_HOUR_COUNT = 64;
+    private static final long HOUR_MILLIS = 3_600_000L;
+
+    // Transition times, negative for went offline
+    private final long[] transitions = new long[MAX_TRANSITIONS];
+    private final short[] liveStartsByHour = new short[HOURS_PER_WEEK];
+    private final long trackedSince;
+    private int transitionCount;
+    private int nextTransition;
+    // Last observed state, null until the first successful check
+    private Boolean lastLive;
+
+    public LiveHistory(long trackedSince) {
+        this.trackedSince = trackedSince;
+    }
+
+    /**
+     * Record the result of a status check
+     *
+     * @param live Whether the streamer is live
+     * @param now Time of the check
+     * @return Whether the state changed since the previous observation. The first observation
+     *         only sets the baseline, a streamer found live then didn't go live at that time.
+     */
+    public synchronized boolean observe(boolean live, long now) {
+        Boolean previous = lastLive;
+        lastLive = live;
+        if (previous == null || previous == live) {
+            return false;
+        }
+
+        transitions[nextTransition] = live ? now : -now;
+        nextTransition = (nextTransition + 1) % MAX_TRANSITIONS;
+        transitionCount = Math.min(MAX_TRANSITIONS, transitionCount + 1);
+
+        if (live) {
+            int hour = hourOfWeek(now);
+            if (++liveStartsByHour[hour] >= MAX_HOUR_COUNT) {
+                for (int i = 0; i < HOURS_PER_WEEK; i++) {
+                    liveStartsByHour[i] >>= 1;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Time of the most recent transition, or when tracking began if there was none
+     */
+    public synchronized long getLastActivity() {
+        if (transitionCount == 0) {
+            return trackedSince;
+        }
+        return Math.abs(transitions[(nextTransition + MAX_TRANSITIONS - 1) % MAX_TRANSITIONS]);
+    }
+
+    /**
+     * @return Time the streamer last went offline, or 0 if not seen
+     */
+    public synchronized long getLastOffline() {
+        for (int i = 1; i <= transitionCount; i++) {
+            long transition = transitions[(nextTransition + MAX_TRANSITIONS - i) % MAX_TRANSITIONS];
+            if (transition < 0) {
+                return -transition;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * Share of the remembered go-lives that happened within a window around this time of the week
+     *
+     * @param now Current time
+     * @param hoursBefore Hours before the current one to include
+     * @param hoursAfter Hours after the current one to include
+     * @return Fraction between 0 and 1, 0 without any go-live on record
+     */
+    public synchronized double weeklyShare(long now, int hoursBefore, int hoursAfter) {
+        int total = totalStarts();
+        if (total == 0) {
+            return 0.0;
+        }
+
+        int hour = hourOfWeek(now);
+        int inWindow = 0;
+        for (int offset = -hoursBefore; offset <= hoursAfter; offset++) {
+            inWindow += liveStartsByHour[Math.floorMod(hour + offset, HOURS_PER_WEEK)];
+        }
+        return (double) inWindow / total;
+    }
+
+    /**
+     * Like {@link #weeklyShare} but ignoring the day, for streamers who keep the same hours on different days
+     */
+    public synchronized double dailyShare(long now, int hoursBefore, int hoursAfter) {
+        int total = totalStarts();
+        if (total == 0) {
+            return 0.0;
+        }
+
+        int hour = hourOfWeek(now) % 24;
+        int inWindow = 0;
+        for (int offset = -hoursBefore; offset <= hoursAfter; offset++) {
+            int hourOfDay = Math.floorMod(hour + offset, 24);
+            for (int day = 0; day < 7; day++) {
+                inWindow += liveStartsByHour[day * 24 + hourOfDay];
+            }
+        }
+        return (double) inWindow / total;
+    }
+
+    public synchronized int totalStarts() {
+        int total = 0;
+        for (short count : liveStartsByHour) {
+            total += count;
+        }
+        return total;
+    }
+
+    static int hourOfWeek(long millis) {
+        // The epoch was a Thursday, shift so the week starts on Monday
+        return (int) Math.floorMod(millis / HOUR_MILLIS + 72, HOURS_PER_WEEK);
+    }
+
+    /**
+     * @return The history as a single line of text, read back by {@link #decode}
+     */
+    public synchronized String encode() {
+        StringJoiner hours = new StringJoiner(",");
+        for (short count : liveStartsByHour) {
+            hours.add(Short.toString(count));
+        }
+
+        StringJoiner recent = new StringJoiner(",");
+        for (int i = transitionCount; i >= 1; i--) {
+            recent.add(Long.toString(transitions[(nextTransition + MAX_TRANSITIONS - i) % MAX_TRANSITIONS]));
+        }
+
+        String state = lastLive == null ? "-" : lastLive ? "1" : "0";
+        return trackedSince + ";" + state + ";" + hours + ";" + recent;
+    }
+
+    /**
+     * @param line Text written by {@link #encode}
+     * @return The history
+     * @throws IllegalArgumentException If the line is malformed
+     */
+    public static LiveHistory decode(String line) {
+        String[] parts = line.split(";", -1);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("expected 4 fields, got " + parts.length);
+        }
+
+        try {
+            LiveHistory history = new LiveHistory(Long.parseLong(parts[0]));
+            history.lastLive = switch (parts[1]) {
+                case "1" -> Boolean.TRUE;
+                case "0" -> Boolean.FALSE;
+                default -> null;
+            };
+
+            String[] hours = parts[2].split(",");
+            if (hours.length != HOURS_PER_WEEK) {
+                throw new IllegalArgumentException("expected " + HOURS_PER_WEEK + " hour counts, got " + hours.length);
+            }
+            for (int i = 0; i < HOURS_PER_WEEK; i++) {
+                history.liveStartsByHour[i] = (short) Math.min(MAX_HOUR_COUNT - 1, Math.max(0, Integer.parseInt(hours[i])));
+            }
+
+            if (!parts[3].isEmpty()) {
+                for (String transition : parts[3].split(",")) {
+                    history.transitions[history.nextTransition] = Long.parseLong(transition);
+                    history.nextTransition = (history.nextTransition + 1) % MAX_TRANSITIONS;
+                    history.transitionCount = Math.min(MAX_TRANSITIONS, history.transitionCount + 1);
+                }
+            }
+            return history;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("malformed number", e);
+        }
+    }
+}
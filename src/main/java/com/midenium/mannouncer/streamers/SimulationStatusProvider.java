@@ -0,0 +1,44 @@
+package com.midenium.mannouncer.streamers;
+
+import com.midenium.mannouncer.models.Streamer;
+import com.midenium.mannouncer.models.StreamerPlatform;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Fake live status for trying announcements without platform credentials.
+ * A streamer goes live roughly once every {@code change-probability} checks.
+ */
+public class SimulationStatusProvider implements StreamerStatusProvider {
+
+    private final IntSupplier changeProbability;
+
+    /**
+     * @param changeProbability Supplier of the configured change probability, read on every check
+     */
+    public SimulationStatusProvider(IntSupplier changeProbability) {
+        this.changeProbability = changeProbability;
+    }
+
+    @Override
+    public String getName() {
+        return "simulation";
+    }
+
+    @Override
+    public StreamStatus fetchStatus(Streamer streamer) {
+        int probability = Math.max(1, changeProbability.getAsInt());
+        long now = System.currentTimeMillis();
+        String streamerId = streamer.getId();
+        StreamerPlatform platform = streamer.getPlatform();
+
+        // Each platform uses a slightly different pattern so they don't all flip together
+        boolean isLive = switch (platform) {
+            case TWITCH -> (streamerId.hashCode() + now) % probability == 0;
+            case KICK -> (streamerId.hashCode() + now / 1000) % probability == 1;
+            case YOUTUBE -> (streamerId.hashCode() + now / 5000) % probability == 2;
+        };
+
+        return isLive ? StreamStatus.live(platform.getStreamUrl(streamerId), "") : StreamStatus.offline();
+    }
+}
@@ -0,0 +1,21 @@
+package com.midenium.mannouncer.streamers;
+
+/**
+ * Live status of a streamer as reported by a {@link StreamerStatusProvider}
+ *
+ * @param live Whether the streamer is live right now
+ * @param streamUrl Link to the stream, empty to use the platform's default channel URL
+ * @param title Title of the stream, empty if unknown or offline
+ */
+public record StreamStatus(boolean live, String streamUrl, String title) {
+
+    private static final StreamStatus OFFLINE = new StreamStatus(false, "", "");
+
+    public static StreamStatus offline() {
+        return OFFLINE;
+    }
+
+    public static StreamStatus live(String streamUrl, String title) {
+        return new StreamStatus(true, streamUrl != null ? streamUrl : "", title != null ? title : "");
+    }
+}
@@ -0,0 +1,211 @@
+package com.midenium.mannouncer.streamers;
+
+import com.midenium.mannouncer.MAnnouncer;
+import com.midenium.mannouncer.metrics.Counter;
+import com.midenium.mannouncer.metrics.Histogram;
+import com.midenium.mannouncer.metrics.PluginMetrics;
+import com.midenium.mannouncer.models.Streamer;
+import com.midenium.mannouncer.models.StreamerPlatform;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Polls streamer status through the provider registered for each platform.
+ * <p>
+ * A one second ticker picks the streamers whose own check interval has elapsed, groups them per
+ * platform into batches the provider can answer with one lookup and checks each batch on a
+ * virtual thread. Every platform has its own concurrency limit and timeout, so a slow or
+ * unreachable API only delays the streamers on that platform.
+ */
+public class StreamerPoller {
+
+    private final MAnnouncer plugin;
+    private final Supplier<Collection<Streamer>> streamers;
+    private final BiConsumer<Streamer, StreamStatus> listener;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("mAnnouncer-streamer-", 0).factory());
+    private final Map<StreamerPlatform, Lane> lanes = new ConcurrentHashMap<>();
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private ScheduledTask ticker;
+
+    /**
+     * A provider with its limits and metric series, looked up once when it is registered
+     *
+     * @param checks Check counters by result
+     */
+    private record Lane(StreamerStatusProvider provider, Semaphore permits, Duration timeout,
+                        Counter statuses, Histogram checkSeconds, Histogram batchSize, Map<String, Counter> checks) {
+    }
+
+    private static final List<String> RESULTS = List.of("ok", "error", "timeout", "cancelled");
+
+    /**
+     * @param plugin Plugin instance
+     * @param streamers Supplier of the streamers to poll, read on every tick
+     * @param listener Receives every successfully fetched status
+     */
+    public StreamerPoller(MAnnouncer plugin, Supplier<Collection<Streamer>> streamers,
+                          BiConsumer<Streamer, StreamStatus> listener) {
+        this.plugin = plugin;
+        this.streamers = streamers;
+        this.listener = listener;
+    }
+
+    /**
+     * Use a provider for all streamers of a platform, replacing the current one
+     *
+     * @param platform The platform
+     * @param provider The provider
+     * @param maxConcurrent Checks allowed to run against the provider at once
+     * @param timeout Time after which a check is abandoned
+     */
+    public void registerProvider(StreamerPlatform platform, StreamerStatusProvider provider,
+                                 int maxConcurrent, Duration timeout) {
+        PluginMetrics metrics = plugin.getPluginMetrics();
+        String providerName = provider.getName();
+        Map<String, Counter> checks = new HashMap<>();
+        for (String result : RESULTS) {
+            checks.put(result, metrics.counter("mannouncer_streamer_checks_total",
+                    "Streamer status requests by provider and result", "provider", providerName, "result", result));
+        }
+        lanes.put(platform, new Lane(provider, new Semaphore(Math.max(1, maxConcurrent)), timeout,
+                metrics.counter("mannouncer_streamer_statuses_total", "Streamer statuses received by provider",
+                        "provider", providerName),
+                metrics.histogram("mannouncer_streamer_check_seconds", "Time spent on one streamer status request",
+                        PluginMetrics.LATENCY_BUCKETS, "provider", providerName),
+                metrics.histogram("mannouncer_streamer_batch_size", "Streamers looked up per status request",
+                        PluginMetrics.SIZE_BUCKETS, "provider", providerName),
+                Map.copyOf(checks)));
+    }
+
+    public void unregisterProvider(StreamerPlatform platform) {
+        lanes.remove(platform);
+    }
+
+    /**
+     * @param platform The platform
+     * @return The provider checking the platform's streamers, or null
+     */
+    public StreamerStatusProvider getProvider(StreamerPlatform platform) {
+        Lane lane = lanes.get(platform);
+        return lane != null ? lane.provider() : null;
+    }
+
+    public synchronized void start() {
+        if (ticker == null) {
+            ticker = plugin.getServer().getScheduler().buildTask(plugin, this::poll)
+                    .repeat(1, TimeUnit.SECONDS)
+                    .schedule();
+        }
+    }
+
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.cancel();
+            ticker = null;
+        }
+        executor.shutdownNow();
+    }
+
+    private void poll() {
+        Map<StreamerPlatform, List<Streamer>> due = new EnumMap<>(StreamerPlatform.class);
+        long now = System.currentTimeMillis();
+
+        for (Streamer streamer : streamers.get()) {
+            if (!streamer.shouldCheck()) {
+                continue;
+            }
+            if (!lanes.containsKey(streamer.getPlatform()) || !inFlight.add(streamer.getId())) {
+                // No provider for this platform, or the previous check is still running
+                continue;
+            }
+            streamer.setLastCheck(now);
+            due.computeIfAbsent(streamer.getPlatform(), platform -> new ArrayList<>()).add(streamer);
+        }
+
+        for (Map.Entry<StreamerPlatform, List<Streamer>> entry : due.entrySet()) {
+            Lane lane = lanes.get(entry.getKey());
+            List<Streamer> pending = entry.getValue();
+            if (lane == null) {
+                pending.forEach(streamer -> inFlight.remove(streamer.getId()));
+                continue;
+            }
+
+            // Sorted so a recurring batch maps to the same request URL, which keeps ETags useful
+            pending.sort(Comparator.comparing(Streamer::getId));
+            int batchSize = Math.max(1, lane.provider().getMaxBatchSize());
+            for (int from = 0; from < pending.size(); from += batchSize) {
+                List<Streamer> batch = List.copyOf(pending.subList(from, Math.min(pending.size(), from + batchSize)));
+                try {
+                    executor.execute(() -> check(batch, lane));
+                } catch (RuntimeException e) {
+                    // Executor already shut down
+                    batch.forEach(streamer -> inFlight.remove(streamer.getId()));
+                }
+            }
+        }
+    }
+
+    private void check(List<Streamer> batch, Lane lane) {
+        String providerName = lane.provider().getName();
+        String result = "error";
+
+        try {
+            lane.permits().acquire();
+            long start = System.nanoTime();
+            Future<Map<String, StreamStatus>> future = executor.submit(() -> lane.provider().fetchStatuses(batch));
+            try {
+                Map<String, StreamStatus> statuses = future.get(lane.timeout().toMillis(), TimeUnit.MILLISECONDS);
+                result = "ok";
+                for (Streamer streamer : batch) {
+                    StreamStatus status = statuses.get(streamer.getId());
+                    if (status != null) {
+                        listener.accept(streamer, status);
+                    }
+                }
+                lane.statuses().add(statuses.size());
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                result = "timeout";
+                plugin.getLogger().warn("Status check for " + describe(batch) + " on " + providerName + " timed out");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                plugin.getLogger().warn("Status check for " + describe(batch) + " on " + providerName
+                        + " failed: " + cause.getMessage());
+            } finally {
+                lane.permits().release();
+                lane.checkSeconds().observeSince(start);
+                lane.batchSize().observe(batch.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = "cancelled";
+        } finally {
+            batch.forEach(streamer -> inFlight.remove(streamer.getId()));
+            lane.checks().get(result).increment();
+        }
+    }
+
+    private static String describe(List<Streamer> batch) {
+        return batch.size() == 1 ? batch.get(0).getId() : batch.size() + " streamers";
+    }
+}
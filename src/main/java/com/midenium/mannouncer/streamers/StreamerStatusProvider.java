@@ -0,0 +1,55 @@
+package com.midenium.mannouncer.streamers;
+
+import com.midenium.mannouncer.models.Streamer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Source of live status for the streamers of one platform.
+ * <p>
+ * Implementations are called from virtual threads, so they may block on I/O. The poller groups
+ * due streamers into batches of up to {@link #getMaxBatchSize()}, limits how many lookups run
+ * against one provider at a time and abandons lookups that exceed the platform's timeout.
+ * Other plugins can plug in their own provider through {@link StreamerPoller#registerProvider}.
+ */
+public interface StreamerStatusProvider {
+
+    /**
+     * @return Name of the provider, used in logs and metrics
+     */
+    String getName();
+
+    /**
+     * Look up the current status of a streamer
+     *
+     * @param streamer The streamer
+     * @return The current status
+     * @throws Exception If the status could not be determined, the streamer's state is left unchanged
+     */
+    StreamStatus fetchStatus(Streamer streamer) throws Exception;
+
+    /**
+     * @return How many streamers {@link #fetchStatuses} accepts in one call
+     */
+    default int getMaxBatchSize() {
+        return 1;
+    }
+
+    /**
+     * Look up the current status of several streamers at once. Providers whose platform
+     * supports multi-streamer queries override this to use a single request.
+     *
+     * @param streamers The streamers, at most {@link #getMaxBatchSize()}
+     * @return Status by streamer id, streamers left out keep their current state
+     * @throws Exception If the lookup failed as a whole
+     */
+    default Map<String, StreamStatus> fetchStatuses(List<Streamer> streamers) throws Exception {
+        Map<String, StreamStatus> statuses = new HashMap<>();
+        for (Streamer streamer : streamers) {
+            statuses.put(streamer.getId(), fetchStatus(streamer));
+        }
+        return statuses;
+    }
+}
@@ -0,0 +1,129 @@
+package com.midenium.mannouncer.streamers;
+
+import com.midenium.mannouncer.models.Streamer;
+import com.midenium.mannouncer.models.StreamerPlatform;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Twitch live status through the Helix streams endpoint, authenticated with an app access
+ * token obtained by the client credentials flow. Up to 100 streamers are looked up per request.
+ */
+public class TwitchStatusProvider extends HttpStatusProvider {
+
+    /** Helix accepts up to 100 user_login parameters per streams request */
+    private static final int MAX_LOGINS_PER_REQUEST = 100;
+
+    private final String authUrl;
+    private final String clientId;
+    private final String clientSecret;
+
+    // Guarded by this
+    private String accessToken;
+    private long tokenExpiresAt;
+
+    public TwitchStatusProvider(HttpClient client, String apiUrl, String authUrl, String clientId,
+                                String clientSecret, Duration timeout) {
+        super(client, apiUrl, timeout);
+        this.authUrl = authUrl;
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+    }
+
+    @Override
+    public String getName() {
+        return "twitch";
+    }
+
+    @Override
+    public StreamStatus fetchStatus(Streamer streamer) throws Exception {
+        return fetchStatuses(List.of(streamer)).get(streamer.getId());
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return MAX_LOGINS_PER_REQUEST;
+    }
+
+    @Override
+    public Map<String, StreamStatus> fetchStatuses(List<Streamer> streamers) throws Exception {
+        StringBuilder query = new StringBuilder("/streams?first=").append(MAX_LOGINS_PER_REQUEST);
+        for (Streamer streamer : streamers) {
+            query.append("&user_login=").append(encode(streamer.getId().toLowerCase(Locale.ROOT)));
+        }
+        String path = query.toString();
+
+        ConditionalResponse response = sendConditional(streamsRequest(path, getAccessToken()));
+        if (response.statusCode() == 401) {
+            // Token expired or was revoked, get a new one and try once more
+            invalidateToken();
+            response = sendConditional(streamsRequest(path, getAccessToken()));
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("twitch API answered HTTP " + response.statusCode());
+        }
+
+        // Only live channels are listed, everyone else in the batch is offline
+        Map<String, StreamStatus> live = new HashMap<>();
+        for (Object stream : JsonTree.array(JsonTree.parse(response.body()), "data")) {
+            String login = JsonTree.string(stream, "user_login");
+            live.put(login.toLowerCase(Locale.ROOT), StreamStatus.live(
+                    StreamerPlatform.TWITCH.getStreamUrl(login),
+                    JsonTree.string(stream, "title")
+            ));
+        }
+
+        Map<String, StreamStatus> statuses = new HashMap<>();
+        for (Streamer streamer : streamers) {
+            statuses.put(streamer.getId(),
+                    live.getOrDefault(streamer.getId().toLowerCase(Locale.ROOT), StreamStatus.offline()));
+        }
+        return statuses;
+    }
+
+    private HttpRequest.Builder streamsRequest(String path, String token) {
+        return request(path)
+                .header("Client-Id", clientId)
+                .header("Authorization", "Bearer " + token)
+                .GET();
+    }
+
+    private synchronized String getAccessToken() throws IOException, InterruptedException {
+        if (accessToken != null && System.currentTimeMillis() < tokenExpiresAt) {
+            return accessToken;
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(authUrl))
+                .timeout(timeout)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("client_id=" + encode(clientId)
+                        + "&client_secret=" + encode(clientSecret)
+                        + "&grant_type=client_credentials"))
+                .build();
+
+        Object body = JsonTree.parse(sendForBody(request));
+        String token = JsonTree.string(body, "access_token");
+        if (token.isEmpty()) {
+            throw new IOException("twitch token response has no access_token");
+        }
+
+        // Renew a minute early so requests never race the expiry
+        long expiresIn = JsonTree.number(body, "expires_in", 3600L);
+        accessToken = token;
+        tokenExpiresAt = System.currentTimeMillis() + Math.max(0L, expiresIn - 60L) * 1000L;
+        return accessToken;
+    }
+
+    private synchronized void invalidateToken() {
+        accessToken = null;
+        tokenExpiresAt = 0L;
+    }
+}
@@ -0,0 +1,55 @@
+package com.midenium.mannouncer.streamers;
+
+import com.midenium.mannouncer.models.Streamer;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * YouTube live status through the Data API search endpoint, looking for a live broadcast
+ * on the streamer's channel. The streamer id is the channel id.
+ */
+public class YouTubeStatusProvider extends HttpStatusProvider {
+
+    private static final String WATCH_URL = "https://youtube.com/watch?v=";
+
+    private final String apiKey;
+
+    public YouTubeStatusProvider(HttpClient client, String apiUrl, String apiKey, Duration timeout) {
+        super(client, apiUrl, timeout);
+        this.apiKey = apiKey;
+    }
+
+    @Override
+    public String getName() {
+        return "youtube";
+    }
+
+    @Override
+    public StreamStatus fetchStatus(Streamer streamer) throws Exception {
+        // Search has no multi-channel form, but answers 304 for unchanged results
+        ConditionalResponse response = sendConditional(request("/search?part=snippet&type=video&eventType=live&maxResults=1"
+                + "&channelId=" + encode(streamer.getId())
+                + "&key=" + encode(apiKey)).GET());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("youtube API answered HTTP " + response.statusCode());
+        }
+        String body = response.body();
+
+        List<Object> items = JsonTree.array(JsonTree.parse(body), "items");
+        if (items.isEmpty()) {
+            return StreamStatus.offline();
+        }
+
+        Object item = items.get(0);
+        Map<String, Object> id = JsonTree.object(item, "id");
+        String videoId = JsonTree.string(id, "videoId");
+        return StreamStatus.live(
+                videoId.isEmpty() ? "" : WATCH_URL + videoId,
+                JsonTree.string(JsonTree.object(item, "snippet"), "title")
+        );
+    }
+}
@@ -0,0 +1,551 @@
+package com.midenium.mannouncer.tasks;
+
+import com.midenium.mannouncer.models.Announcement;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Deadline ordered scheduler for recurring announcements.
+ * <p>
+ * Every scheduled announcement has one entry in a priority queue keyed on its next fire time.
+ * A single worker thread sleeps until the earliest deadline, so idle time costs nothing and
+ * intervals below one second are supported. Entries are rescheduled at a fixed rate from their
+ * previous deadline so intervals don't drift.
+ * <p>
+ * Entries of servers without players are parked: they leave the queue until the server is
+ * occupied again and then rejoin at the next deadline of their original fixed-rate grid, so
+ * empty servers never wake the worker.
+ * <p>
+ * Unless the phase policy is {@link PhasePolicy#NONE}, every grid is anchored to wall-clock time
+ * at an offset chosen per announcement, so announcements whose intervals share a multiple don't
+ * all fire in the same instant, on one server or across the proxy.
+ * <p>
+ * A {@link #snapshot() snapshot} of the grids can be {@link #restore restored} into a later
+ * instance, entries whose interval and offset are unchanged then continue their grid instead of
+ * starting a new one.
+ */
+public class AnnouncementScheduler {
+
+    private final Consumer<Announcement> dispatcher;
+    private final Predicate<String> occupied;
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<String, Long> plannedOffsets = new HashMap<>();
+    private final Map<String, ScheduleStateFile.State> restored = new HashMap<>();
+
+    private Thread worker;
+    private boolean running = false;
+    private PhasePolicy phasePolicy = PhasePolicy.SPREAD;
+
+    private static final class Entry implements Comparable<Entry> {
+        private Announcement announcement;
+        private final long periodNanos;
+        private final long offsetMillis;
+        private final long anchorNanos;
+        private final long anchorMillis;
+        private long nextFireNanos;
+        private boolean cancelled;
+        private boolean parked;
+
+        private Entry(Announcement announcement, long periodNanos, long offsetMillis, long nextFireNanos) {
+            this.announcement = announcement;
+            this.periodNanos = periodNanos;
+            this.offsetMillis = offsetMillis;
+            this.nextFireNanos = nextFireNanos;
+            // Wall-clock time of the first deadline, later deadlines are whole periods after it
+            this.anchorNanos = nextFireNanos;
+            this.anchorMillis = System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(nextFireNanos - System.nanoTime());
+        }
+
+        private long nextFireMillis() {
+            return anchorMillis + TimeUnit.NANOSECONDS.toMillis(nextFireNanos - anchorNanos);
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Long.compare(nextFireNanos, other.nextFireNanos);
+        }
+    }
+
+    /**
+     * @param dispatcher Callback invoked on the scheduler thread for every announcement that is due
+     * @param occupied Whether a server has players, entries of other servers are parked
+     */
+    public AnnouncementScheduler(Consumer<Announcement> dispatcher, Predicate<String> occupied) {
+        this.dispatcher = dispatcher;
+        this.occupied = occupied;
+    }
+
+    public void start() {
+        lock.lock();
+        try {
+            if (running) {
+                return;
+            }
+            running = true;
+        } finally {
+            lock.unlock();
+        }
+
+        worker = new Thread(this::run, "mAnnouncer-scheduler");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void stop() {
+        lock.lock();
+        try {
+            running = false;
+            queue.clear();
+            entries.clear();
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    /**
+     * Add, update or remove the entry of an announcement depending on its current state.
+     * An entry that already exists with the same interval keeps its phase.
+     *
+     * @param announcement The announcement to (re)schedule
+     */
+    public void schedule(Announcement announcement) {
+        lock.lock();
+        try {
+            scheduleLocked(announcement);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove an announcement from the schedule
+     *
+     * @param key The announcement key
+     */
+    public void unschedule(String key) {
+        lock.lock();
+        try {
+            cancelLocked(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Choose how phase offsets are assigned, takes effect for entries (re)scheduled afterwards
+     *
+     * @param phasePolicy The policy
+     */
+    public void setPhasePolicy(PhasePolicy phasePolicy) {
+        lock.lock();
+        try {
+            this.phasePolicy = phasePolicy;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replace the scheduled set with the given announcements, e.g. after a reload.
+     * Announcements that are still present keep their phase and last sent time unless their
+     * interval or planned offset changed.
+     *
+     * @param announcements All currently loaded announcements
+     */
+    public void sync(Collection<Announcement> announcements) {
+        lock.lock();
+        try {
+            planLocked(announcements);
+
+            Set<String> keys = new HashSet<>();
+            for (Announcement announcement : announcements) {
+                keys.add(announcement.getKey());
+                scheduleLocked(announcement);
+            }
+
+            for (String key : new ArrayList<>(entries.keySet())) {
+                if (!keys.contains(key)) {
+                    cancelLocked(key);
+                }
+            }
+
+            // Saved states only apply to the announcements loaded alongside them
+            restored.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Park or resume the entries of a server after its occupancy changed
+     *
+     * @param serverId The server
+     */
+    public void occupancyChanged(String serverId) {
+        lock.lock();
+        try {
+            // Read the state now rather than trusting the caller, notifications may overtake each other
+            boolean active = occupied.test(serverId);
+            long now = System.nanoTime();
+            for (Entry entry : entries.values()) {
+                if (!entry.announcement.getServerId().equals(serverId) || entry.parked == !active) {
+                    continue;
+                }
+
+                if (active) {
+                    entry.parked = false;
+                    entry.nextFireNanos = nextOnGrid(entry.nextFireNanos, entry.periodNanos, now);
+                    queue.add(entry);
+                } else {
+                    entry.parked = true;
+                    queue.remove(entry);
+                }
+            }
+            if (active) {
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hand over saved states for the next {@link #sync}, announcements it schedules pick up their
+     * last sent time and, if interval and offset still match, their next deadline
+     *
+     * @param states Saved states by announcement key
+     */
+    void restore(Map<String, ScheduleStateFile.State> states) {
+        lock.lock();
+        try {
+            restored.clear();
+            restored.putAll(states);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The current state of every scheduled announcement
+     */
+    List<ScheduleStateFile.State> snapshot() {
+        lock.lock();
+        try {
+            List<ScheduleStateFile.State> states = new ArrayList<>(entries.size());
+            for (Entry entry : entries.values()) {
+                states.add(new ScheduleStateFile.State(entry.announcement.getKey(), entry.announcement.getLastSent(),
+                        TimeUnit.NANOSECONDS.toMillis(entry.periodNanos), entry.offsetMillis, entry.nextFireMillis()));
+            }
+            return states;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Project how many announcements will fire in each of the coming seconds, parked entries
+     * included as if their server were occupied
+     *
+     * @param serverId Only count this server, or null for the whole proxy
+     * @param seconds Length of the projection
+     * @return Fires per second, index 0 is the current second
+     */
+    public int[] loadProfile(String serverId, int seconds) {
+        int[] load = new int[seconds];
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            long window = TimeUnit.SECONDS.toNanos(seconds);
+            for (Entry entry : entries.values()) {
+                if (serverId != null && !entry.announcement.getServerId().equals(serverId)) {
+                    continue;
+                }
+                for (long at = nextOnGrid(entry.nextFireNanos, entry.periodNanos, now) - now; at < window; at += entry.periodNanos) {
+                    load[(int) (at / 1_000_000_000L)]++;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return load;
+    }
+
+    /**
+     * @return Entries waiting for their server to get players
+     */
+    public int parkedCount() {
+        lock.lock();
+        try {
+            int parked = 0;
+            for (Entry entry : entries.values()) {
+                if (entry.parked) {
+                    parked++;
+                }
+            }
+            return parked;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void scheduleLocked(Announcement announcement) {
+        String key = announcement.getKey();
+        long periodNanos = TimeUnit.MILLISECONDS.toNanos(announcement.getIntervalMillis());
+
+        if (!announcement.isScheduled() || !announcement.isEnabled() || periodNanos <= 0) {
+            cancelLocked(key);
+            return;
+        }
+
+        long offsetMillis = phaseOffset(announcement);
+        ScheduleStateFile.State saved = restored.remove(key);
+        if (saved != null && announcement.getLastSent() == 0) {
+            // Sent before the restart, keeps cooldowns and the recent send check working
+            announcement.setLastSent(saved.lastSent());
+        }
+
+        Entry existing = entries.get(key);
+        if (existing != null) {
+            if (existing.announcement != announcement && announcement.getLastSent() == 0) {
+                // Reloaded instance, carry over the send history
+                announcement.setLastSent(existing.announcement.getLastSent());
+            }
+
+            if (existing.periodNanos == periodNanos && existing.offsetMillis == offsetMillis) {
+                existing.announcement = announcement;
+                return;
+            }
+            cancelLocked(key);
+        }
+
+        Entry entry = new Entry(announcement, periodNanos, offsetMillis,
+                saved != null ? resumeFireNanos(saved, announcement, periodNanos, offsetMillis)
+                        : firstFireNanos(announcement, periodNanos, offsetMillis));
+        entries.put(key, entry);
+        if (!occupied.test(announcement.getServerId())) {
+            entry.parked = true;
+            return;
+        }
+        queue.add(entry);
+        changed.signalAll();
+    }
+
+    private long firstFireNanos(Announcement announcement, long periodNanos, long offsetMillis) {
+        long now = System.nanoTime();
+        long lastSent = announcement.getLastSent();
+
+        if (offsetMillis >= 0) {
+            // Next wall-clock instant on the announcement's grid
+            long periodMillis = TimeUnit.NANOSECONDS.toMillis(periodNanos);
+            long nowMillis = System.currentTimeMillis();
+            long next = nowMillis + Math.floorMod(offsetMillis - nowMillis, periodMillis);
+            if (lastSent != 0 && next - lastSent < periodMillis / 2) {
+                // Sent recently on another phase, don't repeat it this soon
+                next += periodMillis;
+            }
+            return now + TimeUnit.MILLISECONDS.toNanos(next - nowMillis);
+        }
+
+        // Never sent before, it's due right away
+        if (lastSent == 0) {
+            return now;
+        }
+
+        long sinceLastSent = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - lastSent);
+        return now + Math.max(0L, periodNanos - sinceLastSent);
+    }
+
+    /**
+     * @return The next deadline on the saved grid, or a fresh start if the grid changed since
+     */
+    private long resumeFireNanos(ScheduleStateFile.State saved, Announcement announcement, long periodNanos, long offsetMillis) {
+        long now = System.nanoTime();
+        long untilNext = TimeUnit.MILLISECONDS.toNanos(saved.nextFireMillis() - System.currentTimeMillis());
+        if (saved.intervalMillis() != TimeUnit.NANOSECONDS.toMillis(periodNanos) || saved.offsetMillis() != offsetMillis
+                || untilNext > periodNanos) {
+            // Reconfigured, or the clock went back, the last sent time still prevents an early repeat
+            return firstFireNanos(announcement, periodNanos, offsetMillis);
+        }
+        // Periods that passed while the proxy was down are skipped, not caught up
+        return nextOnGrid(now + untilNext, periodNanos, now);
+    }
+
+    /**
+     * @return Offset of the announcement's grid from the epoch in milliseconds, or -1 for no grid
+     */
+    private long phaseOffset(Announcement announcement) {
+        return switch (phasePolicy) {
+            case NONE -> -1L;
+            case HASH -> Math.floorMod(mix(announcement.getKey().hashCode()), announcement.getIntervalMillis());
+            // Announcements added outside a sync fall back to their hash
+            case SPREAD -> plannedOffsets.getOrDefault(announcement.getKey(),
+                    Math.floorMod(mix(announcement.getKey().hashCode()), announcement.getIntervalMillis()));
+        };
+    }
+
+    /**
+     * Give the announcements of each server evenly spaced offsets within the greatest common
+     * divisor of their intervals. Every fire time of an announcement is then its offset modulo
+     * that divisor, so no two announcements of a server ever fire together. Servers are shifted
+     * against each other by an equal share of a slot, so the proxy as a whole is spread too.
+     */
+    private void planLocked(Collection<Announcement> announcements) {
+        plannedOffsets.clear();
+        if (phasePolicy != PhasePolicy.SPREAD) {
+            return;
+        }
+
+        Map<String, List<Announcement>> byServer = new TreeMap<>();
+        for (Announcement announcement : announcements) {
+            if (announcement.isScheduled() && announcement.isEnabled() && announcement.getIntervalMillis() > 0) {
+                byServer.computeIfAbsent(announcement.getServerId(), id -> new ArrayList<>()).add(announcement);
+            }
+        }
+
+        int serverIndex = 0;
+        for (List<Announcement> group : byServer.values()) {
+            group.sort(Comparator.comparing(Announcement::getKey));
+
+            long divisor = 0;
+            for (Announcement announcement : group) {
+                divisor = gcd(divisor, announcement.getIntervalMillis());
+            }
+
+            double shift = (double) serverIndex++ / byServer.size();
+            for (int i = 0; i < group.size(); i++) {
+                plannedOffsets.put(group.get(i).getKey(), (long) ((i + shift) * divisor / group.size()));
+            }
+        }
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * Spread the bits of a string hash over a long, String hashes of similar keys are too close
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private void cancelLocked(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            // Lazily dropped when it reaches the head of the queue
+            entry.cancelled = true;
+        }
+    }
+
+    private void run() {
+        List<Announcement> due = new ArrayList<>();
+
+        while (true) {
+            lock.lock();
+            try {
+                if (!running) {
+                    return;
+                }
+
+                collectDue(due);
+                if (due.isEmpty()) {
+                    awaitNextDeadline();
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            // Dispatch outside the lock so slow sends don't block schedule changes
+            for (Announcement announcement : due) {
+                dispatcher.accept(announcement);
+            }
+            due.clear();
+        }
+    }
+
+    private void collectDue(List<Announcement> due) {
+        long now = System.nanoTime();
+
+        Entry head;
+        while ((head = queue.peek()) != null) {
+            if (head.cancelled) {
+                queue.poll();
+                continue;
+            }
+            if (head.nextFireNanos - now > 0) {
+                break;
+            }
+
+            queue.poll();
+            due.add(head.announcement);
+
+            // Fixed rate: advance from the previous deadline, skipping periods we missed entirely
+            head.nextFireNanos = nextOnGrid(head.nextFireNanos + head.periodNanos, head.periodNanos, now + 1);
+            queue.add(head);
+        }
+    }
+
+    /**
+     * @return The first deadline at or after {@code now} on the grid through {@code deadline}
+     */
+    private static long nextOnGrid(long deadline, long periodNanos, long now) {
+        if (deadline - now >= 0) {
+            return deadline;
+        }
+        return deadline + ((now - deadline + periodNanos - 1) / periodNanos) * periodNanos;
+    }
+
+    private void awaitNextDeadline() throws InterruptedException {
+        Entry head = queue.peek();
+        if (head == null) {
+            changed.await();
+        } else {
+            changed.awaitNanos(head.nextFireNanos - System.nanoTime());
+        }
+    }
+}
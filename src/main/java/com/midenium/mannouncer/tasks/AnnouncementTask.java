@@ -1,21 +1,58 @@
 package com.midenium.mannouncer.tasks;
 
 import com.midenium.mannouncer.MAnnouncer;
+import com.midenium.mannouncer.cluster.ClusterCoordinator;
+import com.midenium.mannouncer.config.PluginSettings;
+import com.midenium.mannouncer.metrics.Counter;
+import com.midenium.mannouncer.metrics.PluginMetrics;
 import com.midenium.mannouncer.models.Announcement;
-import java.util.List;
-import java.util.Map;
+import com.midenium.mannouncer.models.ServerHealth;
+import com.midenium.mannouncer.utils.OccupancyIndex;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+
+import java.io.IOException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import com.velocitypowered.api.scheduler.ScheduledTask;
 
 public class AnnouncementTask {
 
     private final MAnnouncer plugin;
     private final AtomicBoolean running = new AtomicBoolean(false);
-    private ScheduledTask task = null;
+    private final AnnouncementScheduler scheduler;
+    private final DispatchQueue dispatchQueue;
+    private final OccupancyIndex.Listener occupancyListener;
+    private final Runnable clusterListener;
+    private final Counter dispatched;
+    private final Counter skippedDisabled;
+    private final Counter skippedOffline;
+    private final ScheduleStateFile stateFile;
+    private ScheduledTask saveTask;
     
     public AnnouncementTask(MAnnouncer plugin) {
         this.plugin = plugin;
+        // A server with players on any proxy keeps its announcements running, the owner sends the webhook for all of them
+        this.scheduler = new AnnouncementScheduler(this::dispatchAnnouncement, this::isOccupiedInNetwork);
+        this.occupancyListener = (serverId, occupied) -> {
+            // Notifications may overtake each other, publish the current state
+            publishOccupancy(serverId, plugin.getOccupancyIndex().isOccupied(serverId));
+            scheduler.occupancyChanged(serverId);
+        };
+        this.clusterListener = () -> plugin.getServer().getAllServers().forEach(server ->
+                scheduler.occupancyChanged(server.getServerInfo().getName()));
+        this.dispatchQueue = new DispatchQueue(plugin, this::send);
+        this.stateFile = new ScheduleStateFile(plugin.getClusterCoordinator()
+                .localFile(plugin.getDataDirectory().resolve("scheduler-state.dat")));
+        
+        PluginMetrics metrics = plugin.getPluginMetrics();
+        this.dispatched = metrics.counter("mannouncer_scheduler_dispatches_total",
+                "Scheduled announcements that came due");
+        this.skippedDisabled = metrics.counter("mannouncer_announcements_skipped_total",
+                "Announcements not sent, by reason", "reason", "announcements_disabled");
+        this.skippedOffline = metrics.counter("mannouncer_announcements_skipped_total",
+                "Announcements not sent, by reason", "reason", "server_offline");
+        metrics.gauge("mannouncer_scheduler_parked", "Scheduled announcements waiting for their server to get players",
+                scheduler::parkedCount);
     }
     
     public void start() {
@@ -25,14 +62,21 @@ public class AnnouncementTask {
         
         running.set(true);
         
-        // Check for thread pool usage for better performance
-        boolean useThreadPool = isThreadPoolEnabled();
-        int checkFrequency = getAnnouncementCheckFrequency();
+        // Empty servers park their announcements, the first player to arrive resumes them
+        plugin.getOccupancyIndex().addListener(occupancyListener);
+        plugin.getClusterCoordinator().addListener(clusterListener);
+        for (RegisteredServer server : plugin.getServer().getAllServers()) {
+            String serverId = server.getServerInfo().getName();
+            publishOccupancy(serverId, plugin.getOccupancyIndex().isOccupied(serverId));
+        }
         
-        // Schedule the task to run periodically to check for announcements
-        task = plugin.getServer().getScheduler().buildTask(plugin, this::checkAnnouncements)
-                .repeat(checkFrequency, TimeUnit.SECONDS)
-                .schedule();
+        // Register every scheduled announcement, the scheduler sleeps until the next one is due
+        // Schedules continue where the previous run left them instead of all firing now
+        loadState();
+        scheduler.setPhasePolicy(phasePolicy());
+        scheduler.sync(plugin.getAnnouncementManager().getScheduledAnnouncements());
+        scheduler.start();
+        scheduleStateSaves();
     }
     
     public void stop() {
@@ -41,99 +85,149 @@ public class AnnouncementTask {
         }
         
         running.set(false);
+        plugin.getOccupancyIndex().removeListener(occupancyListener);
+        plugin.getClusterCoordinator().removeListener(clusterListener);
+        for (RegisteredServer server : plugin.getServer().getAllServers()) {
+            publishOccupancy(server.getServerInfo().getName(), false);
+        }
+        cancelStateSaves();
         
-        if (task != null) {
-            task.cancel();
-            task = null;
+        // Save before the scheduler forgets its entries
+        saveState();
+        scheduler.stop();
+        dispatchQueue.clear();
+    }
+    
+    /**
+     * Pick up the current state of a single announcement (enabled, interval, scheduled)
+     * @param announcement The announcement that changed
+     */
+    public void reschedule(Announcement announcement) {
+        if (running.get()) {
+            scheduler.schedule(announcement);
         }
     }
     
-    private void checkAnnouncements() {
-        if (!isAnnouncementsEnabled()) {
-            return;
+    /**
+     * Re-register all scheduled announcements after a reload
+     */
+    public void refresh() {
+        if (running.get()) {
+            dispatchQueue.configure(plugin.getConfigManager().getSettings().announcements());
+            scheduler.setPhasePolicy(phasePolicy());
+            scheduler.sync(plugin.getAnnouncementManager().getScheduledAnnouncements());
+            scheduleStateSaves();
         }
-        
-        // Get all scheduled announcements
-        List<Announcement> scheduledAnnouncements = plugin.getAnnouncementManager().getScheduledAnnouncements();
-        
-        if (scheduledAnnouncements.isEmpty()) {
-            return;
+    }
+    
+    /**
+     * Write where each schedule stands to disk, skipped if nothing changed since the last save
+     */
+    public void saveState() {
+        try {
+            stateFile.save(scheduler.snapshot());
+        } catch (IOException e) {
+            plugin.getLogger().error("Failed to save the schedule state: " + stateFile.getFile(), e);
         }
-        
-        // Check if we should batch process announcements
-        boolean batchAnnouncements = isBatchAnnouncementsEnabled();
-        long currentTime = System.currentTimeMillis();
-        
-        for (Announcement announcement : scheduledAnnouncements) {
-            // Check if the announcement should be sent based on its interval
-            long lastSent = announcement.getLastSent();
-            int interval = announcement.getInterval();
-            
-            // If the announcement has never been sent (lastSent is 0), it's ready to send
-            boolean readyToSend = (lastSent == 0) || (interval > 0 && currentTime - lastSent >= interval * 1000L);
-            
-            if (readyToSend) {
-                // Check if the server is online
-                String serverId = announcement.getServerId();
-                boolean isServerOnline = plugin.getServerManager().isServerOnline(serverId);
-                
-                if (isServerOnline) {
-                    // If batching is enabled and we're using a thread pool, send via scheduler
-                    if (batchAnnouncements && isThreadPoolEnabled()) {
-                        plugin.getServer().getScheduler().buildTask(plugin, () -> 
-                            plugin.getAnnouncementManager().sendAnnouncement(announcement)
-                        ).schedule();
-                    } else {
-                        // Send immediately
-                        plugin.getAnnouncementManager().sendAnnouncement(announcement);
-                    }
-                }
-            }
+    }
+    
+    private void loadState() {
+        try {
+            scheduler.restore(stateFile.load());
+        } catch (IOException e) {
+            plugin.getLogger().error("Failed to load the schedule state: " + stateFile.getFile(), e);
         }
     }
     
-    private boolean isAnnouncementsEnabled() {
-        Map<String, Object> config = plugin.getConfigManager().getMainConfig();
-        Object announcementsObj = config.get("announcements");
-        
-        if (announcementsObj instanceof Map) {
-            Map<String, Object> announcementsConfig = (Map<String, Object>) announcementsObj;
-            Object enabledObj = announcementsConfig.get("enabled");
-            return enabledObj instanceof Boolean && (Boolean) enabledObj;
+    private synchronized void scheduleStateSaves() {
+        cancelStateSaves();
+        int interval = plugin.getConfigManager().getSettings().announcements().stateSaveInterval();
+        if (interval > 0) {
+            saveTask = plugin.getServer().getScheduler().buildTask(plugin, this::saveState)
+                    .delay(interval, TimeUnit.SECONDS)
+                    .repeat(interval, TimeUnit.SECONDS)
+                    .schedule();
         }
-        
-        return true; // Default to enabled
     }
     
-    private boolean isThreadPoolEnabled() {
-        Map<String, Object> config = plugin.getConfigManager().getMainConfig();
-        Object performanceObj = config.get("performance");
-        
-        if (performanceObj instanceof Map) {
-            Map<String, Object> performanceConfig = (Map<String, Object>) performanceObj;
-            Object threadPoolObj = performanceConfig.get("use-thread-pool");
-            return threadPoolObj instanceof Boolean && (Boolean) threadPoolObj;
+    private synchronized void cancelStateSaves() {
+        if (saveTask != null) {
+            saveTask.cancel();
+            saveTask = null;
         }
-        
-        return false;
     }
     
-    private boolean isBatchAnnouncementsEnabled() {
-        Map<String, Object> config = plugin.getConfigManager().getMainConfig();
-        Object performanceObj = config.get("performance");
+    public int getScheduledCount() {
+        return scheduler.size();
+    }
+    
+    /**
+     * @param serverId Only count this server, or null for the whole proxy
+     * @param seconds Length of the projection
+     * @return Announcements due in each of the coming seconds
+     */
+    public int[] getLoadProfile(String serverId, int seconds) {
+        return scheduler.loadProfile(serverId, seconds);
+    }
+    
+    /**
+     * @return Whether the server has players on this proxy or, as published, on another one
+     */
+    private boolean isOccupiedInNetwork(String serverId) {
+        return plugin.getOccupancyIndex().isOccupied(serverId)
+                || plugin.getClusterCoordinator().getPeerValue(occupancyKey(serverId)) != null;
+    }
+    
+    private void publishOccupancy(String serverId, boolean occupied) {
+        ClusterCoordinator cluster = plugin.getClusterCoordinator();
+        if (occupied) {
+            cluster.publish(occupancyKey(serverId), "1");
+        } else {
+            cluster.unpublish(occupancyKey(serverId));
+        }
+    }
+    
+    private static String occupancyKey(String serverId) {
+        return "occupied:" + serverId;
+    }
+    
+    private PhasePolicy phasePolicy() {
+        return PhasePolicy.fromString(plugin.getConfigManager().getSettings().announcements().phasePolicy(), PhasePolicy.SPREAD);
+    }
+    
+    private void dispatchAnnouncement(Announcement announcement) {
+        // Read all settings from the same config generation
+        dispatched.increment();
+        PluginSettings settings = plugin.getConfigManager().getSettings();
+        if (!settings.announcements().enabled()) {
+            skippedDisabled.increment();
+            return;
+        }
         
-        if (performanceObj instanceof Map) {
-            Map<String, Object> performanceConfig = (Map<String, Object>) performanceObj;
-            Object batchObj = performanceConfig.get("batch-announcements");
-            return batchObj instanceof Boolean && (Boolean) batchObj;
+        // Check if the server is online
+        String serverId = announcement.getServerId();
+        ServerHealth health = plugin.getServerManager().getHealth(serverId);
+        if (!settings.servers().assumeAllOnline() && !health.isOnline()) {
+            skippedOffline.increment();
+            return;
         }
         
-        return false;
+        // Limits per server and for the whole proxy, over-budget announcements wait their turn
+        dispatchQueue.submit(announcement);
     }
     
-    private int getAnnouncementCheckFrequency() {
-        // Default to 1 second for backward compatibility
-        return 1;
+    private void send(Announcement announcement) {
+        PluginSettings settings = plugin.getConfigManager().getSettings();
+        
+        // If batching is enabled and we're using a thread pool, send via scheduler
+        if (settings.performance().batchAnnouncements() && settings.performance().useThreadPool()) {
+            plugin.getServer().getScheduler().buildTask(plugin, () -> 
+                plugin.getAnnouncementManager().sendScheduledAnnouncement(announcement)
+            ).schedule();
+        } else {
+            // Send immediately
+            plugin.getAnnouncementManager().sendScheduledAnnouncement(announcement);
+        }
     }
     
     public boolean isRunning() {
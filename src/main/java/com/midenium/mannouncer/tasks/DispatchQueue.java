@@ -0,0 +1,209 @@
+package com.midenium.mannouncer.tasks;
+
+import com.midenium.mannouncer.MAnnouncer;
+import com.midenium.mannouncer.config.PluginSettings;
+import com.midenium.mannouncer.metrics.Counter;
+import com.midenium.mannouncer.metrics.Histogram;
+import com.midenium.mannouncer.metrics.PluginMetrics;
+import com.midenium.mannouncer.models.Announcement;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Rate shaping between the scheduler and the actual send.
+ * <p>
+ * Every server has a token bucket refilled once per global cooldown, and the whole proxy shares
+ * another bucket. An announcement that finds both with a token is sent right away, otherwise it
+ * waits in a queue ordered by priority and then arrival. The queue is drained by a task scheduled
+ * for the moment the next token becomes available, so nothing runs while it's empty.
+ */
+public class DispatchQueue {
+
+    private record Pending(Announcement announcement, long enqueuedNanos, long sequence) {
+    }
+
+    private static final Comparator<Pending> ORDER = Comparator
+            .comparingInt((Pending pending) -> -pending.announcement().getPriority())
+            .thenComparingLong(Pending::sequence);
+
+    private final MAnnouncer plugin;
+    private final Consumer<Announcement> sender;
+    private final PriorityQueue<Pending> queue = new PriorityQueue<>(ORDER);
+    private final Set<String> queuedKeys = new HashSet<>();
+    private final Map<String, TokenBucket> serverBuckets = new HashMap<>();
+    private final Counter skippedCooldown;
+    private final Counter skippedQueued;
+    private final Counter droppedFull;
+    private final Counter droppedExpired;
+    private final Histogram waitTime;
+
+    private PluginSettings.RateLimit settings;
+    private double serverRate;
+    private TokenBucket proxyBucket;
+    private long sequence;
+    private ScheduledTask drainTask;
+
+    /**
+     * @param plugin Plugin instance
+     * @param sender Sends an announcement once it's allowed to go out
+     */
+    public DispatchQueue(MAnnouncer plugin, Consumer<Announcement> sender) {
+        this.plugin = plugin;
+        this.sender = sender;
+
+        PluginMetrics metrics = plugin.getPluginMetrics();
+        this.skippedCooldown = metrics.counter("mannouncer_announcements_skipped_total",
+                "Announcements not sent, by reason", "reason", "cooldown");
+        this.skippedQueued = metrics.counter("mannouncer_announcements_skipped_total",
+                "Announcements not sent, by reason", "reason", "already_queued");
+        this.droppedFull = metrics.counter("mannouncer_announcements_skipped_total",
+                "Announcements not sent, by reason", "reason", "queue_full");
+        this.droppedExpired = metrics.counter("mannouncer_announcements_skipped_total",
+                "Announcements not sent, by reason", "reason", "queue_expired");
+        this.waitTime = metrics.histogram("mannouncer_dispatch_wait_seconds",
+                "Time announcements waited for the rate limit", PluginMetrics.LATENCY_BUCKETS);
+        metrics.gauge("mannouncer_dispatch_queue_depth", "Announcements waiting for the rate limit", this::size);
+
+        configure(plugin.getConfigManager().getSettings().announcements());
+    }
+
+    /**
+     * Apply new limits, buckets start full again and waiting announcements stay queued
+     *
+     * @param announcements Announcement settings
+     */
+    public synchronized void configure(PluginSettings.Announcements announcements) {
+        long now = System.nanoTime();
+        settings = announcements.rateLimit();
+        serverRate = announcements.globalCooldown() > 0 ? 1.0 / announcements.globalCooldown() : 0;
+        proxyBucket = new TokenBucket(settings.proxyRate(), settings.proxyBurst(), now);
+        serverBuckets.clear();
+    }
+
+    /**
+     * Send an announcement now if the limits allow it, otherwise queue it
+     *
+     * @param announcement The announcement that came due
+     */
+    public void submit(Announcement announcement) {
+        if (announcement.isOnCooldown()) {
+            skippedCooldown.increment();
+            return;
+        }
+
+        List<Announcement> ready;
+        synchronized (this) {
+            if (!settings.enabled()) {
+                ready = List.of(announcement);
+            } else if (!queuedKeys.add(announcement.getKey())) {
+                // Still waiting from its previous interval, one copy is enough
+                skippedQueued.increment();
+                return;
+            } else if (queue.size() >= settings.maxQueued()) {
+                queuedKeys.remove(announcement.getKey());
+                droppedFull.increment();
+                return;
+            } else {
+                queue.add(new Pending(announcement, System.nanoTime(), sequence++));
+                ready = drainLocked();
+            }
+        }
+
+        ready.forEach(sender);
+    }
+
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    /**
+     * Drop everything waiting and stop the drain task
+     */
+    public synchronized void clear() {
+        queue.clear();
+        queuedKeys.clear();
+        if (drainTask != null) {
+            drainTask.cancel();
+            drainTask = null;
+        }
+    }
+
+    private void drain() {
+        List<Announcement> ready;
+        synchronized (this) {
+            drainTask = null;
+            ready = drainLocked();
+        }
+
+        ready.forEach(sender);
+    }
+
+    private List<Announcement> drainLocked() {
+        long now = System.nanoTime();
+        long maxWaitNanos = TimeUnit.SECONDS.toNanos(settings.maxWait());
+        List<Announcement> ready = new ArrayList<>();
+        List<Pending> blocked = new ArrayList<>();
+
+        Pending next;
+        while ((next = queue.poll()) != null) {
+            Announcement announcement = next.announcement();
+            if (now - next.enqueuedNanos() > maxWaitNanos) {
+                queuedKeys.remove(announcement.getKey());
+                droppedExpired.increment();
+                continue;
+            }
+
+            // A server out of tokens only holds back its own announcements
+            TokenBucket server = serverBucket(announcement.getServerId(), now);
+            if (!server.hasToken(now)) {
+                blocked.add(next);
+                continue;
+            }
+            if (!proxyBucket.tryAcquire(now)) {
+                // The proxy budget is spent, everything still queued waits for the next token
+                blocked.add(next);
+                break;
+            }
+            server.tryAcquire(now);
+
+            queuedKeys.remove(announcement.getKey());
+            waitTime.observeNanos(now - next.enqueuedNanos());
+            ready.add(announcement);
+        }
+        queue.addAll(blocked);
+
+        scheduleDrainLocked(now);
+        return ready;
+    }
+
+    private TokenBucket serverBucket(String serverId, long now) {
+        return serverBuckets.computeIfAbsent(serverId, id -> new TokenBucket(serverRate, settings.serverBurst(), now));
+    }
+
+    private void scheduleDrainLocked(long now) {
+        if (queue.isEmpty() || drainTask != null) {
+            return;
+        }
+
+        // Wake up when the first waiting announcement could get both tokens
+        long serverWait = Long.MAX_VALUE;
+        for (Pending pending : queue) {
+            serverWait = Math.min(serverWait, serverBucket(pending.announcement().getServerId(), now).nanosUntilToken(now));
+        }
+        long waitNanos = Math.max(serverWait, proxyBucket.nanosUntilToken(now));
+
+        drainTask = plugin.getServer().getScheduler().buildTask(plugin, this::drain)
+                .delay(Math.max(1L, TimeUnit.NANOSECONDS.toMillis(waitNanos)), TimeUnit.MILLISECONDS)
+                .schedule();
+    }
+}
@@ -0,0 +1,22 @@
+package com.midenium.mannouncer.tasks;
+
+/**
+ * How scheduled announcements pick the offset of their fixed-rate grid
+ */
+public enum PhasePolicy {
+    /** Fire as soon as scheduled, intervals with a common multiple keep colliding */
+    NONE,
+    /** Offset derived from the announcement's server and id, stable as announcements come and go */
+    HASH,
+    /** Announcements of a server get evenly spaced offsets, servers are shifted against each other */
+    SPREAD;
+
+    public static PhasePolicy fromString(String name, PhasePolicy defaultValue) {
+        for (PhasePolicy policy : values()) {
+            if (policy.name().equalsIgnoreCase(name)) {
+                return policy;
+            }
+        }
+        return defaultValue;
+    }
+}
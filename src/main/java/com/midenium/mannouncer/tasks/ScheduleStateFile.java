@@ -0,0 +1,103 @@
+package com.midenium.mannouncer.tasks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where each scheduled announcement stands, kept on disk so a restart continues the schedules
+ * instead of starting them over. One line per announcement, rewritten as a whole and only when
+ * something changed.
+ */
+final class ScheduleStateFile {
+
+    private static final String HEADER = "# mAnnouncer schedule state v1";
+
+    /**
+     * @param key Announcement key
+     * @param lastSent Wall-clock millis of the last send, 0 if never sent
+     * @param intervalMillis Interval the schedule ran with
+     * @param offsetMillis Phase offset of the grid, -1 if it had none
+     * @param nextFireMillis Wall-clock millis of the next deadline on the grid
+     */
+    record State(String key, long lastSent, long intervalMillis, long offsetMillis, long nextFireMillis) {
+    }
+
+    private final Path file;
+    private List<String> written = List.of();
+
+    ScheduleStateFile(Path file) {
+        this.file = file;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return The saved states by announcement key, empty if there is no file yet
+     * @throws IOException If the file exists but can't be read
+     */
+    synchronized Map<String, State> load() throws IOException {
+        Map<String, State> states = new HashMap<>();
+        if (!Files.exists(file)) {
+            return states;
+        }
+
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] parts = line.split("\t");
+            if (line.startsWith("#") || parts.length != 5) {
+                continue;
+            }
+            try {
+                states.put(parts[0], new State(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                        Long.parseLong(parts[3]), Long.parseLong(parts[4])));
+            } catch (NumberFormatException e) {
+                // Damaged line, that announcement simply starts fresh
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Write the states unless they equal what was last written
+     *
+     * @param states Current state of every scheduled announcement
+     * @return Whether the file was written
+     * @throws IOException If the file can't be written
+     */
+    synchronized boolean save(Collection<State> states) throws IOException {
+        List<String> lines = new ArrayList<>(states.size() + 1);
+        lines.add(HEADER);
+        states.stream()
+                .sorted((a, b) -> a.key().compareTo(b.key()))
+                .forEach(state -> lines.add(state.key() + "\t" + state.lastSent() + "\t" + state.intervalMillis()
+                        + "\t" + state.offsetMillis() + "\t" + state.nextFireMillis()));
+        if (lines.equals(written)) {
+            return false;
+        }
+
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        written = lines;
+        return true;
+    }
+}
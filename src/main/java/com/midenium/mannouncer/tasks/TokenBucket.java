@@ -0,0 +1,62 @@
+package com.midenium.mannouncer.tasks;
+
+/**
+ * Token bucket on {@link System#nanoTime()} timestamps. Not thread safe, callers synchronize.
+ * A bucket with a rate of zero or less never runs out.
+ */
+final class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param tokensPerSecond Refill rate
+     * @param capacity Tokens the bucket holds, it starts full
+     * @param now Current {@link System#nanoTime()}
+     */
+    TokenBucket(double tokensPerSecond, int capacity, long now) {
+        this.tokensPerNano = tokensPerSecond / 1_000_000_000.0;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefill = now;
+    }
+
+    boolean isUnlimited() {
+        return tokensPerNano <= 0;
+    }
+
+    boolean hasToken(long now) {
+        refill(now);
+        return isUnlimited() || tokens >= 1.0;
+    }
+
+    boolean tryAcquire(long now) {
+        if (!hasToken(now)) {
+            return false;
+        }
+        if (!isUnlimited()) {
+            tokens -= 1.0;
+        }
+        return true;
+    }
+
+    /**
+     * @return Nanoseconds until a token is available, 0 if one is available now
+     */
+    long nanosUntilToken(long now) {
+        if (hasToken(now)) {
+            return 0;
+        }
+        return (long) Math.ceil((1.0 - tokens) / tokensPerNano);
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefill;
+        if (elapsed > 0 && !isUnlimited()) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefill = now;
+        }
+    }
+}
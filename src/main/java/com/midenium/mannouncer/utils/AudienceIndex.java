@@ -0,0 +1,207 @@
+package com.midenium.mannouncer.utils;
+
+import com.velocitypowered.api.proxy.Player;
+import net.kyori.adventure.audience.Audience;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+
+/**
+ * The players on each backend server, split by the permission nodes announcements require.
+ * <p>
+ * Every server has one partition with all of its players and one per permission node that has
+ * been asked for. Partitions are updated as players connect, switch servers, disconnect or get
+ * their permissions recalculated, so sending to a server's permitted players needs no copying or
+ * filtering. Each partition has a forwarding {@link Audience} over its live player view.
+ */
+public class AudienceIndex {
+
+    /**
+     * A live, read-only set of players with an audience forwarding to them
+     */
+    public static final class Partition {
+        private final Map<UUID, Player> members = new ConcurrentHashMap<>();
+        private final Collection<Player> players = Collections.unmodifiableCollection(members.values());
+        private final Audience audience = Audience.audience(players);
+
+        /**
+         * @return The players, a live view that reflects later changes
+         */
+        public Collection<Player> players() {
+            return players;
+        }
+
+        public Audience audience() {
+            return audience;
+        }
+
+        public int size() {
+            return members.size();
+        }
+
+        public boolean isEmpty() {
+            return members.isEmpty();
+        }
+    }
+
+    /**
+     * Partitions of one server. Writers lock it so a node partition being built can't miss a
+     * player joining at the same time, readers iterate the partitions without locking.
+     */
+    private static final class ServerPartitions {
+        private final Partition everyone = new Partition();
+        private final Map<String, Partition> byNode = new ConcurrentHashMap<>();
+    }
+
+    private static final Partition EMPTY = new Partition();
+
+    private final BiPredicate<Player, String> permissions;
+    private final Map<String, ServerPartitions> servers = new ConcurrentHashMap<>();
+    private final Map<UUID, String> locations = new ConcurrentHashMap<>();
+
+    /**
+     * @param permissions Decides whether a player has a permission node
+     */
+    public AudienceIndex(BiPredicate<Player, String> permissions) {
+        this.permissions = permissions;
+    }
+
+    /**
+     * Add the players currently on the proxy, e.g. when the plugin starts after players joined
+     *
+     * @param players All connected players
+     */
+    public void seed(Collection<Player> players) {
+        for (Player player : players) {
+            player.getCurrentServer().ifPresent(connection ->
+                    playerConnected(player, connection.getServerInfo().getName()));
+        }
+    }
+
+    /**
+     * @param player The player
+     * @param serverId The server the player is now on, the previous one is left implicitly
+     */
+    public void playerConnected(Player player, String serverId) {
+        UUID playerId = player.getUniqueId();
+        String previous = locations.put(playerId, serverId);
+        if (previous != null && !previous.equals(serverId)) {
+            remove(previous, playerId);
+        }
+
+        ServerPartitions partitions = servers.computeIfAbsent(serverId, id -> new ServerPartitions());
+        synchronized (partitions) {
+            partitions.everyone.members.put(playerId, player);
+            for (Map.Entry<String, Partition> entry : partitions.byNode.entrySet()) {
+                update(entry.getValue(), player, entry.getKey());
+            }
+        }
+    }
+
+    public void playerDisconnected(UUID playerId) {
+        String previous = locations.remove(playerId);
+        if (previous != null) {
+            remove(previous, playerId);
+        }
+    }
+
+    /**
+     * Re-check the permission partitions of a player whose permissions changed. Call this after
+     * cached permission decisions for the player were dropped.
+     *
+     * @param playerId The player
+     */
+    public void permissionsChanged(UUID playerId) {
+        String serverId = locations.get(playerId);
+        ServerPartitions partitions = serverId != null ? servers.get(serverId) : null;
+        if (partitions == null) {
+            return;
+        }
+
+        synchronized (partitions) {
+            Player player = partitions.everyone.members.get(playerId);
+            if (player == null) {
+                return;
+            }
+            for (Map.Entry<String, Partition> entry : partitions.byNode.entrySet()) {
+                update(entry.getValue(), player, entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Drop every permission partition, they are rebuilt on next use. Call this after all cached
+     * permission decisions were dropped.
+     */
+    public void invalidatePermissions() {
+        for (ServerPartitions partitions : servers.values()) {
+            synchronized (partitions) {
+                partitions.byNode.clear();
+            }
+        }
+    }
+
+    /**
+     * @param serverId The server
+     * @param node A permission node, or null or empty for all players
+     * @return The partition, live and shared, never modify it
+     */
+    public Partition partition(String serverId, String node) {
+        ServerPartitions partitions = servers.get(serverId);
+        if (partitions == null) {
+            return EMPTY;
+        }
+        if (node == null || node.isEmpty()) {
+            return partitions.everyone;
+        }
+
+        Partition partition = partitions.byNode.get(node);
+        if (partition != null) {
+            return partition;
+        }
+
+        // First use of this node on this server, from now on it's kept up to date
+        synchronized (partitions) {
+            return partitions.byNode.computeIfAbsent(node, key -> {
+                Partition created = new Partition();
+                for (Player player : partitions.everyone.members.values()) {
+                    update(created, player, key);
+                }
+                return created;
+            });
+        }
+    }
+
+    public int getPartitionCount() {
+        int count = 0;
+        for (ServerPartitions partitions : servers.values()) {
+            count += 1 + partitions.byNode.size();
+        }
+        return count;
+    }
+
+    private void remove(String serverId, UUID playerId) {
+        ServerPartitions partitions = servers.get(serverId);
+        if (partitions == null) {
+            return;
+        }
+        synchronized (partitions) {
+            partitions.everyone.members.remove(playerId);
+            for (Partition partition : partitions.byNode.values()) {
+                partition.members.remove(playerId);
+            }
+        }
+    }
+
+    private void update(Partition partition, Player player, String node) {
+        if (permissions.test(player, node)) {
+            partition.members.put(player.getUniqueId(), player);
+        } else {
+            partition.members.remove(player.getUniqueId());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.midenium.mannouncer.utils;
+
+import com.midenium.mannouncer.placeholders.Template;
+import io.github.xanthic.cache.api.Cache;
+import io.github.xanthic.cache.api.domain.ExpiryType;
+import io.github.xanthic.cache.core.CacheApi;
+import io.github.xanthic.cache.provider.caffeine.CaffeineProvider;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of rendered MiniMessage components.
+ * <p>
+ * Entries are keyed by the raw template together with the resolved placeholder values,
+ * so a hit skips both the placeholder replacement and the MiniMessage parse.
+ */
+public class ComponentCache {
+
+    private final Cache<RenderKey, Component> cache;
+    private final boolean enabled;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private record RenderKey(String template, Map<String, String> placeholders, TagResolver tags) {
+    }
+
+    public ComponentCache(boolean enabled, long maxSize, long expireAfterSeconds) {
+        this.enabled = enabled;
+        this.cache = CacheApi.create(spec -> {
+            spec.provider(new CaffeineProvider());
+            spec.maxSize(maxSize);
+            spec.expiryType(ExpiryType.POST_ACCESS);
+            spec.expiryTime(Duration.ofSeconds(expireAfterSeconds));
+        });
+    }
+
+    /**
+     * Render a template without placeholders
+     * @param template MiniMessage template
+     * @return The rendered component
+     */
+    public Component render(String template) {
+        return render(template, Map.of());
+    }
+
+    /**
+     * Render a template with the given, already resolved placeholder values
+     * @param template MiniMessage template
+     * @param placeholders Placeholder values keyed by name (without braces)
+     * @return The rendered component
+     */
+    public Component render(String template, Map<String, String> placeholders) {
+        return render(template, placeholders, TagResolver.empty());
+    }
+
+    /**
+     * Render a template with the given placeholder values and extra MiniMessage tags
+     * @param template MiniMessage template
+     * @param placeholders Placeholder values keyed by name (without braces)
+     * @param tags Extra tags, part of the cache key so use long-lived instances
+     * @return The rendered component
+     */
+    public Component render(String template, Map<String, String> placeholders, TagResolver tags) {
+        if (!enabled) {
+            misses.increment();
+            return MiniMessage.miniMessage().deserialize(applyPlaceholders(template, placeholders), tags);
+        }
+
+        RenderKey key = new RenderKey(template, placeholders, tags);
+        Component cached = cache.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        Component component = MiniMessage.miniMessage().deserialize(applyPlaceholders(template, placeholders), tags);
+        cache.put(key, component);
+        return component;
+    }
+
+    /**
+     * Replace {key} placeholders in a template, using its compiled form
+     * @param template The template text
+     * @param placeholders Placeholder values keyed by name (without braces)
+     * @return The template with all placeholders replaced
+     */
+    public static String applyPlaceholders(String template, Map<String, String> placeholders) {
+        return Template.compile(template).render(placeholders);
+    }
+
+    /**
+     * Drop all cached components, e.g. after a reload
+     */
+    public void invalidate() {
+        cache.clear();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+}
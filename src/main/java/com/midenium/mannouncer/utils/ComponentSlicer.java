@@ -0,0 +1,74 @@
+package com.midenium.mannouncer.utils;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cuts a component tree down to its first N visible characters while keeping
+ * colors, decorations and click/hover events of everything that remains.
+ */
+public final class ComponentSlicer {
+
+    private ComponentSlicer() {
+    }
+
+    /**
+     * Count the visible text characters of a component tree
+     * @param component The component
+     * @return Number of characters across all text components
+     */
+    public static int length(Component component) {
+        int length = component instanceof TextComponent text ? text.content().length() : 0;
+        for (Component child : component.children()) {
+            length += length(child);
+        }
+        return length;
+    }
+
+    /**
+     * Keep only the first {@code visibleChars} characters of a component tree
+     * @param component The component
+     * @param visibleChars Number of characters to keep
+     * @return The sliced component
+     */
+    public static Component slice(Component component, int visibleChars) {
+        int[] remaining = {visibleChars};
+        return slice(component, remaining);
+    }
+
+    private static Component slice(Component component, int[] remaining) {
+        Component result = component;
+
+        if (component instanceof TextComponent text) {
+            String content = text.content();
+            if (content.length() >= remaining[0]) {
+                // Cut inside this node, nothing after it is visible yet
+                int cut = remaining[0];
+                if (cut > 0 && cut < content.length() && Character.isHighSurrogate(content.charAt(cut - 1))) {
+                    cut--;
+                }
+                remaining[0] = 0;
+                return text.content(content.substring(0, cut)).children(List.of());
+            }
+            remaining[0] -= content.length();
+        }
+
+        List<Component> children = component.children();
+        if (children.isEmpty()) {
+            return result;
+        }
+
+        List<Component> sliced = new ArrayList<>(children.size());
+        for (Component child : children) {
+            if (remaining[0] <= 0) {
+                break;
+            }
+            sliced.add(slice(child, remaining));
+        }
+
+        return sliced.size() == children.size() && remaining[0] > 0 ? result : result.children(sliced);
+    }
+}
@@ -0,0 +1,123 @@
+package com.midenium.mannouncer.utils;
+
+import com.velocitypowered.api.proxy.Player;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Number of players on each backend server, kept up to date from connection events so checking
+ * whether a server is empty doesn't copy its player list.
+ * <p>
+ * Listeners hear about a server when it gets its first player and when its last player leaves,
+ * joins and quits on servers that already have players cost two map updates.
+ */
+public class OccupancyIndex {
+
+    /**
+     * Notified when a server goes from empty to occupied or back. Calls for different servers may
+     * arrive concurrently, read {@link #isOccupied} for the current state instead of trusting the order.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onOccupancyChanged(String serverId, boolean occupied);
+    }
+
+    private final Map<UUID, String> locations = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Rebuild the index from the players currently on the proxy, e.g. when the plugin starts
+     * after players have already joined
+     *
+     * @param players All connected players
+     */
+    public void seed(Collection<Player> players) {
+        for (Player player : players) {
+            player.getCurrentServer().ifPresent(connection ->
+                    playerConnected(player.getUniqueId(), connection.getServerInfo().getName()));
+        }
+    }
+
+    /**
+     * @param playerId The player
+     * @param serverId The server the player is now on, the previous one is left implicitly
+     */
+    public void playerConnected(UUID playerId, String serverId) {
+        String previous = locations.put(playerId, serverId);
+        if (serverId.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            decrement(previous);
+        }
+        increment(serverId);
+    }
+
+    public void playerDisconnected(UUID playerId) {
+        String previous = locations.remove(playerId);
+        if (previous != null) {
+            decrement(previous);
+        }
+    }
+
+    public int getPlayerCount(String serverId) {
+        AtomicInteger count = counts.get(serverId);
+        return count != null ? count.get() : 0;
+    }
+
+    public boolean isOccupied(String serverId) {
+        return getPlayerCount(serverId) > 0;
+    }
+
+    /**
+     * @param playerId The player
+     * @return The server the player is on, or null
+     */
+    public String getServer(UUID playerId) {
+        return locations.get(playerId);
+    }
+
+    public int getOccupiedServerCount() {
+        int occupied = 0;
+        for (AtomicInteger count : counts.values()) {
+            if (count.get() > 0) {
+                occupied++;
+            }
+        }
+        return occupied;
+    }
+
+    private void increment(String serverId) {
+        if (counts.computeIfAbsent(serverId, id -> new AtomicInteger()).incrementAndGet() == 1) {
+            fire(serverId, true);
+        }
+    }
+
+    private void decrement(String serverId) {
+        AtomicInteger count = counts.get(serverId);
+        if (count != null && count.decrementAndGet() == 0) {
+            fire(serverId, false);
+        }
+    }
+
+    private void fire(String serverId, boolean occupied) {
+        for (Listener listener : listeners) {
+            listener.onOccupancyChanged(serverId, occupied);
+        }
+    }
+}
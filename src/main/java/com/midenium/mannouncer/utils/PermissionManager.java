@@ -4,39 +4,19 @@ import com.midenium.mannouncer.MAnnouncer;
 import com.velocitypowered.api.command.CommandSource;
 import com.velocitypowered.api.proxy.Player;
 
+import java.util.Collection;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class PermissionManager {
 
     private final MAnnouncer plugin;
-    private final Map<String, String> permissionNodes;
+    // Decisions by player, only connected players have an entry
+    private final Map<UUID, Map<String, Boolean>> decisionCache = new ConcurrentHashMap<>();
     
     public PermissionManager(MAnnouncer plugin) {
         this.plugin = plugin;
-        this.permissionNodes = loadPermissionNodes();
-    }
-    
-    private Map<String, String> loadPermissionNodes() {
-        Map<String, String> nodes = new HashMap<>();
-        
-        // Get permission settings from config
-        Map<String, Object> config = plugin.getConfigManager().getMainConfig();
-        Map<String, Object> permConfig = (Map<String, Object>) config.getOrDefault("permissions", Map.of());
-        
-        // Get base permission
-        String basePermission = getString(permConfig, "base", "mannouncer");
-        nodes.put("base", basePermission);
-        
-        // Get command permissions
-        Map<String, Object> cmdConfig = (Map<String, Object>) permConfig.getOrDefault("commands", Map.of());
-        
-        nodes.put("admin", getString(cmdConfig, "admin", basePermission + ".admin"));
-        nodes.put("reload", getString(cmdConfig, "reload", basePermission + ".reload"));
-        nodes.put("test", getString(cmdConfig, "test", basePermission + ".test"));
-        nodes.put("announcement", getString(cmdConfig, "announcement", basePermission + ".announcement"));
-        
-        return nodes;
     }
     
     /**
@@ -53,12 +33,11 @@ public class PermissionManager {
         }
         
         // If permission doesn't exist in our nodes, use the raw permission
-        String node = permissionNodes.getOrDefault(permission, permission);
+        String node = getPermissionNode(permission);
         
         // Add debug logging
         boolean hasPerm = source.hasPermission(node);
-        if (plugin.getConfigManager().getMainConfig().getOrDefault("debug", false) instanceof Boolean && 
-                (Boolean) plugin.getConfigManager().getMainConfig().getOrDefault("debug", false)) {
+        if (plugin.getConfigManager().getSettings().debug()) {
             plugin.getLogger().info("Permission check: " + source.getClass().getSimpleName() + 
                     " checking for permission: " + node + " - Result: " + hasPerm);
         }
@@ -67,28 +46,74 @@ public class PermissionManager {
     }
     
     /**
-     * Get a permission node from the configured nodes
+     * Check a raw permission node for a player, caching the decision until the
+     * player disconnects or their permission data changes
      * 
-     * @param key The permission key
-     * @return The permission node
+     * @param player The player
+     * @param node The full permission node
+     * @return true if the player has the permission
      */
-    public String getPermissionNode(String key) {
-        return permissionNodes.getOrDefault(key, key);
+    public boolean hasCachedPermission(Player player, String node) {
+        Map<String, Boolean> decisions = decisionCache.get(player.getUniqueId());
+        if (decisions == null) {
+            // Not connected (any more), a cached decision would outlive the player
+            return player.hasPermission(node);
+        }
+        return decisions.computeIfAbsent(node, player::hasPermission);
     }
     
     /**
-     * Helper method to safely get a string from a map
+     * Start caching decisions for players already online
+     * 
+     * @param players The connected players
      */
-    private String getString(Map<String, Object> map, String key, String defaultValue) {
-        Object value = map.get(key);
-        return value != null ? value.toString() : defaultValue;
+    public void seed(Collection<Player> players) {
+        players.forEach(player -> playerConnected(player.getUniqueId()));
+    }
+    
+    public void playerConnected(UUID playerId) {
+        decisionCache.putIfAbsent(playerId, new ConcurrentHashMap<>());
+    }
+    
+    public void playerDisconnected(UUID playerId) {
+        decisionCache.remove(playerId);
+    }
+    
+    /**
+     * Forget all cached permission decisions of a player
+     * 
+     * @param playerId The player's UUID
+     */
+    public void invalidate(UUID playerId) {
+        // A fresh map, a check running meanwhile writes its stale decision into the old one
+        decisionCache.computeIfPresent(playerId, (id, decisions) -> new ConcurrentHashMap<>());
+    }
+    
+    /**
+     * Forget all cached permission decisions
+     */
+    public void invalidateAll() {
+        decisionCache.replaceAll((id, decisions) -> new ConcurrentHashMap<>());
+    }
+    
+    public int getCachedPlayerCount() {
+        return (int) decisionCache.values().stream().filter(decisions -> !decisions.isEmpty()).count();
+    }
+    
+    /**
+     * Get a permission node from the configured nodes
+     * 
+     * @param key The permission key
+     * @return The permission node
+     */
+    public String getPermissionNode(String key) {
+        return plugin.getConfigManager().getSettings().permissions().node(key);
     }
     
     /**
-     * Reload permission settings from config
+     * Forget cached decisions after a reload, the nodes themselves are read from the current settings
      */
     public void reload() {
-        permissionNodes.clear();
-        permissionNodes.putAll(loadPermissionNodes());
+        decisionCache.clear();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,154 @@
+package com.midenium.mannouncer.utils;
+
+import com.midenium.mannouncer.MAnnouncer;
+import com.midenium.mannouncer.config.PluginSettings;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.text.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives every active typing effect from a single shared ticker.
+ * <p>
+ * A session is one message revealed to a group of players; each tick reveals the next chunk of
+ * characters to the whole group at once. Frames are cut from the original component tree, so
+ * colors and click/hover events are kept while the text is being typed.
+ */
+public class TypingEffectEngine {
+
+    private final MAnnouncer plugin;
+
+    // Guarded by this
+    private final List<TypingSession> sessions = new ArrayList<>();
+    private final Map<UUID, Integer> sessionsPerPlayer = new HashMap<>();
+    private ScheduledTask ticker;
+
+    private static final class TypingSession {
+        private final Component message;
+        private final int length;
+        private final List<Player> players;
+        private final Audience audience;
+        private int revealed;
+
+        private TypingSession(Component message, int length, List<Player> players) {
+            this.message = message;
+            this.length = length;
+            this.players = players;
+            this.audience = Audience.audience(players);
+        }
+    }
+
+    public TypingEffectEngine(MAnnouncer plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Start typing a message to a group of players. Players already at their session
+     * limit, and messages over the configured length, are sent the full message instead.
+     *
+     * @param players Recipients
+     * @param message The message to type
+     */
+    public void start(Collection<Player> players, Component message) {
+        PluginSettings.Typing settings = plugin.getConfigManager().getSettings().typing();
+        int length = ComponentSlicer.length(message);
+
+        // Limit text length for performance
+        if (length > settings.maxChars() || length <= settings.chunkSize()) {
+            Audience.audience(players).sendMessage(message);
+            return;
+        }
+
+        List<Player> typing = new ArrayList<>(players.size());
+        List<Player> direct = new ArrayList<>();
+
+        synchronized (this) {
+            for (Player player : players) {
+                int active = sessionsPerPlayer.getOrDefault(player.getUniqueId(), 0);
+                if (active >= settings.maxSessionsPerPlayer()) {
+                    direct.add(player);
+                } else {
+                    sessionsPerPlayer.put(player.getUniqueId(), active + 1);
+                    typing.add(player);
+                }
+            }
+
+            if (!typing.isEmpty()) {
+                sessions.add(new TypingSession(message, length, typing));
+                ensureTicking(settings.delay());
+            }
+        }
+
+        if (!direct.isEmpty()) {
+            Audience.audience(direct).sendMessage(message);
+        }
+    }
+
+    private void ensureTicking(int delay) {
+        if (ticker == null) {
+            ticker = plugin.getServer().getScheduler().buildTask(plugin, this::tick)
+                    .repeat(Math.max(1, delay), TimeUnit.MILLISECONDS)
+                    .schedule();
+        }
+    }
+
+    private synchronized void tick() {
+        int chunkSize = plugin.getConfigManager().getSettings().typing().chunkSize();
+
+        Iterator<TypingSession> iterator = sessions.iterator();
+        while (iterator.hasNext()) {
+            TypingSession session = iterator.next();
+            session.revealed = Math.min(session.length, session.revealed + chunkSize);
+
+            boolean finished = session.revealed >= session.length;
+            session.audience.sendMessage(finished
+                    ? session.message
+                    : ComponentSlicer.slice(session.message, session.revealed));
+
+            if (finished) {
+                iterator.remove();
+                release(session);
+            }
+        }
+
+        if (sessions.isEmpty() && ticker != null) {
+            ticker.cancel();
+            ticker = null;
+        }
+    }
+
+    private void release(TypingSession session) {
+        for (Player player : session.players) {
+            sessionsPerPlayer.computeIfPresent(player.getUniqueId(), (id, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    public synchronized int getActiveSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Finish all sessions immediately by sending their full messages
+     */
+    public synchronized void shutdown() {
+        for (TypingSession session : sessions) {
+            session.audience.sendMessage(session.message);
+        }
+        sessions.clear();
+        sessionsPerPlayer.clear();
+
+        if (ticker != null) {
+            ticker.cancel();
+            ticker = null;
+        }
+    }
+}
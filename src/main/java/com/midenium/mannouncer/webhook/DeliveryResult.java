@@ -0,0 +1,25 @@
+package com.midenium.mannouncer.webhook;
+
+/**
+ * Outcome of a single webhook delivery
+ *
+ * @param url The webhook URL
+ * @param status The delivery status
+ * @param statusCode The HTTP status code, or -1 if no response was received
+ * @param latencyNanos Time from submission to completion
+ * @param error The failure cause, if any
+ */
+public record DeliveryResult(String url, Status status, int statusCode, long latencyNanos, Throwable error) {
+
+    public enum Status {
+        SUCCESS,
+        RATE_LIMITED,
+        HTTP_ERROR,
+        FAILED,
+        DROPPED
+    }
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+}
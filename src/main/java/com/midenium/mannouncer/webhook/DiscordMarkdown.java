@@ -0,0 +1,303 @@
+package com.midenium.mannouncer.webhook;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts MiniMessage text for Discord in a single pass over the input.
+ * <p>
+ * Bold, italic, underlined, strikethrough and obfuscated become their markdown (obfuscated as a
+ * spoiler), {@code <click:open_url:...>} becomes a {@code [text](url)} link and {@code <newline>}
+ * a line break. Every other tag, colors and gradients included, is dropped with its arguments.
+ * Markdown characters in the text itself are escaped so they show up as written.
+ */
+public final class DiscordMarkdown {
+
+    private enum Format {
+        BOLD("**"),
+        ITALIC("*"),
+        UNDERLINED("__"),
+        STRIKETHROUGH("~~"),
+        SPOILER("||"),
+        LINK("[");
+
+        private final String opener;
+
+        Format(String opener) {
+            this.opener = opener;
+        }
+    }
+
+    private static final class Open {
+        private final Format format;
+        private final String url;
+        private int position;
+
+        private Open(Format format, String url) {
+            this.format = format;
+            this.url = url;
+        }
+    }
+
+    private DiscordMarkdown() {
+    }
+
+    /**
+     * @param miniMessage MiniMessage text
+     * @return Discord markdown
+     */
+    public static String fromMiniMessage(String miniMessage) {
+        return convert(miniMessage, true);
+    }
+
+    /**
+     * @param miniMessage MiniMessage text
+     * @return The text without any tags, unescaped
+     */
+    public static String stripTags(String miniMessage) {
+        return convert(miniMessage, false);
+    }
+
+    private static String convert(String input, boolean markdown) {
+        if (input == null || input.isEmpty()) {
+            return "";
+        }
+
+        StringBuilder out = new StringBuilder(input.length());
+        List<Open> open = markdown ? new ArrayList<>(4) : null;
+        int length = input.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = input.charAt(i);
+
+            // MiniMessage escapes, \< and \\ are literal
+            if (c == '\\' && i + 1 < length && (input.charAt(i + 1) == '<' || input.charAt(i + 1) == '\\')) {
+                appendText(out, input.charAt(i + 1), markdown);
+                i += 2;
+                continue;
+            }
+
+            if (c == '<') {
+                int end = tagEnd(input, i + 1);
+                if (end > i + 1) {
+                    if (markdown) {
+                        applyTag(out, open, input, i + 1, end);
+                    } else if (isNewline(input, i + 1, end)) {
+                        out.append('\n');
+                    }
+                    i = end + 1;
+                    continue;
+                }
+            }
+
+            appendText(out, c, markdown);
+            i++;
+        }
+
+        if (markdown) {
+            while (!open.isEmpty()) {
+                close(out, open.remove(open.size() - 1));
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * @return Index of the '>' closing a tag whose name starts at {@code start}, skipping quoted
+     *         arguments, or -1 if this '<' doesn't start a tag
+     */
+    private static int tagEnd(String input, int start) {
+        if (start >= input.length()) {
+            return -1;
+        }
+        char first = input.charAt(start);
+        if (!(first == '/' || first == '#' || first == '!' || Character.isLetter(first))) {
+            return -1;
+        }
+
+        char quote = 0;
+        for (int i = start; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (quote != 0) {
+                if (c == '\\' && i + 1 < input.length()) {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '>') {
+                return i;
+            } else if (c == '<' || c == '\n') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static void applyTag(StringBuilder out, List<Open> open, String input, int start, int end) {
+        boolean closing = input.charAt(start) == '/';
+        int nameStart = closing ? start + 1 : start;
+        int nameEnd = nameStart;
+        while (nameEnd < end && input.charAt(nameEnd) != ':') {
+            nameEnd++;
+        }
+        String name = input.substring(nameStart, nameEnd).toLowerCase();
+
+        if (!closing && (name.equals("newline") || name.equals("br"))) {
+            out.append('\n');
+            return;
+        }
+        if (name.equals("reset")) {
+            while (!open.isEmpty()) {
+                close(out, open.remove(open.size() - 1));
+            }
+            return;
+        }
+
+        Format format = switch (name) {
+            case "b", "bold" -> Format.BOLD;
+            case "i", "italic", "em" -> Format.ITALIC;
+            case "u", "underlined" -> Format.UNDERLINED;
+            case "st", "strikethrough" -> Format.STRIKETHROUGH;
+            case "obf", "obfuscated" -> Format.SPOILER;
+            case "click" -> Format.LINK;
+            default -> null;
+        };
+        if (format == null) {
+            return;
+        }
+
+        if (closing) {
+            closeFormat(out, open, format);
+            return;
+        }
+
+        // <bold:false> and friends turn a decoration off, there is nothing to open
+        String argument = nameEnd < end ? input.substring(nameEnd + 1, end) : "";
+        String url = null;
+        if (format == Format.LINK) {
+            if (!argument.startsWith("open_url:") || containsLink(open)) {
+                // Only links map to markdown, and Discord can't nest them
+                open.add(new Open(null, null));
+                return;
+            }
+            url = unquote(argument.substring("open_url:".length()));
+        } else if (!argument.isEmpty()) {
+            return;
+        }
+
+        Open entry = new Open(format, url);
+        entry.position = out.length();
+        out.append(format.opener);
+        open.add(entry);
+    }
+
+    private static void closeFormat(StringBuilder out, List<Open> open, Format format) {
+        int index = open.size() - 1;
+        while (index >= 0 && !matches(open.get(index), format)) {
+            index--;
+        }
+        if (index < 0) {
+            return;
+        }
+
+        // Markdown must nest, close what was opened later and reopen it afterwards
+        List<Open> reopen = new ArrayList<>(open.subList(index + 1, open.size()));
+        for (int i = open.size() - 1; i > index; i--) {
+            close(out, open.remove(i));
+        }
+        close(out, open.remove(index));
+        for (Open entry : reopen) {
+            if (entry.format != null) {
+                entry.position = out.length();
+                out.append(entry.format.opener);
+            }
+            open.add(entry);
+        }
+    }
+
+    private static boolean matches(Open entry, Format format) {
+        // Placeholders for unsupported clicks close with </click> too
+        return entry.format == format || (entry.format == null && format == Format.LINK);
+    }
+
+    private static void close(StringBuilder out, Open entry) {
+        if (entry.format == null) {
+            return;
+        }
+
+        int textStart = entry.position + entry.format.opener.length();
+        if (out.length() == textStart) {
+            // Nothing inside, drop the opener rather than leave stray markdown
+            out.setLength(entry.position);
+            if (entry.format == Format.LINK) {
+                appendUrl(out, entry.url);
+            }
+            return;
+        }
+
+        if (entry.format == Format.LINK) {
+            out.append("](");
+            appendUrl(out, entry.url);
+            out.append(')');
+        } else {
+            out.append(entry.format.opener);
+        }
+    }
+
+    /**
+     * Append a link target, percent-encoding the characters that would end it early or break it
+     * up, e.g. the parentheses in Wikipedia links
+     */
+    private static void appendUrl(StringBuilder out, String url) {
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            switch (c) {
+                case '(' -> out.append("%28");
+                case ')' -> out.append("%29");
+                case ' ' -> out.append("%20");
+                case '\t' -> out.append("%09");
+                case '\n' -> out.append("%0A");
+                case '\r' -> out.append("%0D");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private static boolean containsLink(List<Open> open) {
+        for (Open entry : open) {
+            if (entry.format == Format.LINK) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isNewline(String input, int start, int end) {
+        return input.regionMatches(true, start, "newline", 0, end - start) && end - start == 7
+                || input.regionMatches(true, start, "br", 0, end - start) && end - start == 2;
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2) {
+            char first = value.charAt(0);
+            if ((first == '\'' || first == '"') && value.charAt(value.length() - 1) == first) {
+                return value.substring(1, value.length() - 1);
+            }
+        }
+        return value;
+    }
+
+    private static void appendText(StringBuilder out, char c, boolean markdown) {
+        if (markdown) {
+            switch (c) {
+                case '\\', '*', '_', '~', '|', '`', '[', ']' -> out.append('\\');
+                default -> {
+                }
+            }
+        }
+        out.append(c);
+    }
+}
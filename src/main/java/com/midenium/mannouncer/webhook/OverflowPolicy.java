@@ -0,0 +1,20 @@
+package com.midenium.mannouncer.webhook;
+
+/**
+ * What to do with a new webhook when the delivery queue is full
+ */
+public enum OverflowPolicy {
+    /** Reject the new delivery and keep everything already queued */
+    DROP_NEWEST,
+    /** Evict the oldest queued delivery to make room for the new one */
+    DROP_OLDEST;
+
+    public static OverflowPolicy fromString(String name, OverflowPolicy defaultValue) {
+        for (OverflowPolicy policy : values()) {
+            if (policy.name().replace('_', '-').equalsIgnoreCase(name) || policy.name().equalsIgnoreCase(name)) {
+                return policy;
+            }
+        }
+        return defaultValue;
+    }
+}
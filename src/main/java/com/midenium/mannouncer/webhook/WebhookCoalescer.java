@@ -0,0 +1,212 @@
+package com.midenium.mannouncer.webhook;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Packs embeds headed for the same webhook URL into multi-embed Discord messages.
+ * <p>
+ * The first embed for a URL opens a short flush window; everything that arrives for that URL
+ * within the window goes out in as few requests as Discord's limits allow. Requests to one URL
+ * are sent one at a time so embeds keep their submission order. Embeds waiting for a URL are
+ * limited like the dispatcher's queue, overflow is handled by the same {@link OverflowPolicy}.
+ */
+public class WebhookCoalescer {
+
+    /** Discord accepts at most 10 embeds per message */
+    public static final int MAX_EMBEDS_PER_MESSAGE = 10;
+
+    /** Discord caps the combined text of all embeds in a message at 6000 characters */
+    private static final int MAX_EMBED_CHARS_PER_MESSAGE = 6000;
+
+    private final WebhookDispatcher dispatcher;
+    private final long flushWindowMillis;
+    private final int maxBufferedPerUrl;
+    private final OverflowPolicy overflowPolicy;
+    private final ScheduledExecutorService timer;
+
+    // Guarded by this
+    private final Map<String, UrlBuffer> buffers = new HashMap<>();
+    private boolean shutdown = false;
+
+    private record PendingEmbed(String json, CompletableFuture<DeliveryResult> future) {
+    }
+
+    private static final class UrlBuffer {
+        private final Deque<PendingEmbed> pending = new ArrayDeque<>();
+        private ScheduledFuture<?> flushTask;
+        private boolean sending;
+    }
+
+    /**
+     * @param dispatcher Delivers the packed messages
+     * @param flushWindowMillis Time the first embed for a URL waits for company
+     * @param maxBufferedPerUrl Embeds that may wait for one URL, e.g. while a slow or rate limited
+     *                          request is in flight, at least one message worth
+     * @param overflowPolicy Which embed to drop when a URL's buffer is full
+     */
+    public WebhookCoalescer(WebhookDispatcher dispatcher, long flushWindowMillis, int maxBufferedPerUrl,
+                            OverflowPolicy overflowPolicy) {
+        this.dispatcher = dispatcher;
+        this.flushWindowMillis = Math.max(0L, flushWindowMillis);
+        this.maxBufferedPerUrl = Math.max(MAX_EMBEDS_PER_MESSAGE, maxBufferedPerUrl);
+        this.overflowPolicy = overflowPolicy;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mAnnouncer-webhook-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue a single embed object for a webhook
+     *
+     * @param url The webhook URL
+     * @param embedJson One embed as a JSON object
+     * @return A future completed with the outcome of the message that carried this embed
+     */
+    public CompletableFuture<DeliveryResult> submit(String url, String embedJson) {
+        PendingEmbed embed = new PendingEmbed(embedJson, new CompletableFuture<>());
+        PendingEmbed dropped = null;
+
+        synchronized (this) {
+            if (shutdown) {
+                return dispatcher.submit(url, buildPayload(List.of(embed)));
+            }
+
+            UrlBuffer buffer = buffers.computeIfAbsent(url, k -> new UrlBuffer());
+            if (buffer.pending.size() >= maxBufferedPerUrl) {
+                if (overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+                    return dispatcher.drop(url);
+                }
+                dropped = buffer.pending.pollFirst();
+            }
+            buffer.pending.addLast(embed);
+
+            // While a message for this URL is in flight, the buffer is picked up when it completes
+            if (!buffer.sending) {
+                if (buffer.pending.size() >= MAX_EMBEDS_PER_MESSAGE || flushWindowMillis == 0) {
+                    flushLocked(url, buffer);
+                } else if (buffer.flushTask == null) {
+                    buffer.flushTask = timer.schedule(() -> flush(url), flushWindowMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+
+        if (dropped != null) {
+            PendingEmbed evicted = dropped;
+            dispatcher.drop(url).thenAccept(result -> evicted.future().complete(result));
+        }
+        return embed.future();
+    }
+
+    private synchronized void flush(String url) {
+        UrlBuffer buffer = buffers.get(url);
+        if (buffer != null) {
+            buffer.flushTask = null;
+            if (!buffer.sending) {
+                flushLocked(url, buffer);
+            }
+        }
+    }
+
+    private void flushLocked(String url, UrlBuffer buffer) {
+        if (buffer.flushTask != null) {
+            buffer.flushTask.cancel(false);
+            buffer.flushTask = null;
+        }
+
+        List<PendingEmbed> batch = takeBatch(buffer.pending);
+        if (batch.isEmpty()) {
+            buffers.remove(url);
+            return;
+        }
+
+        buffer.sending = true;
+        dispatcher.submit(url, buildPayload(batch)).whenComplete((result, error) -> {
+            for (PendingEmbed embed : batch) {
+                embed.future().complete(result);
+            }
+            onSent(url);
+        });
+    }
+
+    private synchronized void onSent(String url) {
+        UrlBuffer buffer = buffers.get(url);
+        if (buffer == null) {
+            return;
+        }
+
+        buffer.sending = false;
+        // Embeds that queued up meanwhile have already waited long enough
+        flushLocked(url, buffer);
+    }
+
+    private List<PendingEmbed> takeBatch(Deque<PendingEmbed> pending) {
+        List<PendingEmbed> batch = new ArrayList<>(Math.min(pending.size(), MAX_EMBEDS_PER_MESSAGE));
+        int chars = 0;
+
+        while (!pending.isEmpty() && batch.size() < MAX_EMBEDS_PER_MESSAGE) {
+            int size = pending.peekFirst().json().length();
+            // Always send at least one embed, oversized ones are rejected by Discord on their own
+            if (!batch.isEmpty() && chars + size > MAX_EMBED_CHARS_PER_MESSAGE) {
+                break;
+            }
+            chars += size;
+            batch.add(pending.pollFirst());
+        }
+
+        return batch;
+    }
+
+    private String buildPayload(List<PendingEmbed> batch) {
+        StringBuilder json = new StringBuilder(64 + batch.size() * 256);
+        json.append("{\"embeds\":[");
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(batch.get(i).json());
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Hand everything still buffered to the dispatcher right away and stop coalescing. Call this
+     * before shutting the dispatcher down, so the last batches are queued rather than dropped.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+            for (Map.Entry<String, UrlBuffer> entry : buffers.entrySet()) {
+                UrlBuffer buffer = entry.getValue();
+                if (buffer.flushTask != null) {
+                    buffer.flushTask.cancel(false);
+                    buffer.flushTask = null;
+                }
+
+                // Also drain URLs with a message in flight, nothing is left for onSent to pick up
+                List<PendingEmbed> batch;
+                while (!(batch = takeBatch(buffer.pending)).isEmpty()) {
+                    List<PendingEmbed> sent = batch;
+                    dispatcher.submit(entry.getKey(), buildPayload(sent)).whenComplete((result, error) -> {
+                        for (PendingEmbed embed : sent) {
+                            embed.future().complete(result);
+                        }
+                    });
+                }
+            }
+            buffers.clear();
+        }
+        timer.shutdown();
+    }
+}
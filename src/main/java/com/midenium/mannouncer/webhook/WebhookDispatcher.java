@@ -0,0 +1,207 @@
+package com.midenium.mannouncer.webhook;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Asynchronous webhook delivery engine.
+ * <p>
+ * Requests go through one shared {@link HttpClient}, so connections to the webhook host are kept
+ * alive and multiplexed over HTTP/2 where supported. At most {@code maxInFlight} requests run at
+ * once; the rest wait in a bounded queue whose overflow behaviour is set by an {@link OverflowPolicy}.
+ * Every delivery completes with a {@link DeliveryResult} that is also passed to the result listener.
+ * After {@link #shutdown()} the client is closed once the queue has drained.
+ */
+public class WebhookDispatcher {
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final HttpClient client;
+    private final ExecutorService executor;
+    private final int queueCapacity;
+    private final int maxInFlight;
+    private final OverflowPolicy overflowPolicy;
+    private final Duration requestTimeout;
+    private final Consumer<DeliveryResult> listener;
+
+    // Guarded by this
+    private final Deque<PendingDelivery> queue = new ArrayDeque<>();
+    private int inFlight = 0;
+    private boolean shutdown = false;
+
+    private record PendingDelivery(String url, String json, long submittedNanos,
+                                   CompletableFuture<DeliveryResult> future) {
+    }
+
+    public WebhookDispatcher(int queueCapacity, int maxInFlight, OverflowPolicy overflowPolicy,
+                             Duration connectTimeout, Duration requestTimeout, Consumer<DeliveryResult> listener) {
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.overflowPolicy = overflowPolicy;
+        this.requestTimeout = requestTimeout;
+        this.listener = listener;
+        this.executor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "mAnnouncer-webhook-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Queue a JSON payload for delivery
+     *
+     * @param url The webhook URL
+     * @param json The JSON body
+     * @return A future completed with the delivery outcome, never exceptionally
+     */
+    public CompletableFuture<DeliveryResult> submit(String url, String json) {
+        PendingDelivery delivery = new PendingDelivery(url, json, System.nanoTime(), new CompletableFuture<>());
+        PendingDelivery dropped = null;
+        boolean sendNow = false;
+
+        synchronized (this) {
+            if (shutdown) {
+                dropped = delivery;
+            } else if (inFlight < maxInFlight) {
+                inFlight++;
+                sendNow = true;
+            } else if (queue.size() < queueCapacity) {
+                queue.addLast(delivery);
+            } else if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+                dropped = queue.pollFirst();
+                queue.addLast(delivery);
+            } else {
+                dropped = delivery;
+            }
+        }
+
+        if (dropped != null) {
+            complete(dropped, DeliveryResult.Status.DROPPED, -1, null);
+        }
+        if (sendNow) {
+            send(delivery);
+        }
+        return delivery.future();
+    }
+
+    /**
+     * Report a delivery that was dropped before it reached this dispatcher's queue, e.g. by the
+     * coalescer's own buffer limit, so it is counted like any other drop
+     *
+     * @param url The webhook URL
+     * @return A future already completed as dropped
+     */
+    public CompletableFuture<DeliveryResult> drop(String url) {
+        PendingDelivery delivery = new PendingDelivery(url, "", System.nanoTime(), new CompletableFuture<>());
+        complete(delivery, DeliveryResult.Status.DROPPED, -1, null);
+        return delivery.future();
+    }
+
+    private void send(PendingDelivery delivery) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(delivery.url()))
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(delivery.json()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            // Malformed webhook URL
+            complete(delivery, DeliveryResult.Status.FAILED, -1, e);
+            sendNext();
+            return;
+        }
+
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            if (error != null) {
+                complete(delivery, DeliveryResult.Status.FAILED, -1, error);
+            } else {
+                int code = response.statusCode();
+                DeliveryResult.Status status;
+                if (code >= 200 && code < 300) {
+                    status = DeliveryResult.Status.SUCCESS;
+                } else if (code == 429) {
+                    status = DeliveryResult.Status.RATE_LIMITED;
+                } else {
+                    status = DeliveryResult.Status.HTTP_ERROR;
+                }
+                complete(delivery, status, code, null);
+            }
+            sendNext();
+        });
+    }
+
+    private void sendNext() {
+        PendingDelivery next;
+        synchronized (this) {
+            next = queue.pollFirst();
+            if (next == null) {
+                inFlight--;
+                if (shutdown && inFlight == 0) {
+                    close();
+                }
+                return;
+            }
+        }
+        send(next);
+    }
+
+    private void complete(PendingDelivery delivery, DeliveryResult.Status status, int statusCode, Throwable error) {
+        DeliveryResult result = new DeliveryResult(delivery.url(), status, statusCode,
+                System.nanoTime() - delivery.submittedNanos(), error);
+        try {
+            listener.accept(result);
+        } finally {
+            delivery.future().complete(result);
+        }
+    }
+
+    public synchronized int getQueuedCount() {
+        return queue.size();
+    }
+
+    public synchronized int getInFlightCount() {
+        return inFlight;
+    }
+
+    /**
+     * Stop accepting deliveries. Deliveries already queued or in flight are still sent,
+     * the client is closed and the worker threads exit once the queue has drained.
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        
+        // Otherwise the last in-flight request closes the client when it completes
+        if (inFlight == 0) {
+            close();
+        }
+    }
+
+    /**
+     * Close the client, then stop the threads it ran on. Runs on a thread of its own, closing waits
+     * for the client's remaining work, which may need the executor or the thread that completed the last request.
+     */
+    private void close() {
+        Thread closer = new Thread(() -> {
+            client.close();
+            executor.shutdown();
+        }, "mAnnouncer-webhook-close-" + THREAD_COUNTER.incrementAndGet());
+        closer.setDaemon(true);
+        closer.start();
+    }
+}
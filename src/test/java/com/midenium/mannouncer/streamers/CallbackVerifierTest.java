@@ -0,0 +1,208 @@
+package com.midenium.mannouncer.streamers;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CallbackVerifierTest {
+
+    private static final byte[] SECRET = "s3cr3t-shared-with-the-platform".getBytes(StandardCharsets.UTF_8);
+    private static final String MESSAGE_ID = "e76c6bd4-55c9-4987-8304-da1588d8988b";
+    private static final String TIMESTAMP = "2026-10-17T12:00:00.123456789Z";
+    private static final byte[] BODY = "{\"subscription\":{\"type\":\"stream.online\"}}".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Clock the tests move by hand
+     */
+    private static final class ManualClock extends Clock {
+        private Instant now;
+
+        private ManualClock(Instant now) {
+            this.now = now;
+        }
+
+        private void advanceSeconds(long seconds) {
+            now = now.plusSeconds(seconds);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private final ManualClock clock = new ManualClock(Instant.parse(TIMESTAMP));
+    private final CallbackVerifier verifier = new CallbackVerifier(SECRET, 600, clock);
+
+    @Test
+    void acceptsTwitchSignatureOverIdTimestampAndBody() {
+        String signature = "sha256=" + hmac("HmacSHA256", SECRET, MESSAGE_ID + TIMESTAMP, BODY);
+        assertTrue(verifier.verifyTwitch(MESSAGE_ID, TIMESTAMP, BODY, signature));
+    }
+
+    @Test
+    void rejectsTwitchSignatureWhenAnySignedPartChanges() {
+        String signature = "sha256=" + hmac("HmacSHA256", SECRET, MESSAGE_ID + TIMESTAMP, BODY);
+        byte[] tampered = "{\"subscription\":{\"type\":\"stream.offline\"}}".getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(verifier.verifyTwitch(MESSAGE_ID, TIMESTAMP, tampered, signature));
+        assertFalse(verifier.verifyTwitch("another-id", TIMESTAMP, BODY, signature));
+        assertFalse(verifier.verifyTwitch(MESSAGE_ID, "2026-10-17T12:00:01Z", BODY, signature));
+    }
+
+    @Test
+    void rejectsTwitchSignatureOfBodyAlone() {
+        // Signing only the body would let a captured body be replayed under a fresh id and timestamp
+        String signature = "sha256=" + hmac("HmacSHA256", SECRET, "", BODY);
+        assertFalse(verifier.verifyTwitch(MESSAGE_ID, TIMESTAMP, BODY, signature));
+    }
+
+    @Test
+    void rejectsTwitchSignatureWithAnotherSecret() {
+        byte[] otherSecret = "not-the-secret".getBytes(StandardCharsets.UTF_8);
+        String signature = "sha256=" + hmac("HmacSHA256", otherSecret, MESSAGE_ID + TIMESTAMP, BODY);
+        assertFalse(verifier.verifyTwitch(MESSAGE_ID, TIMESTAMP, BODY, signature));
+    }
+
+    @Test
+    void rejectsMalformedTwitchSignatures() {
+        String hex = hmac("HmacSHA256", SECRET, MESSAGE_ID + TIMESTAMP, BODY);
+
+        assertFalse(verifier.verifyTwitch(MESSAGE_ID, TIMESTAMP, BODY, ""));
+        assertFalse(verifier.verifyTwitch(MESSAGE_ID, TIMESTAMP, BODY, hex));
+        assertFalse(verifier.verifyTwitch(MESSAGE_ID, TIMESTAMP, BODY, "sha1=" + hex));
+        assertFalse(verifier.verifyTwitch(MESSAGE_ID, TIMESTAMP, BODY, "sha256=not-hex"));
+        assertFalse(verifier.verifyTwitch(MESSAGE_ID, TIMESTAMP, BODY, "sha256=" + hex.substring(0, 32)));
+        assertFalse(verifier.verifyTwitch(MESSAGE_ID, TIMESTAMP, BODY, "sha256="));
+    }
+
+    @Test
+    void acceptsYouTubeSignatureOverBody() {
+        String signature = "sha1=" + hmac("HmacSHA1", SECRET, "", BODY);
+        assertTrue(verifier.verifyYouTube(BODY, signature));
+    }
+
+    @Test
+    void rejectsBadYouTubeSignatures() {
+        String hex = hmac("HmacSHA1", SECRET, "", BODY);
+        byte[] tampered = "<feed>other</feed>".getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(verifier.verifyYouTube(tampered, "sha1=" + hex));
+        assertFalse(verifier.verifyYouTube(BODY, "sha256=" + hmac("HmacSHA256", SECRET, "", BODY)));
+        assertFalse(verifier.verifyYouTube(BODY, hex));
+        assertFalse(verifier.verifyYouTube(BODY, ""));
+        assertFalse(verifier.verifyYouTube(BODY, "sha1=" + hmac("HmacSHA1", "x".getBytes(StandardCharsets.UTF_8), "", BODY)));
+    }
+
+    @Test
+    void rejectsEverythingWithoutSecret() {
+        CallbackVerifier unconfigured = new CallbackVerifier(new byte[0], 600, clock);
+        assertFalse(unconfigured.verifyYouTube(BODY, "sha1=" + hmac("HmacSHA1", SECRET, "", BODY)));
+        assertFalse(unconfigured.verifyTwitch(MESSAGE_ID, TIMESTAMP, BODY,
+                "sha256=" + hmac("HmacSHA256", SECRET, MESSAGE_ID + TIMESTAMP, BODY)));
+    }
+
+    @Test
+    void acceptsMessagesWithinMaxAge() {
+        clock.advanceSeconds(600);
+        assertTrue(verifier.isFresh(TIMESTAMP));
+    }
+
+    @Test
+    void rejectsMessagesOlderThanMaxAge() {
+        clock.advanceSeconds(601);
+        assertFalse(verifier.isFresh(TIMESTAMP));
+    }
+
+    @Test
+    void rejectsMessagesFromTooFarInTheFuture() {
+        assertFalse(verifier.isFresh("2026-10-17T12:10:01.123456789Z"));
+    }
+
+    @Test
+    void rejectsUnparseableTimestamps() {
+        assertFalse(verifier.isFresh(""));
+        assertFalse(verifier.isFresh("yesterday"));
+        assertFalse(verifier.isFresh("2026-10-17 12:00:00"));
+    }
+
+    @Test
+    void rejectsReplayedMessageIds() {
+        assertTrue(verifier.markSeen("twitch:" + MESSAGE_ID));
+        assertFalse(verifier.markSeen("twitch:" + MESSAGE_ID));
+        assertTrue(verifier.markSeen("twitch:another-id"));
+    }
+
+    @Test
+    void keepsMessageIdsForTheReplayWindow() {
+        assertTrue(verifier.markSeen("twitch:" + MESSAGE_ID));
+
+        clock.advanceSeconds(600);
+        assertFalse(verifier.markSeen("twitch:" + MESSAGE_ID));
+
+        // Past the window the timestamp check rejects a replay instead
+        clock.advanceSeconds(1);
+        verifier.markSeen("twitch:later");
+        assertTrue(verifier.markSeen("twitch:" + MESSAGE_ID));
+    }
+
+    @Test
+    void forgetsOldestMessageIdsBeyondTheLimit() {
+        for (int i = 0; i < CallbackVerifier.MAX_SEEN_MESSAGES; i++) {
+            assertTrue(verifier.markSeen("id-" + i));
+        }
+        assertFalse(verifier.markSeen("id-" + (CallbackVerifier.MAX_SEEN_MESSAGES - 1)));
+
+        assertTrue(verifier.markSeen("one-more"));
+        assertTrue(verifier.markSeen("id-0"));
+    }
+
+    @Test
+    void readsBodiesUpToTheLimit() throws IOException {
+        byte[] body = new byte[CallbackVerifier.MAX_BODY_BYTES];
+        assertArrayEquals(body, CallbackVerifier.readBody(new ByteArrayInputStream(body)));
+        assertEquals(0, CallbackVerifier.readBody(new ByteArrayInputStream(new byte[0])).length);
+    }
+
+    @Test
+    void rejectsBodiesOverTheLimit() throws IOException {
+        byte[] body = new byte[CallbackVerifier.MAX_BODY_BYTES + 1];
+        assertNull(CallbackVerifier.readBody(new ByteArrayInputStream(body)));
+    }
+
+    private static String hmac(String algorithm, byte[] secret, String prefix, byte[] body) {
+        try {
+            Mac mac = Mac.getInstance(algorithm);
+            mac.init(new SecretKeySpec(secret, algorithm));
+            mac.update(prefix.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(mac.doFinal(body));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.midenium.mannouncer.tasks;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void startsFull() {
+        TokenBucket bucket = new TokenBucket(1.0, 3, 0);
+        assertTrue(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertFalse(bucket.tryAcquire(0));
+    }
+
+    @Test
+    void refillsAtTheRate() {
+        TokenBucket bucket = new TokenBucket(2.0, 1, 0);
+        assertTrue(bucket.tryAcquire(0));
+        assertFalse(bucket.tryAcquire(SECOND / 4));
+        assertTrue(bucket.tryAcquire(SECOND / 2));
+        assertFalse(bucket.hasToken(SECOND / 2));
+    }
+
+    @Test
+    void neverHoldsMoreThanItsCapacity() {
+        TokenBucket bucket = new TokenBucket(10.0, 2, 0);
+        assertTrue(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0));
+
+        // An hour idle refills to the capacity, not beyond
+        long later = 3600 * SECOND;
+        assertTrue(bucket.tryAcquire(later));
+        assertTrue(bucket.tryAcquire(later));
+        assertFalse(bucket.tryAcquire(later));
+    }
+
+    @Test
+    void reportsTheWaitForTheNextToken() {
+        TokenBucket bucket = new TokenBucket(4.0, 1, 0);
+        assertEquals(0, bucket.nanosUntilToken(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertEquals(SECOND / 4, bucket.nanosUntilToken(0));
+        assertEquals(SECOND / 8, bucket.nanosUntilToken(SECOND / 8));
+        assertEquals(0, bucket.nanosUntilToken(SECOND / 4));
+    }
+
+    @Test
+    void ignoresClocksGoingBackwards() {
+        TokenBucket bucket = new TokenBucket(1.0, 1, SECOND);
+        assertTrue(bucket.tryAcquire(SECOND));
+        assertFalse(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(2 * SECOND));
+    }
+
+    @Test
+    void neverRunsOutWithoutARate() {
+        TokenBucket bucket = new TokenBucket(0.0, 1, 0);
+        assertTrue(bucket.isUnlimited());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(bucket.tryAcquire(0));
+        }
+        assertEquals(0, bucket.nanosUntilToken(0));
+    }
+}
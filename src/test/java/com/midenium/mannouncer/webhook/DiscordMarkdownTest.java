@@ -0,0 +1,60 @@
+package com.midenium.mannouncer.webhook;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DiscordMarkdownTest {
+
+    @Test
+    void convertsDecorationsToMarkdown() {
+        assertEquals("**Hi** there", DiscordMarkdown.fromMiniMessage("<bold>Hi</bold> there"));
+        assertEquals("*__x__*", DiscordMarkdown.fromMiniMessage("<italic><underlined>x</underlined></italic>"));
+        assertEquals("||s||~~t~~", DiscordMarkdown.fromMiniMessage("<obfuscated>s</obfuscated><strikethrough>t</strikethrough>"));
+    }
+
+    @Test
+    void dropsColorsAndGradients() {
+        assertEquals("Red grad", DiscordMarkdown.fromMiniMessage("<red>Red</red> <gradient:red:blue>grad</gradient>"));
+    }
+
+    @Test
+    void escapesMarkdownInTheText() {
+        assertEquals("\\*star\\* \\_u\\_", DiscordMarkdown.fromMiniMessage("*star* _u_"));
+    }
+
+    @Test
+    void keepsTextThatOnlyLooksLikeATag() {
+        assertEquals("1 < 2", DiscordMarkdown.fromMiniMessage("1 < 2"));
+    }
+
+    @Test
+    void convertsNewlines() {
+        assertEquals("a\nb", DiscordMarkdown.fromMiniMessage("a<newline>b"));
+    }
+
+    @Test
+    void convertsOpenUrlClicksToLinks() {
+        assertEquals("[site](https://x.io/a)", DiscordMarkdown.fromMiniMessage("<click:open_url:https://x.io/a>site</click>"));
+    }
+
+    @Test
+    void encodesCharactersThatWouldEndTheLinkEarly() {
+        assertEquals("[wiki](https://en.wikipedia.org/wiki/Foo_%28bar%29)",
+                DiscordMarkdown.fromMiniMessage("<click:open_url:'https://en.wikipedia.org/wiki/Foo_(bar)'>wiki</click>"));
+        assertEquals("[docs](https://x.io/a%20b)",
+                DiscordMarkdown.fromMiniMessage("<click:open_url:'https://x.io/a b'>docs</click>"));
+        assertEquals("https://x.io/%28a%29", DiscordMarkdown.fromMiniMessage("<click:open_url:'https://x.io/(a)'></click>"));
+    }
+
+    @Test
+    void keepsTheUrlOfAnEmptyLink() {
+        assertEquals("https://x.io", DiscordMarkdown.fromMiniMessage("<click:open_url:https://x.io></click>"));
+    }
+
+    @Test
+    void stripsTagsWithoutEscaping() {
+        assertEquals("Hi *there*", DiscordMarkdown.stripTags("<bold>Hi</bold> <red>*there*</red>"));
+        assertEquals("site", DiscordMarkdown.stripTags("<click:open_url:https://x.io/a>site</click>"));
+    }
+}